@@ -0,0 +1,45 @@
+package me.folf.podns4j.load;
+
+import java.util.Random;
+
+/**
+ * Distribution of simulated upstream response latencies.
+ */
+@FunctionalInterface
+public interface LatencyModel {
+    /**
+     * Samples a latency.
+     *
+     * @param random the random source
+     * @return the latency in microseconds
+     */
+    long sampleMicros(Random random);
+
+    /**
+     * Returns a model with a constant latency.
+     *
+     * @param millis the latency in milliseconds
+     * @return the model
+     */
+    static LatencyModel fixed(double millis) {
+        long micros = (long) (millis * 1000);
+        return random -> micros;
+    }
+
+    /**
+     * Returns a log-normal model, which matches the long right tail of real
+     * resolver latencies.
+     *
+     * @param medianMillis the median latency in milliseconds
+     * @param p99Millis    the 99th percentile latency in milliseconds
+     * @return the model
+     */
+    static LatencyModel logNormal(double medianMillis, double p99Millis) {
+        if (medianMillis <= 0 || p99Millis < medianMillis) {
+            throw new IllegalArgumentException("Median must be positive and at most the 99th percentile");
+        }
+        double mu = Math.log(medianMillis * 1000);
+        double sigma = Math.log(p99Millis / medianMillis) / 2.326; // z-score of the 99th percentile
+        return random -> (long) Math.exp(mu + sigma * random.nextGaussian());
+    }
+}
@@ -0,0 +1,102 @@
+package me.folf.podns4j.load;
+
+import me.folf.podns4j.PoDNS4J;
+
+import javax.naming.NameNotFoundException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator for {@link PoDNS4J#lookup(String)}.
+ *
+ * <p>
+ * Requests are issued at a fixed rate regardless of how quickly earlier ones
+ * complete, and latency is measured from each request's intended start time.
+ * This avoids coordinated omission: when lookups stall, the queueing delay of
+ * the requests behind them is included in the reported percentiles.
+ * </p>
+ */
+public final class LoadGenerator {
+    private final PoDNS4J podns;
+    private final List<String> domains;
+    private final int concurrency;
+
+    /**
+     * Creates a load generator.
+     *
+     * @param podns       the instance to drive
+     * @param domains     the domains to look up, cycled through in order
+     * @param concurrency the maximum number of concurrent lookups
+     */
+    public LoadGenerator(PoDNS4J podns, List<String> domains, int concurrency) {
+        this.podns = Objects.requireNonNull(podns, "podns cannot be null");
+        if (domains.isEmpty() || concurrency <= 0) {
+            throw new IllegalArgumentException("Domains must not be empty and concurrency must be positive");
+        }
+        this.domains = List.copyOf(domains);
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Runs lookups at a target rate and waits for all of them to complete.
+     *
+     * @param ratePerSecond the target request rate
+     * @param duration      how long to issue requests for
+     * @return the report
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public LoadReport run(double ratePerSecond, Duration duration) throws InterruptedException {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("Rate must be positive");
+        }
+        LatencyHistogram latencies = new LatencyHistogram();
+        AtomicLong found = new AtomicLong();
+        AtomicLong empty = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        long intervalNanos = (long) (1e9 / ratePerSecond);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        try {
+            for (long i = 0;; i++) {
+                long intended = start + i * intervalNanos;
+                if (intended >= end) {
+                    break;
+                }
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+
+                String domain = domains.get((int) (i % domains.size()));
+                executor.execute(() -> {
+                    try {
+                        if (podns.lookup(domain) != null) {
+                            found.incrementAndGet();
+                        } else {
+                            empty.incrementAndGet();
+                        }
+                    } catch (NameNotFoundException e) {
+                        empty.incrementAndGet();
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    latencies.record((System.nanoTime() - intended) / 1000);
+                });
+            }
+        } finally {
+            executor.shutdown();
+        }
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        return new LoadReport(latencies.count(), found.get(), empty.get(), errors.get(), elapsed, latencies);
+    }
+}
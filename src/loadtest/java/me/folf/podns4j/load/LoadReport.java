@@ -0,0 +1,38 @@
+package me.folf.podns4j.load;
+
+import java.time.Duration;
+
+/**
+ * Outcome of a {@link LoadGenerator} run.
+ *
+ * @param requests  the number of completed lookups
+ * @param found     lookups that returned pronoun records
+ * @param empty     lookups of domains without records
+ * @param errors    lookups that failed
+ * @param elapsed   the wall-clock duration of the run
+ * @param latencies lookup latencies in microseconds, measured from each
+ *                  request's intended start time
+ */
+public record LoadReport(long requests, long found, long empty, long errors, Duration elapsed,
+        LatencyHistogram latencies) {
+
+    /**
+     * Returns the achieved throughput.
+     *
+     * @return completed lookups per second
+     */
+    public double throughput() {
+        return requests / Math.max(1e-9, elapsed.toNanos() / 1e9);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "requests=%d found=%d empty=%d errors=%d throughput=%.1f/s%n"
+                        + "latency ms: p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f",
+                requests, found, empty, errors, throughput(),
+                latencies.percentile(50) / 1000.0, latencies.percentile(90) / 1000.0,
+                latencies.percentile(99) / 1000.0, latencies.percentile(99.9) / 1000.0,
+                latencies.max() / 1000.0);
+    }
+}
@@ -0,0 +1,89 @@
+package me.folf.podns4j.load;
+
+import me.folf.podns4j.PoDNS4J;
+import me.folf.podns4j.PronounDnsResolver;
+import me.folf.podns4j.dns.DnsTxtClient;
+import me.folf.podns4j.server.PronounRecordStore;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Runs a load or soak test of {@link PoDNS4J} against a
+ * {@link SimulatedDnsUpstream}, entirely offline.
+ *
+ * <p>
+ * Options are passed as {@code key=value} arguments:
+ * </p>
+ * <ul>
+ * <li>{@code rate}: lookups per second (default 1000)</li>
+ * <li>{@code duration}: seconds to run for (default 30)</li>
+ * <li>{@code concurrency}: maximum concurrent lookups (default 64)</li>
+ * <li>{@code domains}: number of distinct domains (default 10000)</li>
+ * <li>{@code median}, {@code p99}: upstream latency in milliseconds (default 5
+ * and 80)</li>
+ * <li>{@code loss}, {@code servfail}: upstream failure probabilities (default
+ * 0.01 and 0.005)</li>
+ * <li>{@code timeout}, {@code attempts}: client settings (defaults from
+ * {@link DnsTxtClient})</li>
+ * </ul>
+ *
+ * <p>
+ * Example: {@code ./gradlew loadTest --args="rate=5000 duration=600 loss=0.02"}
+ * </p>
+ */
+public final class LoadTest {
+    private LoadTest() {
+    }
+
+    /**
+     * Entry point.
+     *
+     * @param args the options
+     * @throws Exception if the test cannot be set up
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq == -1) {
+                throw new IllegalArgumentException("Expected key=value: " + arg);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+
+        double rate = Double.parseDouble(options.getOrDefault("rate", "1000"));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30")));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "64"));
+        int domainCount = Integer.parseInt(options.getOrDefault("domains", "10000"));
+        LatencyModel latency = LatencyModel.logNormal(
+                Double.parseDouble(options.getOrDefault("median", "5")),
+                Double.parseDouble(options.getOrDefault("p99", "80")));
+        double loss = Double.parseDouble(options.getOrDefault("loss", "0.01"));
+        double servfail = Double.parseDouble(options.getOrDefault("servfail", "0.005"));
+        int timeout = Integer.parseInt(options.getOrDefault("timeout",
+                String.valueOf(DnsTxtClient.DEFAULT_TIMEOUT_MILLIS)));
+        int attempts = Integer.parseInt(options.getOrDefault("attempts",
+                String.valueOf(DnsTxtClient.DEFAULT_ATTEMPTS)));
+
+        PronounRecordStore store = new PronounRecordStore();
+        List<String> domains = RecordMix.CRAWL.populate(store, domainCount, new Random(42));
+
+        try (SimulatedDnsUpstream upstream = new SimulatedDnsUpstream(store, latency, loss, servfail)) {
+            upstream.start();
+            DnsTxtClient client = new DnsTxtClient(List.of(upstream.address()), timeout, attempts,
+                    DnsTxtClient.DEFAULT_UDP_PAYLOAD);
+            PoDNS4J podns = new PoDNS4J(new PronounDnsResolver(client));
+
+            System.out.printf("Running %.0f lookups/s for %ds over %d domains (%d with records)%n",
+                    rate, duration.toSeconds(), domainCount, store.size());
+            LoadReport report = new LoadGenerator(podns, domains, concurrency).run(rate, duration);
+            System.out.println(report);
+            System.out.printf("upstream: queries=%d dropped=%d servfail=%d%n",
+                    upstream.queries(), upstream.dropped(), upstream.failed());
+        }
+    }
+}
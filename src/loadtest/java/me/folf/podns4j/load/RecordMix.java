@@ -0,0 +1,86 @@
+package me.folf.podns4j.load;
+
+import me.folf.podns4j.PoDNS4J;
+import me.folf.podns4j.PronounParseException;
+import me.folf.podns4j.model.PronounRecord;
+import me.folf.podns4j.server.PronounRecordStore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Relative weights of the kinds of domains served by a
+ * {@link SimulatedDnsUpstream}.
+ *
+ * @param missing  weight of domains without pronoun records (NXDOMAIN)
+ * @param single   weight of domains with a single pronoun set
+ * @param multiple weight of domains with several sets and a comment
+ * @param wildcard weight of domains accepting any pronouns
+ * @param none     weight of domains preferring to be referred to by name
+ */
+public record RecordMix(double missing, double single, double multiple, double wildcard, double none) {
+    /**
+     * A mix resembling a crawl, where most domains have no records.
+     */
+    public static final RecordMix CRAWL = new RecordMix(90, 6, 2, 1, 1);
+
+    private static final String[] SETS = { "she/her", "he/him", "they/them", "it/its", "xe/xem/xyr/xyrs/xemself" };
+
+    /**
+     * Validates parameters.
+     *
+     * @param missing  the missing weight
+     * @param single   the single weight
+     * @param multiple the multiple weight
+     * @param wildcard the wildcard weight
+     * @param none     the none weight
+     */
+    public RecordMix {
+        if (missing < 0 || single < 0 || multiple < 0 || wildcard < 0 || none < 0
+                || missing + single + multiple + wildcard + none <= 0) {
+            throw new IllegalArgumentException("Weights must be non-negative with a positive sum");
+        }
+    }
+
+    /**
+     * Generates domains following this mix and stores the records of those that
+     * have any.
+     *
+     * @param store  the store to populate
+     * @param count  the number of domains to generate
+     * @param random the random source
+     * @return the generated domains, including those without records
+     */
+    public List<String> populate(PronounRecordStore store, int count, Random random) {
+        double sum = missing + single + multiple + wildcard + none;
+        List<String> domains = new ArrayList<>(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                String domain = "d" + i + ".load.test";
+                domains.add(domain);
+
+                double pick = random.nextDouble() * sum;
+                String set = SETS[random.nextInt(SETS.length)];
+                if ((pick -= missing) < 0) {
+                    continue;
+                } else if ((pick -= single) < 0) {
+                    store.put(domain, List.of(PoDNS4J.parse(set)));
+                } else if ((pick -= multiple) < 0) {
+                    List<PronounRecord> records = new ArrayList<>();
+                    records.add(PoDNS4J.parse(set + ";preferred"));
+                    records.add(PoDNS4J.parse("they/them"));
+                    records.add(PoDNS4J.parse("# generated for load testing"));
+                    store.put(domain, records);
+                } else if ((pick -= wildcard) < 0) {
+                    store.put(domain, List.of(PoDNS4J.parse("*"), PoDNS4J.parse(set)));
+                } else {
+                    store.put(domain, List.of(PoDNS4J.parse("!")));
+                }
+            }
+        } catch (PronounParseException e) {
+            throw new IllegalStateException("Generated record failed to parse", e);
+        }
+        return domains;
+    }
+}
@@ -0,0 +1,168 @@
+package me.folf.podns4j.load;
+
+import me.folf.podns4j.dns.DnsWire;
+import me.folf.podns4j.server.PronounDnsResponder;
+import me.folf.podns4j.server.PronounRecordStore;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process UDP DNS server that answers from a {@link PronounRecordStore}
+ * with simulated latency, packet loss and SERVFAIL responses.
+ *
+ * <p>
+ * Only UDP is served, so record mixes should keep answers within the client's
+ * EDNS0 buffer.
+ * </p>
+ */
+public final class SimulatedDnsUpstream implements AutoCloseable {
+    private final PronounDnsResponder responder;
+    private final LatencyModel latency;
+    private final double lossRate;
+    private final double servfailRate;
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private DatagramChannel channel;
+    private ScheduledExecutorService replies;
+    private Thread receiver;
+    private volatile boolean closed;
+
+    /**
+     * Creates an upstream. Call {@link #start()} to begin serving.
+     *
+     * @param store        the records to serve
+     * @param latency      the response latency distribution
+     * @param lossRate     the probability that a query is silently dropped
+     * @param servfailRate the probability that a query is answered with
+     *                     SERVFAIL
+     */
+    public SimulatedDnsUpstream(PronounRecordStore store, LatencyModel latency, double lossRate,
+            double servfailRate) {
+        this.responder = new PronounDnsResponder(store);
+        this.latency = Objects.requireNonNull(latency, "latency cannot be null");
+        if (lossRate < 0 || lossRate > 1 || servfailRate < 0 || servfailRate > 1) {
+            throw new IllegalArgumentException("Rates must be between 0 and 1");
+        }
+        this.lossRate = lossRate;
+        this.servfailRate = servfailRate;
+    }
+
+    /**
+     * Binds a loopback UDP port and starts serving.
+     *
+     * @throws IOException if the port cannot be bound
+     */
+    public void start() throws IOException {
+        channel = DatagramChannel.open();
+        channel.bind(new InetSocketAddress("127.0.0.1", 0));
+        replies = new ScheduledThreadPoolExecutor(2, runnable -> {
+            Thread thread = new Thread(runnable, "simulated-upstream-reply");
+            thread.setDaemon(true);
+            return thread;
+        });
+        receiver = new Thread(this::receive, "simulated-upstream");
+        receiver.setDaemon(true);
+        receiver.start();
+    }
+
+    /**
+     * Returns the address the upstream is listening on.
+     *
+     * @return the bound address
+     * @throws IOException if the upstream is not started
+     */
+    public InetSocketAddress address() throws IOException {
+        return (InetSocketAddress) channel.getLocalAddress();
+    }
+
+    /**
+     * Returns the number of queries received.
+     *
+     * @return the count
+     */
+    public long queries() {
+        return queries.get();
+    }
+
+    /**
+     * Returns the number of queries dropped to simulate packet loss.
+     *
+     * @return the count
+     */
+    public long dropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Returns the number of queries answered with SERVFAIL.
+     *
+     * @return the count
+     */
+    public long failed() {
+        return failed.get();
+    }
+
+    private void receive() {
+        ByteBuffer buffer = ByteBuffer.allocate(65535);
+        while (!closed) {
+            SocketAddress client;
+            byte[] query;
+            try {
+                buffer.clear();
+                client = channel.receive(buffer);
+                buffer.flip();
+                query = new byte[buffer.remaining()];
+                buffer.get(query);
+            } catch (IOException e) {
+                return;
+            }
+            queries.incrementAndGet();
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (random.nextDouble() < lossRate) {
+                dropped.incrementAndGet();
+                continue;
+            }
+            byte[] response;
+            if (random.nextDouble() < servfailRate) {
+                failed.incrementAndGet();
+                response = PronounDnsResponder.failure(query, DnsWire.RCODE_SERVFAIL);
+            } else {
+                response = responder.respond(query, true);
+            }
+            if (response == null) {
+                continue;
+            }
+
+            replies.schedule(() -> {
+                try {
+                    channel.send(ByteBuffer.wrap(response), client);
+                } catch (IOException e) {
+                    // Closed
+                }
+            }, latency.sampleMicros(random), TimeUnit.MICROSECONDS);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        if (replies != null) {
+            replies.shutdownNow();
+        }
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package me.folf.podns4j.load;
+
+import me.folf.podns4j.PoDNS4J;
+import me.folf.podns4j.PronounDnsResolver;
+import me.folf.podns4j.dns.DnsTxtClient;
+import me.folf.podns4j.model.PronounResult;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Performs one lookup and exits, as a short-lived CLI job would. Used as the
+ * child process of {@link StartupBenchmark}, and small enough to build as a
+ * native image.
+ *
+ * <p>
+ * Usage: {@code SingleLookup <domain> [nameserver[:port]]}. Without a
+ * nameserver the default resolver is used. Prints the preferred set and the
+ * time since process start.
+ * </p>
+ */
+public final class SingleLookup {
+    private SingleLookup() {
+    }
+
+    /**
+     * Entry point.
+     *
+     * @param args the domain and optional nameserver
+     * @throws Exception if the lookup fails
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: SingleLookup <domain> [nameserver[:port]]");
+            System.exit(2);
+        }
+
+        long started = System.nanoTime();
+        PronounDnsResolver resolver = args.length > 1
+                ? new PronounDnsResolver(new DnsTxtClient(List.of(parseAddress(args[1]))))
+                : new PronounDnsResolver();
+        PronounResult result = new PoDNS4J(resolver).lookup(args[0]);
+        long lookupMicros = (System.nanoTime() - started) / 1000;
+
+        Instant processStart = ProcessHandle.current().info().startInstant().orElse(null);
+        long sinceStartMillis = processStart != null
+                ? Duration.between(processStart, Instant.now()).toMillis() : -1;
+        System.out.printf("result=%s lookup_us=%d since_start_ms=%d%n",
+                result != null && result.preferred() != null ? result.preferred().toCanonicalString() : "none",
+                lookupMicros, sinceStartMillis);
+    }
+
+    private static InetSocketAddress parseAddress(String address) throws Exception {
+        int colon = address.lastIndexOf(':');
+        if (colon != -1 && address.indexOf(':') == colon) {
+            return new InetSocketAddress(InetAddress.getByName(address.substring(0, colon)),
+                    Integer.parseInt(address.substring(colon + 1)));
+        }
+        return new InetSocketAddress(InetAddress.getByName(address), 53);
+    }
+}
@@ -0,0 +1,99 @@
+package me.folf.podns4j.load;
+
+import me.folf.podns4j.PoDNS4J;
+import me.folf.podns4j.server.PronounDnsServer;
+import me.folf.podns4j.server.PronounRecordStore;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures how long a process doing a single lookup takes from launch to exit,
+ * for tuning short-lived CLI and serverless use.
+ *
+ * <p>
+ * Each run launches {@link SingleLookup} against a local
+ * {@link PronounDnsServer}, so results do not depend on the network. Options
+ * are passed as {@code key=value} arguments:
+ * </p>
+ * <ul>
+ * <li>{@code runs}: measured runs (default 20), after two warm-up runs</li>
+ * <li>{@code command}: the command to launch, separated by spaces (default: this
+ * JVM running {@link SingleLookup} on the current class path). Point it at a
+ * native image of {@link SingleLookup} to compare.</li>
+ * </ul>
+ *
+ * <p>
+ * Example: {@code ./gradlew startupBenchmark --args="runs=50"}
+ * </p>
+ */
+public final class StartupBenchmark {
+    private static final int WARMUP_RUNS = 2;
+
+    private StartupBenchmark() {
+    }
+
+    /**
+     * Entry point.
+     *
+     * @param args the options
+     * @throws Exception if the benchmark cannot be set up
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq == -1) {
+                throw new IllegalArgumentException("Expected key=value: " + arg);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+
+        int runs = Integer.parseInt(options.getOrDefault("runs", "20"));
+        List<String> command = options.containsKey("command")
+                ? new ArrayList<>(Arrays.asList(options.get("command").trim().split("\\s+")))
+                : new ArrayList<>(List.of(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                        "-cp", System.getProperty("java.class.path"), SingleLookup.class.getName()));
+
+        PronounRecordStore store = new PronounRecordStore();
+        store.put("example.com", List.of(PoDNS4J.parse("she/her;preferred")));
+        try (PronounDnsServer server = new PronounDnsServer(store, new InetSocketAddress("127.0.0.1", 0))) {
+            server.start();
+            command.add("example.com");
+            command.add("127.0.0.1:" + server.address().getPort());
+            System.out.println("Launching: " + String.join(" ", command));
+
+            long[] millis = new long[runs];
+            String output = null;
+            for (int i = -WARMUP_RUNS; i < runs; i++) {
+                long started = System.nanoTime();
+                output = launch(command);
+                if (i >= 0) {
+                    millis[i] = (System.nanoTime() - started) / 1_000_000;
+                }
+            }
+
+            Arrays.sort(millis);
+            System.out.println("last output: " + output);
+            System.out.printf("process wall time over %d runs: min=%dms median=%dms p90=%dms max=%dms%n",
+                    runs, millis[0], millis[runs / 2], millis[Math.min(runs - 1, (int) (runs * 0.9))],
+                    millis[runs - 1]);
+        }
+    }
+
+    private static String launch(List<String> command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+        if (process.waitFor() != 0) {
+            throw new IOException("Lookup process failed: " + output);
+        }
+        return output;
+    }
+}
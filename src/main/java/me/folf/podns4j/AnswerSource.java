@@ -0,0 +1,38 @@
+package me.folf.podns4j;
+
+/**
+ * Where the answer in a {@link LookupOutcome} came from.
+ */
+public enum AnswerSource {
+    /**
+     * A pinned answer from the instance's overrides.
+     */
+    OVERRIDE,
+
+    /**
+     * An unexpired cache entry.
+     */
+    CACHE,
+
+    /**
+     * An expired cache entry, served because it was within the lookup's
+     * staleness tolerance.
+     */
+    STALE_CACHE,
+
+    /**
+     * The negative filter, which records domains known to have no records.
+     */
+    NEGATIVE_FILTER,
+
+    /**
+     * A DNS query made by the lookup.
+     */
+    NETWORK,
+
+    /**
+     * No answer: the lookup was limited to the cache and the domain was not
+     * in it.
+     */
+    NONE
+}
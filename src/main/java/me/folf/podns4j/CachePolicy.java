@@ -0,0 +1,24 @@
+package me.folf.podns4j;
+
+/**
+ * How a lookup made with {@link LookupOptions} uses the cache.
+ */
+public enum CachePolicy {
+    /**
+     * Answer from the cache or negative filter when possible, and query DNS
+     * otherwise. This is how {@link PoDNS4J#lookup(String)} behaves.
+     */
+    CACHE_FIRST,
+
+    /**
+     * Answer only from the cache or negative filter, never querying DNS. A
+     * domain that is not known yields an outcome without an answer.
+     */
+    CACHE_ONLY,
+
+    /**
+     * Always query DNS, ignoring the cache and negative filter. The fresh
+     * answer is still cached for later lookups.
+     */
+    NETWORK_ONLY
+}
@@ -0,0 +1,114 @@
+package me.folf.podns4j;
+
+import java.net.IDN;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Normalizes user-supplied domains into the canonical name that is queried for
+ * pronoun records.
+ *
+ * <p>
+ * The canonical name is lowercase ASCII (internationalized labels are
+ * converted to punycode), has no trailing dot, and is prefixed with
+ * {@code pronouns.} unless it already starts with it. Equivalent inputs such
+ * as {@code Example.COM.} and {@code pronouns.example.com} therefore map to the
+ * same name, which makes it suitable as a cache key.
+ * </p>
+ */
+public final class DomainNormalizer {
+    /**
+     * The label prepended to domains to form the pronoun record name.
+     */
+    public static final String PREFIX = "pronouns.";
+
+    private static final int MAX_NAME_LENGTH = 253;
+    private static final int MAX_LABEL_LENGTH = 63;
+    private static final int MAX_CACHE_SIZE = 1024;
+
+    // Inputs that needed the slow path (case folding, IDNA); cleared when full
+    private static final Map<String, String> CACHE = new ConcurrentHashMap<>();
+
+    private DomainNormalizer() {
+    }
+
+    /**
+     * Returns the canonical pronoun record name for a domain.
+     *
+     * @param domain the domain (e.g., "Example.com." or an internationalized name)
+     * @return the canonical name (e.g., "pronouns.example.com")
+     * @throws IllegalArgumentException if the domain is null, empty or invalid
+     */
+    public static String normalize(String domain) {
+        if (domain == null || domain.isEmpty()) {
+            throw new IllegalArgumentException("Domain cannot be null or empty");
+        }
+
+        if (isCanonicalAscii(domain)) {
+            return withPrefix(domain);
+        }
+
+        String cached = CACHE.get(domain);
+        if (cached != null) {
+            return cached;
+        }
+
+        String name = domain;
+        while (name.endsWith(".")) {
+            name = name.substring(0, name.length() - 1);
+        }
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("Domain cannot be null or empty");
+        }
+
+        try {
+            name = IDN.toASCII(name).toLowerCase(Locale.ROOT);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid domain: " + domain, e);
+        }
+        if (!isCanonicalAscii(name)) {
+            throw new IllegalArgumentException("Invalid domain: " + domain);
+        }
+
+        String normalized = withPrefix(name);
+        if (CACHE.size() >= MAX_CACHE_SIZE) {
+            CACHE.clear();
+        }
+        CACHE.put(domain, normalized);
+        return normalized;
+    }
+
+    private static String withPrefix(String name) {
+        // concat avoids bootstrapping indy string concatenation, which is slow on first use
+        String normalized = name.startsWith(PREFIX) ? name : PREFIX.concat(name);
+        if (normalized.length() > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("Domain is too long: " + name);
+        }
+        return normalized;
+    }
+
+    /**
+     * Returns true if the name is already lowercase ASCII with valid label
+     * lengths and no trailing dot, so no further normalization is needed.
+     */
+    private static boolean isCanonicalAscii(String name) {
+        int labelLength = 0;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '.') {
+                if (labelLength == 0) {
+                    return false;
+                }
+                labelLength = 0;
+            } else if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_') {
+                if (++labelLength > MAX_LABEL_LENGTH) {
+                    return false;
+                }
+            } else {
+                return false;
+            }
+        }
+        return labelLength > 0;
+    }
+}
@@ -0,0 +1,203 @@
+package me.folf.podns4j;
+
+import me.folf.podns4j.model.PronounResult;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * A lookup result that keeps the raw TXT records and parses them only when the
+ * full result is first needed.
+ *
+ * <p>
+ * {@link #hasRecords()} and {@link #prefersName()} scan the raw records
+ * without parsing them, which is enough for callers that only filter domains.
+ * {@link #result()} parses and validates the records on first call and caches
+ * the outcome, including a parse failure. The quick checks do not validate, so
+ * a result that has records may still fail to parse.
+ * </p>
+ *
+ * <p>
+ * Example usage:
+ * </p>
+ *
+ * <pre>
+ * LazyPronounResult lazy = podns.lookupLazy("example.com");
+ * if (lazy.hasRecords() &amp;&amp; !lazy.prefersName()) {
+ *     PronounSet preferred = lazy.result().preferred();
+ * }
+ * </pre>
+ */
+public final class LazyPronounResult {
+    private static final LazyPronounResult EMPTY = parsed(null);
+
+    private final List<String> records;
+    private final PronounAliases aliases;
+    private final Consumer<PronounResult> onParsed;
+    private volatile boolean parsed;
+    private PronounResult result;
+    private PronounParseException failure;
+
+    private LazyPronounResult(List<String> records, PronounAliases aliases, Consumer<PronounResult> onParsed) {
+        this.records = records;
+        this.aliases = aliases;
+        this.onParsed = onParsed;
+    }
+
+    /**
+     * Creates a result from raw TXT records, expanding the default aliases
+     * when parsed.
+     *
+     * @param records the raw TXT records
+     * @return the lazy result
+     */
+    public static LazyPronounResult of(List<String> records) {
+        return of(records, PronounAliases.defaults());
+    }
+
+    /**
+     * Creates a result from raw TXT records.
+     *
+     * @param records the raw TXT records
+     * @param aliases the aliases to expand when parsed
+     * @return the lazy result
+     */
+    public static LazyPronounResult of(List<String> records, PronounAliases aliases) {
+        return of(records, aliases, null);
+    }
+
+    /**
+     * Creates a result from raw TXT records that passes the parsed result to a
+     * callback once, on the first successful parse.
+     */
+    static LazyPronounResult of(List<String> records, PronounAliases aliases, Consumer<PronounResult> onParsed) {
+        Objects.requireNonNull(records, "records cannot be null");
+        Objects.requireNonNull(aliases, "aliases cannot be null");
+        if (records.isEmpty()) {
+            return EMPTY;
+        }
+        return new LazyPronounResult(List.copyOf(records), aliases, onParsed);
+    }
+
+    /**
+     * Wraps an already parsed result.
+     *
+     * @param result the result, or null if the domain has no records
+     * @return the lazy result
+     */
+    public static LazyPronounResult parsed(PronounResult result) {
+        LazyPronounResult lazy = new LazyPronounResult(null, null, null);
+        lazy.result = result;
+        lazy.parsed = true;
+        return lazy;
+    }
+
+    static LazyPronounResult failed(PronounParseException failure) {
+        LazyPronounResult lazy = new LazyPronounResult(null, null, null);
+        lazy.failure = failure;
+        lazy.parsed = true;
+        return lazy;
+    }
+
+    /**
+     * Returns true if there are any records other than comments, without
+     * parsing them.
+     *
+     * @return true if {@link #result()} returns a result or fails
+     */
+    public boolean hasRecords() {
+        if (records == null) {
+            return result != null || failure != null;
+        }
+        for (int i = 0; i < records.size(); i++) {
+            if (!isCommentOnly(records.get(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the only record is a none record ({@code !}), without
+     * parsing the records.
+     *
+     * @return true if the person prefers to be referred to by name
+     */
+    public boolean prefersName() {
+        if (records == null) {
+            return result != null && result.prefersName();
+        }
+        if (records.size() != 1) {
+            return false;
+        }
+        String record = records.get(0);
+        int end = record.indexOf('#');
+        return "!".equals((end == -1 ? record : record.substring(0, end)).trim());
+    }
+
+    /**
+     * Returns the parsed result, parsing the records on first call.
+     *
+     * @return the pronoun result, or null if there are no records
+     * @throws PronounParseException if the records cannot be parsed
+     */
+    public PronounResult result() throws PronounParseException {
+        if (!parsed) {
+            synchronized (this) {
+                if (!parsed) {
+                    try {
+                        result = PronounResult.fromRecords(PronounRecordParser.parseAll(records, aliases));
+                    } catch (PronounParseException e) {
+                        failure = e;
+                    }
+                    parsed = true;
+                    if (failure == null && onParsed != null) {
+                        onParsed.accept(result);
+                    }
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return result;
+    }
+
+    /**
+     * Returns true if the records have been parsed.
+     *
+     * @return true if {@link #result()} has been called, or the result was
+     *         created already parsed
+     */
+    public boolean isParsed() {
+        return parsed;
+    }
+
+    private static boolean isCommentOnly(String record) {
+        int hash = record.indexOf('#');
+        if (hash == -1) {
+            return false;
+        }
+        return isBlank(record, 0, hash) && !isBlank(record, hash + 1, record.length());
+    }
+
+    // Matches String.trim(), which the parser uses
+    private static boolean isBlank(String value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        if (!parsed) {
+            return "LazyPronounResult{records=" + records + "}";
+        }
+        return failure != null ? "LazyPronounResult{failure=" + failure.getMessage() + "}"
+                : "LazyPronounResult{" + result + "}";
+    }
+}
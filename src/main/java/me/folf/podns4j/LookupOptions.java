@@ -0,0 +1,107 @@
+package me.folf.podns4j;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Per-call settings for {@link PoDNS4J#lookup(String, LookupOptions)}.
+ *
+ * <p>
+ * Example usage:
+ * </p>
+ *
+ * <pre>
+ * // Never block on DNS, but accept answers up to an hour past their TTL
+ * LookupOutcome outcome = podns.lookup("example.com",
+ *         LookupOptions.cacheOnly().withMaxStale(Duration.ofHours(1)));
+ *
+ * // Bypass the cache and give up after 500 ms, retries included
+ * LookupOutcome fresh = podns.lookup("example.com",
+ *         LookupOptions.networkOnly().withTimeout(Duration.ofMillis(500)));
+ * </pre>
+ *
+ * @param policy   how the cache is used
+ * @param maxStale how long past its expiry a cached entry may still be
+ *                 served; zero serves only fresh entries
+ * @param timeout  the time allowed for the whole lookup, including every DNS
+ *                 retry, or null for the resolver's own limits
+ */
+public record LookupOptions(CachePolicy policy, Duration maxStale, Duration timeout) {
+    private static final LookupOptions DEFAULTS = new LookupOptions(CachePolicy.CACHE_FIRST, Duration.ZERO, null);
+
+    /**
+     * Validates the parameters.
+     *
+     * @param policy   the cache policy
+     * @param maxStale the staleness tolerance
+     * @param timeout  the timeout
+     */
+    public LookupOptions {
+        Objects.requireNonNull(policy, "policy cannot be null");
+        Objects.requireNonNull(maxStale, "maxStale cannot be null");
+        if (maxStale.isNegative()) {
+            throw new IllegalArgumentException("Maximum staleness cannot be negative");
+        }
+        if (timeout != null && (timeout.isNegative() || timeout.isZero())) {
+            throw new IllegalArgumentException("Timeout must be positive");
+        }
+    }
+
+    /**
+     * Returns options that behave like {@link PoDNS4J#lookup(String)}.
+     *
+     * @return the default options
+     */
+    public static LookupOptions defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Returns options that answer only from the cache.
+     *
+     * @return the options
+     */
+    public static LookupOptions cacheOnly() {
+        return DEFAULTS.withPolicy(CachePolicy.CACHE_ONLY);
+    }
+
+    /**
+     * Returns options that always query DNS.
+     *
+     * @return the options
+     */
+    public static LookupOptions networkOnly() {
+        return DEFAULTS.withPolicy(CachePolicy.NETWORK_ONLY);
+    }
+
+    /**
+     * Returns a copy of these options with another cache policy.
+     *
+     * @param policy the cache policy
+     * @return the new options
+     */
+    public LookupOptions withPolicy(CachePolicy policy) {
+        return new LookupOptions(policy, maxStale, timeout);
+    }
+
+    /**
+     * Returns a copy of these options that serves cached entries up to the
+     * given time past their expiry.
+     *
+     * @param maxStale the staleness tolerance
+     * @return the new options
+     */
+    public LookupOptions withMaxStale(Duration maxStale) {
+        return new LookupOptions(policy, maxStale, timeout);
+    }
+
+    /**
+     * Returns a copy of these options with a deadline for the whole lookup.
+     *
+     * @param timeout the timeout, or null for the resolver's own limits
+     * @return the new options
+     */
+    public LookupOptions withTimeout(Duration timeout) {
+        return new LookupOptions(policy, maxStale, timeout);
+    }
+}
@@ -0,0 +1,62 @@
+package me.folf.podns4j;
+
+import me.folf.podns4j.cache.CacheEntry;
+import me.folf.podns4j.model.PronounResult;
+
+import java.util.Objects;
+
+/**
+ * The answer to a {@link PoDNS4J#lookup(String, LookupOptions)} call, with
+ * where it came from and how old it is.
+ *
+ * @param entry     the answer, or null if there is none (see
+ *                  {@link AnswerSource#NONE})
+ * @param source    where the answer came from
+ * @param ageMillis the time since the records were fetched, in milliseconds,
+ *                  or -1 if there is no answer
+ */
+public record LookupOutcome(CacheEntry entry, AnswerSource source, long ageMillis) {
+    /**
+     * Validates the parameters.
+     *
+     * @param entry     the answer
+     * @param source    the source
+     * @param ageMillis the age
+     */
+    public LookupOutcome {
+        Objects.requireNonNull(source, "source cannot be null");
+        if ((entry == null) != (source == AnswerSource.NONE)) {
+            throw new IllegalArgumentException("Only outcomes without an answer have no entry");
+        }
+    }
+
+    /**
+     * Returns true if the lookup produced an answer. A domain without records
+     * is an answer; a domain missing from the cache of a cache-only lookup is
+     * not.
+     *
+     * @return true if answered
+     */
+    public boolean hasAnswer() {
+        return entry != null;
+    }
+
+    /**
+     * Returns the pronoun result.
+     *
+     * @return the result, or null if the domain has no records or there is no
+     *         answer
+     */
+    public PronounResult result() {
+        return entry != null ? entry.result() : null;
+    }
+
+    /**
+     * Returns true if the answer is a cache entry served past its expiry.
+     *
+     * @return true if stale
+     */
+    public boolean isStale() {
+        return source == AnswerSource.STALE_CACHE;
+    }
+}
@@ -1,8 +1,18 @@
 package me.folf.podns4j;
 
+import me.folf.podns4j.cache.CacheEntry;
+import me.folf.podns4j.cache.NegativeDomainFilter;
+import me.folf.podns4j.cache.PronounCache;
+import me.folf.podns4j.dns.TxtAnswer;
 import me.folf.podns4j.model.*;
+import me.folf.podns4j.override.PronounOverrides;
+import javax.naming.NameNotFoundException;
 import javax.naming.NamingException;
+import javax.naming.TimeLimitExceededException;
+import java.time.Duration;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Main API for the PoDNS4J library - Pronouns over DNS for Java.
@@ -19,6 +29,11 @@ import java.util.List;
  */
 public class PoDNS4J {
     private final PronounDnsResolver resolver;
+    private final PronounCache cache;
+    private final NegativeDomainFilter negativeFilter;
+    private final PronounAliases aliases;
+    private final PronounOverrides overrides;
+    private final boolean legacyResolver;
 
     /**
      * Creates a new PoDNS4J instance.
@@ -33,23 +48,360 @@ public class PoDNS4J {
      * @param resolver the resolver to use
      */
     public PoDNS4J(PronounDnsResolver resolver) {
-        this.resolver = resolver;
+        this(resolver, null, null);
+    }
+
+    /**
+     * Creates a new PoDNS4J instance that skips domains recorded in a negative
+     * filter. Domains found to have no pronoun records are added to the filter.
+     *
+     * @param resolver       the resolver to use
+     * @param negativeFilter the filter of domains known to have no records, or
+     *                       null to always query
+     */
+    public PoDNS4J(PronounDnsResolver resolver, NegativeDomainFilter negativeFilter) {
+        this(resolver, null, negativeFilter);
+    }
+
+    /**
+     * Creates a new PoDNS4J instance that caches lookup results.
+     *
+     * @param resolver       the resolver to use
+     * @param cache          the cache of lookup results, or null to disable
+     *                       caching
+     * @param negativeFilter the filter of domains known to have no records, or
+     *                       null to always query
+     */
+    public PoDNS4J(PronounDnsResolver resolver, PronounCache cache, NegativeDomainFilter negativeFilter) {
+        this(resolver, cache, negativeFilter, PronounAliases.defaults());
+    }
+
+    /**
+     * Creates a new PoDNS4J instance that expands custom aliases when parsing
+     * looked-up records.
+     *
+     * @param resolver       the resolver to use
+     * @param cache          the cache of lookup results, or null to disable
+     *                       caching
+     * @param negativeFilter the filter of domains known to have no records, or
+     *                       null to always query
+     * @param aliases        the aliases to expand
+     */
+    public PoDNS4J(PronounDnsResolver resolver, PronounCache cache, NegativeDomainFilter negativeFilter,
+            PronounAliases aliases) {
+        this(resolver, cache, negativeFilter, aliases, null);
+    }
+
+    /**
+     * Creates a new PoDNS4J instance that serves pinned answers for overridden
+     * domains without consulting the cache or DNS.
+     *
+     * @param resolver       the resolver to use
+     * @param cache          the cache of lookup results, or null to disable
+     *                       caching
+     * @param negativeFilter the filter of domains known to have no records, or
+     *                       null to always query
+     * @param aliases        the aliases to expand
+     * @param overrides      the overridden domains, or null for none
+     */
+    public PoDNS4J(PronounDnsResolver resolver, PronounCache cache, NegativeDomainFilter negativeFilter,
+            PronounAliases aliases, PronounOverrides overrides) {
+        this.resolver = Objects.requireNonNull(resolver, "resolver cannot be null");
+        this.cache = cache;
+        this.negativeFilter = negativeFilter;
+        this.aliases = Objects.requireNonNull(aliases, "aliases cannot be null");
+        this.overrides = overrides;
+        this.legacyResolver = resolver.overridesResolve();
     }
 
     /**
      * Looks up pronouns for the given domain.
      *
+     * <p>
+     * Overridden domains are answered from their overrides. Other results are
+     * served from the cache while fresh. If a negative filter is
+     * configured and the domain may be in it, null is returned without querying
+     * DNS.
+     * </p>
+     *
      * @param domain the domain to look up (e.g., "example.com")
      * @return the pronoun result, or null if no records were found
      * @throws PronounParseException if the records cannot be parsed
      * @throws NamingException       if the DNS query fails
      */
     public PronounResult lookup(String domain) throws PronounParseException, NamingException {
-        List<PronounRecord> records = resolver.resolve(domain);
-        if (records.isEmpty()) {
+        return lookupEntry(domain).result();
+    }
+
+    /**
+     * Looks up pronouns for the given domain, along with when the records were
+     * fetched and when they expire.
+     *
+     * <p>
+     * When an expired entry is re-resolved and the records are unchanged, the
+     * cached result instance is returned again with a new expiry rather than
+     * parsed anew, so callers can detect changes by identity.
+     * </p>
+     *
+     * @param domain the domain to look up (e.g., "example.com")
+     * @return the lookup entry; its result is null if no records were found
+     * @throws PronounParseException if the records cannot be parsed
+     * @throws NamingException       if the DNS query fails
+     */
+    public CacheEntry lookupEntry(String domain) throws PronounParseException, NamingException {
+        String name = DomainNormalizer.normalize(domain);
+        CacheEntry known = known(name);
+        if (known != null) {
+            return known;
+        }
+        return fetch(name, domain, null);
+    }
+
+    /**
+     * Looks up pronouns for the given domain with per-call options, reporting
+     * where the answer came from and its age.
+     *
+     * <p>
+     * Overrides apply under every cache policy. Under
+     * {@link CachePolicy#CACHE_ONLY}, a domain that is neither cached nor in
+     * the negative filter yields an outcome without an answer instead of a
+     * query. A timeout covers the whole call, including the wait for a shared
+     * cache tier and every DNS retry.
+     * </p>
+     *
+     * @param domain  the domain to look up (e.g., "example.com")
+     * @param options the lookup options
+     * @return the outcome
+     * @throws PronounParseException                   if the records cannot be
+     *                                                 parsed
+     * @throws javax.naming.TimeLimitExceededException if the timeout passed
+     *                                                 before DNS answered
+     * @throws NamingException                         if the DNS query fails
+     */
+    public LookupOutcome lookup(String domain, LookupOptions options) throws PronounParseException, NamingException {
+        Objects.requireNonNull(options, "options cannot be null");
+        long start = System.nanoTime();
+        String name = DomainNormalizer.normalize(domain);
+        if (overrides != null) {
+            CacheEntry pinned = overrides.entry(name);
+            if (pinned != null) {
+                return outcome(pinned, AnswerSource.OVERRIDE);
+            }
+        }
+
+        if (options.policy() != CachePolicy.NETWORK_ONLY) {
+            if (cache != null) {
+                Duration sharedTimeout = PronounCache.SHARED_TIMEOUT;
+                if (options.timeout() != null) {
+                    // Never wait on the shared tier past the caller's deadline
+                    Duration remaining = options.timeout().minusNanos(System.nanoTime() - start);
+                    if (remaining.compareTo(sharedTimeout) < 0) {
+                        sharedTimeout = remaining;
+                    }
+                }
+                CacheEntry cached = cache.get(name, sharedTimeout);
+                if (cached != null) {
+                    return outcome(cached, AnswerSource.CACHE);
+                }
+                CacheEntry stale = options.maxStale().isZero() ? null : cache.peek(name);
+                if (stale != null && now() - stale.expiresAt() <= options.maxStale().toMillis()) {
+                    return outcome(stale, AnswerSource.STALE_CACHE);
+                }
+            }
+            if (negativeFilter != null && negativeFilter.mightContain(name)) {
+                return outcome(negativeEntry(), AnswerSource.NEGATIVE_FILTER);
+            }
+            if (options.policy() == CachePolicy.CACHE_ONLY) {
+                return new LookupOutcome(null, AnswerSource.NONE, -1);
+            }
+        }
+
+        Duration remaining = null;
+        if (options.timeout() != null) {
+            // Time spent in the shared cache tier counts against the deadline
+            remaining = options.timeout().minusNanos(System.nanoTime() - start);
+            if (remaining.isNegative() || remaining.isZero()) {
+                throw new TimeLimitExceededException("Lookup deadline passed for " + domain);
+            }
+        }
+        return outcome(fetch(name, domain, remaining), AnswerSource.NETWORK);
+    }
+
+    private LookupOutcome outcome(CacheEntry entry, AnswerSource source) {
+        return new LookupOutcome(entry, source, entry.ageMillis(now()));
+    }
+
+    /**
+     * Queries and parses the records for a name and caches the result.
+     */
+    private CacheEntry fetch(String name, String domain, Duration timeout)
+            throws PronounParseException, NamingException {
+        if (legacyResolver) {
+            return store(name, resolveRecords(domain), -1, 0);
+        }
+        TxtAnswer answer = query(domain, timeout);
+        long fingerprint = answer.fingerprint();
+        // Re-resolved records are usually unchanged; reuse the expired result
+        CacheEntry refreshed = cache != null ? cache.refresh(name, fingerprint, answer.ttl()) : null;
+        if (refreshed != null) {
+            rememberEmpty(name, refreshed.result());
+            return refreshed;
+        }
+        PronounResult result = answer.records().isEmpty() ? null
+                : PronounResult.fromRecords(PronounRecordParser.parseAll(answer.records(), aliases));
+        return store(name, result, answer.ttl(), fingerprint);
+    }
+
+    private CacheEntry store(String name, PronounResult result, long ttl, long fingerprint) {
+        rememberEmpty(name, result);
+        if (cache != null) {
+            return cache.put(name, result, ttl, fingerprint);
+        }
+        long now = System.currentTimeMillis();
+        return new CacheEntry(result, now, now + Math.max(0, ttl) * 1000);
+    }
+
+    private void rememberEmpty(String name, PronounResult result) {
+        if (result == null && negativeFilter != null) {
+            negativeFilter.add(name);
+        }
+    }
+
+    /**
+     * Looks a domain up through a resolver that overrides
+     * {@link PronounDnsResolver#resolve(String)}.
+     */
+    private PronounResult resolveRecords(String domain) throws PronounParseException, NamingException {
+        List<PronounRecord> records;
+        try {
+            records = resolver.resolve(domain);
+        } catch (NameNotFoundException e) {
             return null;
         }
-        return PronounResult.fromRecords(records);
+        return records.isEmpty() ? null : PronounResult.fromRecords(records);
+    }
+
+    /**
+     * Looks up pronouns for the given domain without parsing the records until
+     * they are needed.
+     *
+     * <p>
+     * Overridden, cached and filtered domains are answered as by
+     * {@link #lookup(String)}. Otherwise the raw records are returned unparsed.
+     * An answer with no records, or with the same records as an expired cache
+     * entry, is cached right away; any other answer is cached once
+     * {@link LazyPronounResult#result()} parses it, if its TTL has not run out
+     * by then.
+     * </p>
+     *
+     * @param domain the domain to look up (e.g., "example.com")
+     * @return the lazy result
+     * @throws NamingException if the DNS query fails
+     */
+    public LazyPronounResult lookupLazy(String domain) throws NamingException {
+        String name = DomainNormalizer.normalize(domain);
+        CacheEntry known = known(name);
+        if (known != null) {
+            return LazyPronounResult.parsed(known.result());
+        }
+
+        if (legacyResolver) {
+            try {
+                return LazyPronounResult.parsed(store(name, resolveRecords(domain), -1, 0).result());
+            } catch (PronounParseException e) {
+                return LazyPronounResult.failed(e);
+            }
+        }
+        TxtAnswer answer = query(domain, null);
+        long fingerprint = answer.fingerprint();
+        CacheEntry refreshed = cache != null ? cache.refresh(name, fingerprint, answer.ttl()) : null;
+        if (refreshed != null) {
+            rememberEmpty(name, refreshed.result());
+            return LazyPronounResult.parsed(refreshed.result());
+        }
+        long fetchedAt = System.nanoTime();
+        LazyPronounResult result = LazyPronounResult.of(answer.records(), aliases, parsed -> {
+            long ttl = answer.ttl();
+            if (ttl >= 0) {
+                // The TTL counts from the query, not from the first read
+                ttl -= TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - fetchedAt);
+                if (ttl <= 0) {
+                    return;
+                }
+            }
+            store(name, parsed, ttl, fingerprint);
+        });
+        if (!result.hasRecords()) {
+            store(name, null, answer.ttl(), fingerprint);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the answer for a name that needs no query: an override, a cached
+     * entry, or a negative entry if the filter may contain the name.
+     */
+    private CacheEntry known(String name) {
+        if (overrides != null) {
+            CacheEntry pinned = overrides.entry(name);
+            if (pinned != null) {
+                return pinned;
+            }
+        }
+        if (cache != null) {
+            CacheEntry cached = cache.get(name);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        if (negativeFilter != null && negativeFilter.mightContain(name)) {
+            return negativeEntry();
+        }
+        return null;
+    }
+
+    private TxtAnswer query(String domain, Duration timeout) throws NamingException {
+        try {
+            return timeout != null ? resolver.lookupTxt(domain, timeout) : resolver.lookupTxt(domain);
+        } catch (NameNotFoundException e) {
+            return new TxtAnswer(List.of(), -1);
+        }
+    }
+
+    private CacheEntry negativeEntry() {
+        long now = now();
+        return new CacheEntry(null, now, now);
+    }
+
+    private long now() {
+        return cache != null ? cache.clock().millis() : System.currentTimeMillis();
+    }
+
+    /**
+     * Returns the cache of lookup results.
+     *
+     * @return the cache, or null if caching is disabled
+     */
+    public PronounCache cache() {
+        return cache;
+    }
+
+    /**
+     * Returns the overridden domains.
+     *
+     * @return the overrides, or null if none are configured
+     */
+    public PronounOverrides overrides() {
+        return overrides;
+    }
+
+    /**
+     * Returns the aliases expanded when parsing looked-up records.
+     *
+     * @return the aliases
+     */
+    public PronounAliases aliases() {
+        return aliases;
     }
 
     /**
@@ -75,12 +427,6 @@ public class PoDNS4J {
             return null;
         }
 
-        List<PronounRecord> parsedRecords = new java.util.ArrayList<>();
-        for (String record : records) {
-            parsedRecords.add(PronounRecordParser.parse(record));
-        }
-
-        PronounRecordParser.validateRecords(parsedRecords);
-        return PronounResult.fromRecords(parsedRecords);
+        return PronounResult.fromRecords(PronounRecordParser.parseAll(records));
     }
 }
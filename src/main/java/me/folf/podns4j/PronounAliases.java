@@ -0,0 +1,290 @@
+package me.folf.podns4j;
+
+import me.folf.podns4j.model.PronounSet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Immutable registry of pronoun shorthands and known full forms.
+ *
+ * <p>
+ * Aliases expand a shorthand at the start of a record into a longer pronoun set
+ * before parsing, e.g. {@code it/its} into {@code it/it/its/its/itself}, keeping
+ * any tags that follow. They are compiled into a prefix trie, so matching costs
+ * one step per character of the record however many aliases are registered.
+ * When several aliases match, the longest wins. An alias only matches a whole
+ * pronoun part, so {@code it/its} does not match {@code it/itself}.
+ * </p>
+ *
+ * <p>
+ * Full forms give all five forms of common sets, keyed by subject and object,
+ * so that records giving only some forms can be completed with
+ * {@link #complete(PronounSet)}. They are also used by
+ * {@link me.folf.podns4j.template.PronounTemplate} to fill in missing forms.
+ * </p>
+ *
+ * <p>
+ * Example usage:
+ * </p>
+ *
+ * <pre>
+ * PronounAliases aliases = PronounAliases.defaults().extend(
+ *         Map.of("xe/xyr", "xe/xem/xyr/xyrs/xemself"), List.of());
+ * PoDNS4J podns = new PoDNS4J(new PronounDnsResolver(), null, null, aliases);
+ * </pre>
+ */
+public final class PronounAliases {
+    private static final PronounAliases DEFAULTS = compile(
+            Map.of("it/its", "it/it/its/its/itself"),
+            List.of(
+                    fullForm("he", "him", "his", "his", "himself"),
+                    fullForm("she", "her", "her", "hers", "herself"),
+                    fullForm("they", "them", "their", "theirs", "themself"),
+                    fullForm("it", "it", "its", "its", "itself"),
+                    fullForm("xe", "xem", "xyr", "xyrs", "xemself"),
+                    fullForm("ze", "hir", "hir", "hirs", "hirself"),
+                    fullForm("ey", "em", "eir", "eirs", "emself"),
+                    fullForm("fae", "faer", "faer", "faers", "faerself")));
+
+    private final Map<String, String> aliases;
+    private final Map<String, PronounSet> fullForms;
+
+    // Flattened trie: node 0 is the root, and the children of a node are
+    // stored contiguously and sorted by label
+    private final char[] labels;
+    private final int[] firstChild;
+    private final int[] childCount;
+    private final String[] expansions;
+
+    private PronounAliases(Map<String, String> aliases, Map<String, PronounSet> fullForms) {
+        this.aliases = aliases;
+        this.fullForms = fullForms;
+
+        Node root = new Node();
+        int nodes = 1;
+        for (Map.Entry<String, String> alias : aliases.entrySet()) {
+            Node node = root;
+            for (int i = 0; i < alias.getKey().length(); i++) {
+                Node child = node.children.get(alias.getKey().charAt(i));
+                if (child == null) {
+                    child = new Node();
+                    node.children.put(alias.getKey().charAt(i), child);
+                    nodes++;
+                }
+                node = child;
+            }
+            node.expansion = alias.getValue();
+        }
+
+        this.labels = new char[nodes];
+        this.firstChild = new int[nodes];
+        this.childCount = new int[nodes];
+        this.expansions = new String[nodes];
+
+        // Breadth-first, so each node's children get consecutive indices
+        List<Node> queue = new ArrayList<>(nodes);
+        queue.add(root);
+        int next = 1;
+        for (int index = 0; index < queue.size(); index++) {
+            Node node = queue.get(index);
+            expansions[index] = node.expansion;
+            firstChild[index] = next;
+            childCount[index] = node.children.size();
+            for (Map.Entry<Character, Node> child : node.children.entrySet()) {
+                labels[next++] = child.getKey();
+                queue.add(child.getValue());
+            }
+        }
+    }
+
+    private static final class Node {
+        private final TreeMap<Character, Node> children = new TreeMap<>();
+        private String expansion;
+    }
+
+    /**
+     * Returns the built-in registry: the {@code it/its} shorthand and the full
+     * forms of he, she, they, it, xe, ze, ey and fae.
+     *
+     * @return the default registry
+     */
+    public static PronounAliases defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Compiles a registry.
+     *
+     * @param aliases   shorthands mapped to their expansions, e.g.
+     *                  {@code "it/its"} to {@code "it/it/its/its/itself"}
+     * @param fullForms complete pronoun sets, looked up by subject and object
+     * @return the registry
+     * @throws IllegalArgumentException if an alias or full form is invalid
+     */
+    public static PronounAliases compile(Map<String, String> aliases, List<PronounSet> fullForms) {
+        Objects.requireNonNull(aliases, "aliases cannot be null");
+        Objects.requireNonNull(fullForms, "fullForms cannot be null");
+
+        Map<String, String> aliasCopy = new LinkedHashMap<>();
+        for (Map.Entry<String, String> alias : aliases.entrySet()) {
+            validate(alias.getKey(), "Alias");
+            validate(alias.getValue(), "Alias expansion");
+            aliasCopy.put(alias.getKey(), alias.getValue());
+        }
+
+        Map<String, PronounSet> formCopy = new LinkedHashMap<>();
+        for (PronounSet set : fullForms) {
+            if (set.possessiveDeterminer() == null || set.possessivePronoun() == null || set.reflexive() == null) {
+                throw new IllegalArgumentException("Full form must have all five forms: " + set);
+            }
+            formCopy.put(key(set.subject(), set.object()), set);
+        }
+        return new PronounAliases(Map.copyOf(aliasCopy), Map.copyOf(formCopy));
+    }
+
+    /**
+     * Returns a registry with this registry's entries plus the given ones,
+     * which take precedence.
+     *
+     * @param aliases   additional shorthands
+     * @param fullForms additional full forms
+     * @return the combined registry
+     * @throws IllegalArgumentException if an alias or full form is invalid
+     */
+    public PronounAliases extend(Map<String, String> aliases, List<PronounSet> fullForms) {
+        Map<String, String> combinedAliases = new HashMap<>(this.aliases);
+        combinedAliases.putAll(aliases);
+        Map<String, PronounSet> combinedForms = new LinkedHashMap<>(this.fullForms);
+        for (PronounSet set : fullForms) {
+            combinedForms.put(key(set.subject(), set.object()), set);
+        }
+        return compile(combinedAliases, new ArrayList<>(combinedForms.values()));
+    }
+
+    private static void validate(String value, String what) {
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException(what + " cannot be empty");
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '/' && (c < 'a' || c > 'z')) {
+                throw new IllegalArgumentException(what + " must be lowercase letters and slashes: " + value);
+            }
+        }
+    }
+
+    private static PronounSet fullForm(String subject, String object, String determiner, String pronoun,
+            String reflexive) {
+        return new PronounSet(subject, object, determiner, pronoun, reflexive, null);
+    }
+
+    private static String key(String subject, String object) {
+        return subject.concat("/").concat(object);
+    }
+
+    /**
+     * Expands an alias at the start of a lowercase record.
+     *
+     * @param record the record, lowercase and trimmed
+     * @return the record with its alias expanded, or the record itself if no
+     *         alias matches
+     */
+    public String expand(String record) {
+        int node = 0;
+        String match = null;
+        int matchLength = 0;
+        for (int i = 0; i < record.length(); i++) {
+            node = child(node, record.charAt(i));
+            if (node == -1) {
+                break;
+            }
+            if (expansions[node] != null && isBoundary(record, i + 1)) {
+                match = expansions[node];
+                matchLength = i + 1;
+            }
+        }
+        return match == null ? record : match.concat(record.substring(matchLength));
+    }
+
+    private int child(int node, char c) {
+        int low = firstChild[node];
+        int high = low + childCount[node] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (labels[mid] < c) {
+                low = mid + 1;
+            } else if (labels[mid] > c) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isBoundary(String record, int index) {
+        if (index == record.length()) {
+            return true;
+        }
+        char c = record.charAt(index);
+        return c == ';' || c == ' ' || c == '\t';
+    }
+
+    /**
+     * Returns the known full form of a set.
+     *
+     * @param subject the subject form
+     * @param object  the object form
+     * @return the full form, or null if none is registered
+     */
+    public PronounSet fullForm(String subject, String object) {
+        return fullForms.get(key(subject, object));
+    }
+
+    /**
+     * Fills in the missing forms of a set from its known full form, keeping
+     * the forms and tags it has.
+     *
+     * @param set the set
+     * @return the completed set, or the set itself if it is complete or has no
+     *         known full form
+     */
+    public PronounSet complete(PronounSet set) {
+        if (set.possessiveDeterminer() != null && set.possessivePronoun() != null && set.reflexive() != null) {
+            return set;
+        }
+        PronounSet full = fullForm(set.subject(), set.object());
+        if (full == null) {
+            return set;
+        }
+        return new PronounSet(set.subject(), set.object(),
+                set.possessiveDeterminer() != null ? set.possessiveDeterminer() : full.possessiveDeterminer(),
+                set.possessivePronoun() != null ? set.possessivePronoun() : full.possessivePronoun(),
+                set.reflexive() != null ? set.reflexive() : full.reflexive(),
+                set.tags());
+    }
+
+    /**
+     * Returns the registered aliases.
+     *
+     * @return the aliases, mapped to their expansions
+     */
+    public Map<String, String> aliases() {
+        return aliases;
+    }
+
+    /**
+     * Returns the registered full forms.
+     *
+     * @return the full forms
+     */
+    public List<PronounSet> fullForms() {
+        return List.copyOf(fullForms.values());
+    }
+}
@@ -1,81 +1,210 @@
 package me.folf.podns4j;
 
+import me.folf.podns4j.dns.DnsTxtClient;
+import me.folf.podns4j.dns.DnsWire;
+import me.folf.podns4j.dns.TxtAnswer;
+import me.folf.podns4j.jfr.DnsQueryEvent;
 import me.folf.podns4j.model.PronounRecord;
 
 import javax.naming.Context;
+import javax.naming.NameNotFoundException;
 import javax.naming.NamingException;
 import javax.naming.directory.Attribute;
 import javax.naming.directory.Attributes;
 import javax.naming.directory.DirContext;
 import javax.naming.directory.InitialDirContext;
+import java.time.Duration;
 import java.util.*;
 
 /**
  * Resolver for fetching pronoun records from DNS.
+ *
+ * <p>
+ * By default queries go to the system's nameservers through a
+ * {@link DnsTxtClient}, which uses EDNS0 to avoid a truncation round trip for
+ * large record sets and needs no reflection, keeping startup fast (including
+ * in native images). Where the nameservers cannot be read from
+ * {@code /etc/resolv.conf}, queries go through the JNDI DNS provider instead.
+ * A client for specific nameservers can also be supplied.
+ * </p>
  */
 public class PronounDnsResolver {
+    private final DnsTxtClient client;
+
+    /**
+     * Creates a resolver that uses the system's nameservers, falling back to
+     * the JNDI DNS provider if they cannot be determined.
+     */
+    public PronounDnsResolver() {
+        this.client = DnsTxtClient.system();
+    }
+
+    /**
+     * Creates a resolver that uses the given DNS client.
+     *
+     * @param client the client to query with
+     */
+    public PronounDnsResolver(DnsTxtClient client) {
+        this.client = Objects.requireNonNull(client, "client cannot be null");
+    }
+
     /**
      * Queries DNS for pronoun records for the given domain.
      *
-     * @param domain the domain to query (e.g., "example.com")
+     * <p>
+     * If a subclass overrides this method, {@link PoDNS4J} and
+     * {@link me.folf.podns4j.watch.PronounWatcher} look domains up through it
+     * instead of {@link #lookupTxt(String)}, so resolvers written against
+     * earlier versions keep working. Such lookups have no TTL, do not expand
+     * custom aliases, ignore lookup timeouts and are parsed on every refresh;
+     * new subclasses should override {@link #lookupTxt(String)} instead.
+     * </p>
+     *
+     * @param domain the domain to query (e.g., "example.com"), normalized with
+     *               {@link DomainNormalizer}
      * @return a list of parsed pronoun records
-     * @throws PronounParseException if any record cannot be parsed
-     * @throws NamingException       if the DNS query fails
+     * @throws PronounParseException    if any record cannot be parsed
+     * @throws NamingException          if the DNS query fails
+     * @throws IllegalArgumentException if the domain is invalid
      */
     public List<PronounRecord> resolve(String domain) throws PronounParseException, NamingException {
-        if (domain == null || domain.isEmpty()) {
-            throw new IllegalArgumentException("Domain cannot be null or empty");
-        }
+        return PronounRecordParser.parseAll(lookupTxt(domain).records());
+    }
 
-        String pronounsDomain = domain.startsWith("pronouns.") ? domain : "pronouns." + domain;
-        List<String> txtRecords = queryTxtRecords(pronounsDomain);
+    /**
+     * Queries DNS for pronoun records for the given domain, deferring parsing
+     * until the result is read.
+     *
+     * @param domain the domain to query (e.g., "example.com"), normalized with
+     *               {@link DomainNormalizer}
+     * @return the unparsed result
+     * @throws NamingException          if the DNS query fails
+     * @throws IllegalArgumentException if the domain is invalid
+     */
+    public LazyPronounResult resolveLazy(String domain) throws NamingException {
+        return LazyPronounResult.of(lookupTxt(domain).records());
+    }
 
-        List<PronounRecord> records = new ArrayList<>();
-        for (String txtRecord : txtRecords) {
-            PronounRecord record = PronounRecordParser.parse(txtRecord);
-            records.add(record);
+    /**
+     * Returns true if a subclass overrides {@link #resolve(String)}, so that
+     * lookups must go through it. Subclasses whose methods cannot be
+     * inspected, as in a native image without reflection metadata, are
+     * assumed to override it, since going through it is always correct.
+     *
+     * @return true if {@link #resolve(String)} is overridden
+     */
+    public final boolean overridesResolve() {
+        if (getClass() == PronounDnsResolver.class) {
+            return false;
+        }
+        try {
+            return getClass().getMethod("resolve", String.class).getDeclaringClass() != PronounDnsResolver.class;
+        } catch (NoSuchMethodException e) {
+            return true;
         }
+    }
 
-        // Validate the records
-        PronounRecordParser.validateRecords(records);
+    /**
+     * Queries DNS for the raw pronoun TXT records of the given domain.
+     *
+     * @param domain the domain to query (e.g., "example.com"), normalized with
+     *               {@link DomainNormalizer}
+     * @return the TXT records and their TTL
+     * @throws NamingException          if the DNS query fails
+     * @throws IllegalArgumentException if the domain is invalid
+     */
+    public TxtAnswer lookupTxt(String domain) throws NamingException {
+        return queryTxt(DomainNormalizer.normalize(domain));
+    }
 
-        return records;
+    /**
+     * Queries DNS for the raw pronoun TXT records of the given domain, giving
+     * up once a timeout covering every retry has passed. Subclasses that
+     * override {@link #lookupTxt(String)} should override this as well.
+     *
+     * @param domain  the domain to query (e.g., "example.com"), normalized with
+     *                {@link DomainNormalizer}
+     * @param timeout the time allowed for the whole query
+     * @return the TXT records and their TTL
+     * @throws javax.naming.TimeLimitExceededException if the timeout passed
+     *                                                 first
+     * @throws NamingException                         if the DNS query fails
+     * @throws IllegalArgumentException                if the domain is invalid
+     */
+    public TxtAnswer lookupTxt(String domain, Duration timeout) throws NamingException {
+        return queryTxt(DomainNormalizer.normalize(domain), Objects.requireNonNull(timeout, "timeout cannot be null"));
     }
 
     /**
      * Queries DNS TXT records for the given hostname.
      *
+     * <p>
+     * Each returned value is the concatenation of the record's
+     * character-strings, decoded as UTF-8. The JNDI provider, used when no
+     * client is available, does not expose TTLs, so answers obtained through
+     * it have a TTL of -1.
+     * </p>
+     *
      * @param hostname the hostname to query
-     * @return a list of TXT record values
+     * @return the TXT record values and their TTL
      * @throws NamingException if the DNS query fails
      */
-    private List<String> queryTxtRecords(String hostname) throws NamingException {
+    protected TxtAnswer queryTxt(String hostname) throws NamingException {
+        return queryTxt(hostname, null);
+    }
+
+    /**
+     * Queries DNS TXT records for the given hostname within a timeout, as
+     * {@link #queryTxt(String)} does otherwise.
+     *
+     * @param hostname the hostname to query
+     * @param timeout  the time allowed for the whole query, or null for the
+     *                 default limits
+     * @return the TXT record values and their TTL
+     * @throws NamingException if the DNS query fails
+     */
+    protected TxtAnswer queryTxt(String hostname, Duration timeout) throws NamingException {
+        if (client != null) {
+            return client.query(hostname, timeout);
+        }
+
+        DnsQueryEvent event = new DnsQueryEvent();
+        event.begin();
+        int rcode = -1;
         List<String> results = new ArrayList<>();
+        try {
+            Hashtable<String, String> env = new Hashtable<>();
+            env.put(Context.INITIAL_CONTEXT_FACTORY,
+                    "com.sun.jndi.dns.DnsContextFactory");
+            if (timeout != null) {
+                // A single try, so the provider's own retries cannot overrun the timeout
+                env.put("com.sun.jndi.dns.timeout.initial", Long.toString(Math.max(1, timeout.toMillis())));
+                env.put("com.sun.jndi.dns.timeout.retries", "1");
+            }
 
-        Hashtable<String, String> env = new Hashtable<>();
-        env.put(Context.INITIAL_CONTEXT_FACTORY,
-                "com.sun.jndi.dns.DnsContextFactory");
+            DirContext context = new InitialDirContext(env);
 
-        DirContext context = new InitialDirContext(env);
+            try {
+                Attributes attributes = context.getAttributes(hostname, new String[] { "TXT" });
+                Attribute txtAttr = attributes.get("TXT");
 
-        try {
-            Attributes attributes = context.getAttributes(hostname, new String[] { "TXT" });
-            Attribute txtAttr = attributes.get("TXT");
-
-            if (txtAttr != null) {
-                for (int i = 0; i < txtAttr.size(); i++) {
-                    String value = (String) txtAttr.get(i);
-                    // Remove surrounding quotes if present
-                    if (value.startsWith("\"") && value.endsWith("\"")) {
-                        value = value.substring(1, value.length() - 1);
+                if (txtAttr != null) {
+                    for (int i = 0; i < txtAttr.size(); i++) {
+                        // JNDI joins character-strings with spaces and quotes/escapes them
+                        results.add(DnsWire.decodePresentationTxt((String) txtAttr.get(i)));
                     }
-                    results.add(value);
                 }
+                rcode = DnsWire.RCODE_NOERROR;
+            } catch (NameNotFoundException e) {
+                rcode = DnsWire.RCODE_NXDOMAIN;
+                throw e;
+            } finally {
+                context.close();
             }
         } finally {
-            context.close();
+            event.complete(hostname, "jndi", rcode, results.size(), -1);
         }
 
-        return results;
+        return new TxtAnswer(results, -1);
     }
 }
@@ -1,29 +1,35 @@
 package me.folf.podns4j;
 
+import me.folf.podns4j.jfr.PronounParseEvent;
 import me.folf.podns4j.model.*;
 import java.util.*;
-import java.util.regex.Pattern;
 
 /**
  * Parser for pronoun records according to the Pronouns over DNS specification.
  */
 public class PronounRecordParser {
-    private static final Pattern VALUE_PATTERN = Pattern.compile("^[a-z]+$");
-
-    // Conversion table for common pronoun sets
-    private static final Map<String, String> CONVERSIONS = new HashMap<>();
-    static {
-        CONVERSIONS.put("it/its", "it/it/its/its/itself");
+    /**
+     * Parses a pronoun record from a DNS TXT record string, expanding the
+     * default aliases.
+     *
+     * @param record the record string to parse
+     * @return the parsed pronoun record
+     * @throws PronounParseException if the record is invalid
+     */
+    public static PronounRecord parse(String record) throws PronounParseException {
+        return parse(record, PronounAliases.defaults());
     }
 
     /**
      * Parses a pronoun record from a DNS TXT record string.
      *
-     * @param record the record string to parse
+     * @param record  the record string to parse
+     * @param aliases the aliases to expand
      * @return the parsed pronoun record
      * @throws PronounParseException if the record is invalid
      */
-    public static PronounRecord parse(String record) throws PronounParseException {
+    public static PronounRecord parse(String record, PronounAliases aliases) throws PronounParseException {
+        Objects.requireNonNull(aliases, "aliases cannot be null");
         if (record == null) {
             throw new PronounParseException("Record cannot be null");
         }
@@ -55,14 +61,8 @@ public class PronounRecordParser {
             return new PronounRecord(RecordType.NONE, comment, record);
         }
 
-        // Apply conversions
-        for (Map.Entry<String, String> conversion : CONVERSIONS.entrySet()) {
-            if (baseRecord.startsWith(conversion.getKey())) {
-                String remainder = baseRecord.substring(conversion.getKey().length());
-                baseRecord = conversion.getValue() + remainder;
-                break;
-            }
-        }
+        // Expand shorthands such as it/its
+        baseRecord = aliases.expand(baseRecord);
 
         // Parse pronoun set
         PronounSet pronounSet = parsePronounSet(baseRecord);
@@ -104,7 +104,7 @@ public class PronounRecordParser {
             if (pronouns[i].isEmpty()) {
                 throw new PronounParseException("Pronoun component cannot be empty: " + pronounPart);
             }
-            if (!VALUE_PATTERN.matcher(pronouns[i]).matches()) {
+            if (!isValue(pronouns[i])) {
                 throw new PronounParseException(
                         "Invalid pronoun value (must be lowercase letters only): " + pronouns[i]);
             }
@@ -119,6 +119,16 @@ public class PronounRecordParser {
         return new PronounSet(subject, object, possessiveDeterminer, possessivePronoun, reflexive, tags);
     }
 
+    private static boolean isValue(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 'a' || c > 'z') {
+                return false;
+            }
+        }
+        return !value.isEmpty();
+    }
+
     private static Tag parseTag(String tagStr) throws PronounParseException {
         switch (tagStr) {
             case "preferred":
@@ -130,6 +140,49 @@ public class PronounRecordParser {
         }
     }
 
+    /**
+     * Parses and validates the pronoun records of a single domain, expanding
+     * the default aliases.
+     *
+     * @param records the record strings to parse
+     * @return the parsed records
+     * @throws PronounParseException if any record is invalid, or the records
+     *                               are invalid together
+     */
+    public static List<PronounRecord> parseAll(List<String> records) throws PronounParseException {
+        return parseAll(records, PronounAliases.defaults());
+    }
+
+    /**
+     * Parses and validates the pronoun records of a single domain.
+     *
+     * @param records the record strings to parse
+     * @param aliases the aliases to expand
+     * @return the parsed records
+     * @throws PronounParseException if any record is invalid, or the records
+     *                               are invalid together
+     */
+    public static List<PronounRecord> parseAll(List<String> records, PronounAliases aliases)
+            throws PronounParseException {
+        PronounParseEvent event = new PronounParseEvent();
+        event.begin();
+        String error = null;
+        try {
+            List<PronounRecord> parsedRecords = new ArrayList<>(records.size());
+            for (String record : records) {
+                parsedRecords.add(parse(record, aliases));
+            }
+
+            validateRecords(parsedRecords);
+            return parsedRecords;
+        } catch (PronounParseException e) {
+            error = e.getMessage();
+            throw e;
+        } finally {
+            event.complete(records.size(), error);
+        }
+    }
+
     /**
      * Validates that a list of records is valid according to the specification.
      * This checks that if a NONE record is present, it must be the only record.
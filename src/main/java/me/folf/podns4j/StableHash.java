@@ -0,0 +1,60 @@
+package me.folf.podns4j;
+
+/**
+ * 64-bit string hashes that are stable across JVMs and releases, for values
+ * that are persisted or shared between nodes.
+ *
+ * <p>
+ * {@link #fnv1a(String)} is FNV-1a over the UTF-16 code units;
+ * {@link #hash(String)} finishes it with the MurmurHash3 mixer, spreading the
+ * bits well enough to index tables and filters directly. Neither may change,
+ * since saved filters, indexes and cluster placement depend on the values.
+ * </p>
+ */
+public final class StableHash {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private StableHash() {
+    }
+
+    /**
+     * Returns the mixed hash of a string.
+     *
+     * @param value the string to hash
+     * @return the 64-bit hash
+     */
+    public static long hash(String value) {
+        return mix(fnv1a(value));
+    }
+
+    /**
+     * Returns the 64-bit FNV-1a hash of a string's UTF-16 code units.
+     *
+     * @param value the string to hash
+     * @return the unmixed 64-bit hash
+     */
+    public static long fnv1a(String value) {
+        long h = FNV_OFFSET_BASIS;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= FNV_PRIME;
+        }
+        return h;
+    }
+
+    /**
+     * Applies the MurmurHash3 64-bit finalizer.
+     *
+     * @param h the value to mix
+     * @return the mixed value
+     */
+    public static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,43 @@
+package me.folf.podns4j.cache;
+
+import me.folf.podns4j.model.PronounResult;
+
+/**
+ * The outcome of resolving a domain, with the time it was fetched and when it
+ * expires.
+ *
+ * @param result    the pronoun result, or null if the domain has no records
+ * @param fetchedAt when the records were fetched, in epoch milliseconds
+ * @param expiresAt when the records expire, in epoch milliseconds
+ */
+public record CacheEntry(PronounResult result, long fetchedAt, long expiresAt) {
+    /**
+     * Returns true if the entry has expired.
+     *
+     * @param now the current time in epoch milliseconds
+     * @return true if expired
+     */
+    public boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+
+    /**
+     * Returns the remaining lifetime of the entry.
+     *
+     * @param now the current time in epoch milliseconds
+     * @return the remaining time in seconds, or 0 if expired
+     */
+    public long remainingSeconds(long now) {
+        return Math.max(0, (expiresAt - now) / 1000);
+    }
+
+    /**
+     * Returns the age of the entry.
+     *
+     * @param now the current time in epoch milliseconds
+     * @return the age in milliseconds
+     */
+    public long ageMillis(long now) {
+        return Math.max(0, now - fetchedAt);
+    }
+}
@@ -0,0 +1,176 @@
+package me.folf.podns4j.cache;
+
+import me.folf.podns4j.model.PronounResult;
+import me.folf.podns4j.model.PronounSet;
+import me.folf.podns4j.model.Tag;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compact binary encoding of {@link CacheEntry} values, for storing them
+ * outside the JVM heap or sharing them between processes.
+ */
+public final class CacheEntryCodec {
+    private static final int VERSION = 1;
+
+    private static final int FLAG_PRESENT = 1;
+    private static final int FLAG_ACCEPTS_ANY = 2;
+    private static final int FLAG_PREFERS_NAME = 4;
+
+    private static final int PREFERRED_NONE = -1;
+    private static final int PREFERRED_INLINE = -2;
+
+    private CacheEntryCodec() {
+    }
+
+    /**
+     * Encodes an entry.
+     *
+     * @param entry the entry
+     * @return the encoded bytes
+     */
+    public static byte[] encode(CacheEntry entry) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeLong(entry.fetchedAt());
+            out.writeLong(entry.expiresAt());
+            writeResult(out, entry.result());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // In-memory streams do not throw
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes an entry.
+     *
+     * @param bytes the encoded bytes
+     * @return the entry
+     * @throws IllegalArgumentException if the bytes are not a valid entry
+     */
+    public static CacheEntry decode(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (in.readUnsignedByte() != VERSION) {
+                throw new IllegalArgumentException("Unsupported cache entry version");
+            }
+            long fetchedAt = in.readLong();
+            long expiresAt = in.readLong();
+            return new CacheEntry(readResult(in), fetchedAt, expiresAt);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Corrupt cache entry", e);
+        }
+    }
+
+    /**
+     * Writes a result, which may be null.
+     *
+     * @param out    the stream
+     * @param result the result
+     * @throws IOException if the stream fails
+     */
+    public static void writeResult(DataOutputStream out, PronounResult result) throws IOException {
+        if (result == null) {
+            out.writeByte(0);
+            return;
+        }
+        out.writeByte(FLAG_PRESENT
+                | (result.acceptsAny() ? FLAG_ACCEPTS_ANY : 0)
+                | (result.prefersName() ? FLAG_PREFERS_NAME : 0));
+
+        List<PronounSet> sets = result.allSets();
+        out.writeShort(sets.size());
+        for (PronounSet set : sets) {
+            writeSet(out, set);
+        }
+
+        PronounSet preferred = result.preferred();
+        if (preferred == null) {
+            out.writeShort(PREFERRED_NONE);
+        } else {
+            int index = sets.indexOf(preferred);
+            out.writeShort(index >= 0 ? index : PREFERRED_INLINE);
+            if (index < 0) {
+                writeSet(out, preferred);
+            }
+        }
+    }
+
+    /**
+     * Reads a result written by {@link #writeResult(DataOutputStream, PronounResult)}.
+     *
+     * @param in the stream
+     * @return the result, or null
+     * @throws IOException if the stream fails or the data is corrupt
+     */
+    public static PronounResult readResult(DataInputStream in) throws IOException {
+        int flags = in.readUnsignedByte();
+        if ((flags & FLAG_PRESENT) == 0) {
+            return null;
+        }
+
+        int count = in.readUnsignedShort();
+        List<PronounSet> sets = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            sets.add(readSet(in));
+        }
+
+        int index = in.readShort();
+        PronounSet preferred;
+        if (index == PREFERRED_NONE) {
+            preferred = null;
+        } else if (index == PREFERRED_INLINE) {
+            preferred = readSet(in);
+        } else if (index >= 0 && index < count) {
+            preferred = sets.get(index);
+        } else {
+            throw new IOException("Corrupt preferred set index: " + index);
+        }
+        return new PronounResult(preferred, sets,
+                (flags & FLAG_ACCEPTS_ANY) != 0, (flags & FLAG_PREFERS_NAME) != 0);
+    }
+
+    static void writeSet(DataOutputStream out, PronounSet set) throws IOException {
+        int tags = 0;
+        for (Tag tag : set.tags()) {
+            tags |= 1 << tag.ordinal();
+        }
+        out.writeByte(tags);
+        out.writeUTF(set.subject());
+        out.writeUTF(set.object());
+        writeNullable(out, set.possessiveDeterminer());
+        writeNullable(out, set.possessivePronoun());
+        writeNullable(out, set.reflexive());
+    }
+
+    static PronounSet readSet(DataInputStream in) throws IOException {
+        int tagBits = in.readUnsignedByte();
+        Set<Tag> tags = EnumSet.noneOf(Tag.class);
+        for (Tag tag : Tag.values()) {
+            if ((tagBits & (1 << tag.ordinal())) != 0) {
+                tags.add(tag);
+            }
+        }
+        return new PronounSet(in.readUTF(), in.readUTF(), readNullable(in), readNullable(in), readNullable(in), tags);
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,276 @@
+package me.folf.podns4j.cache;
+
+import me.folf.podns4j.StableHash;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Probabilistic set of domains known to have no pronoun records.
+ *
+ * <p>
+ * The filter is a ring of Bloom filters, one per time bucket. Domains are added
+ * to the bucket for the current time and are forgotten once their bucket falls
+ * out of the ring, so an entry lives for between {@code buckets - 1} and
+ * {@code buckets} bucket durations. Memory use is fixed at construction.
+ * </p>
+ *
+ * <p>
+ * {@link #mightContain(String)} never returns false for a live entry, but may
+ * return true for a domain that was never added with roughly the configured
+ * false positive probability. Names should be normalized (see
+ * {@link me.folf.podns4j.DomainNormalizer}) before being added or queried.
+ * </p>
+ */
+public final class NegativeDomainFilter {
+    private static final int MAGIC = 0x50444e46; // "PDNF"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 28;
+    // Far beyond the optimum for any practical false positive rate
+    private static final int MAX_HASHES = 64;
+
+    private final int bits;
+    private final int hashes;
+    private final long bucketMillis;
+    private final AtomicLongArray[] slots;
+    private final AtomicLongArray slotEpochs;
+    private final Clock clock;
+
+    /**
+     * Creates a filter using the system clock.
+     *
+     * @param expectedInsertions the expected number of domains added per bucket
+     * @param falsePositiveRate  the acceptable false positive probability
+     * @param bucketDuration     the duration covered by each bucket
+     * @param buckets            the number of buckets kept
+     */
+    public NegativeDomainFilter(int expectedInsertions, double falsePositiveRate, Duration bucketDuration,
+            int buckets) {
+        this(expectedInsertions, falsePositiveRate, bucketDuration, buckets, Clock.systemUTC());
+    }
+
+    /**
+     * Creates a filter.
+     *
+     * @param expectedInsertions the expected number of domains added per bucket
+     * @param falsePositiveRate  the acceptable false positive probability
+     * @param bucketDuration     the duration covered by each bucket
+     * @param buckets            the number of buckets kept
+     * @param clock              the clock used to age entries
+     */
+    public NegativeDomainFilter(int expectedInsertions, double falsePositiveRate, Duration bucketDuration,
+            int buckets, Clock clock) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("Expected insertions must be positive");
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+        }
+        double ln2 = Math.log(2);
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+        if (optimalBits > Integer.MAX_VALUE - 63) {
+            throw new IllegalArgumentException("Filter is too large");
+        }
+        int bits = (int) ((optimalBits + 63) & ~63L);
+        int hashes = (int) Math.max(1, Math.min(MAX_HASHES, Math.round((double) bits / expectedInsertions * ln2)));
+        this.bits = bits;
+        this.hashes = hashes;
+        this.bucketMillis = validateBucketMillis(bucketDuration);
+        this.slots = newSlots(buckets, bits);
+        this.slotEpochs = new AtomicLongArray(buckets);
+        this.clock = Objects.requireNonNull(clock, "clock cannot be null");
+    }
+
+    private NegativeDomainFilter(int bits, int hashes, long bucketMillis, int buckets, Clock clock) {
+        this.bits = bits;
+        this.hashes = hashes;
+        this.bucketMillis = bucketMillis;
+        this.slots = newSlots(buckets, bits);
+        this.slotEpochs = new AtomicLongArray(buckets);
+        this.clock = clock;
+    }
+
+    private static long validateBucketMillis(Duration bucketDuration) {
+        Objects.requireNonNull(bucketDuration, "bucketDuration cannot be null");
+        if (bucketDuration.toMillis() <= 0) {
+            throw new IllegalArgumentException("Bucket duration must be positive");
+        }
+        return bucketDuration.toMillis();
+    }
+
+    private static AtomicLongArray[] newSlots(int buckets, int bits) {
+        if (buckets <= 0) {
+            throw new IllegalArgumentException("Bucket count must be positive");
+        }
+        AtomicLongArray[] slots = new AtomicLongArray[buckets];
+        for (int i = 0; i < buckets; i++) {
+            slots[i] = new AtomicLongArray(bits / 64);
+        }
+        return slots;
+    }
+
+    /**
+     * Records that a domain has no pronoun records.
+     *
+     * @param name the normalized domain
+     */
+    public void add(String name) {
+        long epoch = currentEpoch();
+        int slot = (int) (epoch % slots.length);
+        if (slotEpochs.get(slot) != epoch) {
+            rotate(slot, epoch);
+        }
+
+        AtomicLongArray words = slots[slot];
+        long hash = StableHash.hash(name);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % bits;
+            long mask = 1L << bit;
+            int index = bit >>> 6;
+            long word;
+            while (((word = words.get(index)) & mask) == 0
+                    && !words.compareAndSet(index, word, word | mask)) {
+                // Retry until the bit is set
+            }
+        }
+    }
+
+    /**
+     * Returns true if the domain may have been recorded as having no pronoun
+     * records within the retention window.
+     *
+     * @param name the normalized domain
+     * @return false if the domain was definitely not recorded
+     */
+    public boolean mightContain(String name) {
+        long epoch = currentEpoch();
+        long hash = StableHash.hash(name);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+
+        slots: for (int slot = 0; slot < slots.length; slot++) {
+            long slotEpoch = slotEpochs.get(slot);
+            if (slotEpoch == 0 || epoch - slotEpoch >= slots.length) {
+                continue;
+            }
+            AtomicLongArray words = slots[slot];
+            for (int i = 0; i < hashes; i++) {
+                int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % bits;
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    continue slots;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized void rotate(int slot, long epoch) {
+        if (slotEpochs.get(slot) == epoch) {
+            return;
+        }
+        AtomicLongArray words = slots[slot];
+        for (int i = 0; i < words.length(); i++) {
+            words.set(i, 0);
+        }
+        slotEpochs.set(slot, epoch);
+    }
+
+    private long currentEpoch() {
+        // Epochs start at 1 so that 0 marks a slot that was never used
+        return clock.millis() / bucketMillis + 1;
+    }
+
+    /**
+     * Returns the fixed memory used by the bit arrays, in bytes.
+     *
+     * @return the size in bytes
+     */
+    public long sizeInBytes() {
+        return (long) slots.length * (bits / 8);
+    }
+
+    /**
+     * Writes the filter to a file, replacing it atomically.
+     *
+     * @param path the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void save(Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(bits);
+            out.writeInt(hashes);
+            out.writeLong(bucketMillis);
+            out.writeInt(slots.length);
+            for (int slot = 0; slot < slots.length; slot++) {
+                out.writeLong(slotEpochs.get(slot));
+                AtomicLongArray words = slots[slot];
+                for (int i = 0; i < words.length(); i++) {
+                    out.writeLong(words.get(i));
+                }
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a filter written by {@link #save(Path)}, using the system clock.
+     *
+     * @param path the file to read
+     * @return the filter
+     * @throws IOException if the file cannot be read or is not a filter
+     */
+    public static NegativeDomainFilter load(Path path) throws IOException {
+        return load(path, Clock.systemUTC());
+    }
+
+    /**
+     * Reads a filter written by {@link #save(Path)}.
+     *
+     * @param path  the file to read
+     * @param clock the clock used to age entries
+     * @return the filter
+     * @throws IOException if the file cannot be read or is not a filter
+     */
+    public static NegativeDomainFilter load(Path path, Clock clock) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a negative domain filter: " + path);
+            }
+            int bits = in.readInt();
+            int hashes = in.readInt();
+            long bucketMillis = in.readLong();
+            int buckets = in.readInt();
+            if (bits <= 0 || bits % 64 != 0 || hashes <= 0 || hashes > MAX_HASHES || bucketMillis <= 0
+                    || buckets <= 0 || Files.size(path) != HEADER_SIZE + buckets * (8 + bits / 8L)) {
+                throw new IOException("Corrupt negative domain filter: " + path);
+            }
+
+            NegativeDomainFilter filter = new NegativeDomainFilter(bits, hashes, bucketMillis, buckets,
+                    Objects.requireNonNull(clock, "clock cannot be null"));
+            for (int slot = 0; slot < buckets; slot++) {
+                filter.slotEpochs.set(slot, in.readLong());
+                AtomicLongArray words = filter.slots[slot];
+                for (int i = 0; i < words.length(); i++) {
+                    words.set(i, in.readLong());
+                }
+            }
+            return filter;
+        }
+    }
+}
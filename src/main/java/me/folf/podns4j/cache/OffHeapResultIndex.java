@@ -0,0 +1,590 @@
+package me.folf.podns4j.cache;
+
+import me.folf.podns4j.DomainNormalizer;
+import me.folf.podns4j.StableHash;
+import me.folf.podns4j.model.PronounResult;
+import me.folf.podns4j.model.PronounSet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed-capacity index of lookup results stored outside the Java heap, for
+ * holding results for millions of domains without GC overhead.
+ *
+ * <p>
+ * The index is an open-addressing hash table of 16-byte slots: a 64-bit hash
+ * of the normalized domain and a 64-bit encoded result. Results are
+ * dictionary-encoded, since most domains share one of a few pronoun sets: each
+ * distinct {@link PronounSet} and each distinct list of sets is stored once on
+ * the heap, and a slot refers to its list by id. Lookups and updates are
+ * lock-free, using atomic operations on the slot words.
+ * </p>
+ *
+ * <p>
+ * Domains are identified by hash alone, so two domains colliding on all 64 bits
+ * would share a slot. With tens of millions of domains the chance of any such
+ * collision is below one in ten thousand. Removed domains keep their slot, so
+ * the capacity bounds the number of distinct domains ever stored.
+ * </p>
+ *
+ * <p>
+ * An index opened with {@link #open(Path, long)} keeps its slots in a
+ * memory-mapped file, with the dictionaries in a sibling {@code .dict} file.
+ * The dictionaries are saved whenever a new list of sets is added, before any
+ * slot refers to it, so a reopened index decodes every slot it finds even if
+ * it was not closed. {@link #flush()} additionally forces the slots to disk.
+ * </p>
+ *
+ * <p>
+ * Example usage:
+ * </p>
+ *
+ * <pre>
+ * try (OffHeapResultIndex index = OffHeapResultIndex.open(Path.of("results.idx"), 50_000_000)) {
+ *     index.put("example.com", result);
+ *     PronounResult cached = index.get("example.com");
+ * }
+ * </pre>
+ */
+public final class OffHeapResultIndex implements AutoCloseable {
+    private static final int MAGIC = 0x50444e58; // "PDNX"
+    private static final int DICTIONARY_MAGIC = 0x50444e44; // "PDND"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4096;
+
+    private static final int SLOT_SIZE = 16;
+    private static final int SEGMENT_SHIFT = 26; // 2^26 slots, 1 GiB per segment
+    private static final double LOAD_FACTOR = 0.75;
+    private static final double MAX_FILL = 0.9;
+
+    // Result word: flags in the top byte, preferred index in the next, list id in the low 32 bits
+    private static final long LIVE = 1L << 56;
+    private static final long HAS_RESULT = 2L << 56;
+    private static final long ACCEPTS_ANY = 4L << 56;
+    private static final long PREFERS_NAME = 8L << 56;
+    private static final long PREFERRED_EXTRA = 16L << 56;
+    private static final int NO_PREFERRED = 0xff;
+    private static final int MAX_SETS = 0xfe;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class,
+            ByteOrder.LITTLE_ENDIAN);
+
+    private final ByteBuffer[] segments;
+    private final long slots;
+    private final long mask;
+    private final int segmentMask;
+    private final long maxClaimed;
+    private final FileChannel channel;
+    private final Path dictionaryPath;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong live = new AtomicLong();
+
+    private final Object dictionaryLock = new Object();
+    private final Map<PronounSet, Integer> setIds = new ConcurrentHashMap<>();
+    private final Map<List<Integer>, Integer> listIds = new ConcurrentHashMap<>();
+    private volatile PronounSet[] sets = new PronounSet[0];
+    private volatile int[][] lists = new int[0][];
+    // Last result decoded for each list id, so warm lookups neither rebuild nor box
+    private volatile Decoded[] decoded = new Decoded[0];
+
+    private record Decoded(long word, PronounResult result) {
+    }
+
+    /**
+     * Creates an in-memory index backed by direct buffers.
+     *
+     * @param expectedEntries the number of domains the index must hold
+     */
+    public OffHeapResultIndex(long expectedEntries) {
+        this(slotsFor(expectedEntries), null, null);
+    }
+
+    private OffHeapResultIndex(long slots, FileChannel channel, Path dictionaryPath) {
+        this.slots = slots;
+        this.mask = slots - 1;
+        this.maxClaimed = (long) (slots * MAX_FILL);
+        this.channel = channel;
+        this.dictionaryPath = dictionaryPath;
+
+        long segmentSlots = Math.min(slots, 1L << SEGMENT_SHIFT);
+        this.segmentMask = (int) (segmentSlots - 1);
+        this.segments = new ByteBuffer[(int) (slots / segmentSlots)];
+        if (channel == null) {
+            for (int i = 0; i < segments.length; i++) {
+                int bytes = (int) (segmentSlots * SLOT_SIZE);
+                segments[i] = ByteBuffer.allocateDirect(bytes + 8).alignedSlice(8);
+            }
+        }
+    }
+
+    /**
+     * Opens a file-backed index, creating it if the file does not exist.
+     *
+     * @param path            the slot file; the dictionaries are kept next to
+     *                        it with a {@code .dict} suffix
+     * @param expectedEntries the number of domains a new index must hold;
+     *                        ignored when the file exists
+     * @return the index
+     * @throws IOException if the files cannot be opened or are corrupt
+     */
+    public static OffHeapResultIndex open(Path path, long expectedEntries) throws IOException {
+        Path dictionaryPath = path.resolveSibling(path.getFileName() + ".dict");
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            long slots;
+            boolean created = channel.size() == 0;
+            ByteBuffer header = ByteBuffer.allocate(16);
+            if (created) {
+                slots = slotsFor(expectedEntries);
+                header.putInt(MAGIC).putInt(VERSION).putLong(slots).flip();
+                channel.write(header, 0);
+            } else {
+                channel.read(header, 0);
+                header.flip();
+                if (header.remaining() < 16 || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                    throw new IOException("Not a result index: " + path);
+                }
+                slots = header.getLong();
+                if (slots <= 0 || Long.bitCount(slots) != 1
+                        || channel.size() < HEADER_SIZE + slots * SLOT_SIZE) {
+                    throw new IOException("Corrupt result index: " + path);
+                }
+            }
+
+            OffHeapResultIndex index = new OffHeapResultIndex(slots, channel, dictionaryPath);
+            long segmentBytes = (long) (index.segmentMask + 1) * SLOT_SIZE;
+            for (int i = 0; i < index.segments.length; i++) {
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE,
+                        HEADER_SIZE + i * segmentBytes, segmentBytes);
+                index.segments[i] = segment;
+            }
+            if (!created) {
+                index.loadDictionaries();
+                index.recount();
+            }
+            return index;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static long slotsFor(long expectedEntries) {
+        if (expectedEntries <= 0) {
+            throw new IllegalArgumentException("Expected entries must be positive");
+        }
+        long needed = Math.max(16, (long) Math.ceil(expectedEntries / LOAD_FACTOR));
+        if (needed > 1L << 40) {
+            throw new IllegalArgumentException("Expected entries too large: " + expectedEntries);
+        }
+        return Long.highestOneBit(needed - 1) << 1;
+    }
+
+    /**
+     * Returns the result stored for a domain.
+     *
+     * @param domain the domain, normalized with {@link DomainNormalizer}
+     * @return the result, or null if the domain is absent or has no records
+     * @throws IllegalArgumentException if the domain is invalid
+     */
+    public PronounResult get(String domain) {
+        return decode(find(keyHash(domain)));
+    }
+
+    /**
+     * Returns whether a domain is stored, including domains stored as having
+     * no records.
+     *
+     * @param domain the domain
+     * @return true if the domain is stored
+     * @throws IllegalArgumentException if the domain is invalid
+     */
+    public boolean contains(String domain) {
+        long word = find(keyHash(domain));
+        if ((word & LIVE) == 0) {
+            return false;
+        }
+        return (word & HAS_RESULT) == 0 || decode(word) != null;
+    }
+
+    /**
+     * Stores the result for a domain, replacing any previous result.
+     *
+     * @param domain the domain
+     * @param result the result, or null to record that the domain has no
+     *               records
+     * @throws IllegalArgumentException if the domain is invalid or the result
+     *                                  has too many sets
+     * @throws IllegalStateException    if the index is full
+     * @throws UncheckedIOException     if a file-backed index cannot save a new
+     *                                  dictionary entry
+     */
+    public void put(String domain, PronounResult result) {
+        long hash = keyHash(domain);
+        long word = encode(result);
+        long slot = claim(hash);
+        if ((long) LONGS.getAndSet(segment(slot), offset(slot) + 8, word) == 0) {
+            live.incrementAndGet();
+        }
+    }
+
+    /**
+     * Removes a domain. Its slot stays reserved for the domain.
+     *
+     * @param domain the domain
+     * @return true if the domain was stored
+     * @throws IllegalArgumentException if the domain is invalid
+     */
+    public boolean remove(String domain) {
+        long hash = keyHash(domain);
+        for (long i = 0, slot = hash & mask; i < slots; i++, slot = (slot + 1) & mask) {
+            long stored = (long) LONGS.getAcquire(segment(slot), offset(slot));
+            if (stored == 0) {
+                return false;
+            }
+            if (stored == hash) {
+                if ((long) LONGS.getAndSet(segment(slot), offset(slot) + 8, 0L) == 0) {
+                    return false;
+                }
+                live.decrementAndGet();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long keyHash(String domain) {
+        long hash = StableHash.hash(DomainNormalizer.normalize(domain));
+        return hash != 0 ? hash : 1; // Zero marks an empty slot
+    }
+
+    private long find(long hash) {
+        for (long i = 0, slot = hash & mask; i < slots; i++, slot = (slot + 1) & mask) {
+            long stored = (long) LONGS.getAcquire(segment(slot), offset(slot));
+            if (stored == 0) {
+                return 0;
+            }
+            if (stored == hash) {
+                return (long) LONGS.getAcquire(segment(slot), offset(slot) + 8);
+            }
+        }
+        return 0;
+    }
+
+    private long claim(long hash) {
+        for (long i = 0, slot = hash & mask; i < slots; i++, slot = (slot + 1) & mask) {
+            ByteBuffer segment = segment(slot);
+            int offset = offset(slot);
+            long stored = (long) LONGS.getAcquire(segment, offset);
+            if (stored == hash) {
+                return slot;
+            }
+            if (stored != 0) {
+                continue;
+            }
+            if (claimed.get() >= maxClaimed) {
+                throw new IllegalStateException("Index is full (" + slots + " slots)");
+            }
+            if (LONGS.compareAndSet(segment, offset, 0L, hash)) {
+                claimed.incrementAndGet();
+                return slot;
+            }
+            if ((long) LONGS.getAcquire(segment, offset) == hash) {
+                return slot; // Claimed concurrently for the same domain
+            }
+        }
+        throw new IllegalStateException("Index is full (" + slots + " slots)");
+    }
+
+    private ByteBuffer segment(long slot) {
+        return segments[(int) (slot >>> SEGMENT_SHIFT)];
+    }
+
+    private int offset(long slot) {
+        return ((int) slot & segmentMask) * SLOT_SIZE;
+    }
+
+    private long encode(PronounResult result) {
+        if (result == null) {
+            return LIVE;
+        }
+        List<PronounSet> all = result.allSets();
+        PronounSet preferred = result.preferred();
+        int preferredIndex = preferred == null ? NO_PREFERRED : all.indexOf(preferred);
+        long word = LIVE | HAS_RESULT
+                | (result.acceptsAny() ? ACCEPTS_ANY : 0)
+                | (result.prefersName() ? PREFERS_NAME : 0);
+
+        List<Integer> ids = new ArrayList<>(all.size() + 1);
+        for (PronounSet set : all) {
+            ids.add(setId(set));
+        }
+        if (preferredIndex < 0) {
+            // Preferred set outside the list: store it last
+            word |= PREFERRED_EXTRA;
+            preferredIndex = ids.size();
+            ids.add(setId(preferred));
+        }
+        if (ids.size() > MAX_SETS) {
+            throw new IllegalArgumentException("Result has too many pronoun sets: " + ids.size());
+        }
+        return word | (long) preferredIndex << 48 | listId(ids);
+    }
+
+    private PronounResult decode(long word) {
+        if ((word & HAS_RESULT) == 0) {
+            return null;
+        }
+        int listId = (int) word;
+        Decoded[] decoded = this.decoded;
+        if (listId >= 0 && listId < decoded.length) {
+            Decoded cached = decoded[listId];
+            if (cached != null && cached.word() == word) {
+                return cached.result();
+            }
+        }
+
+        int[][] lists = this.lists;
+        PronounSet[] sets = this.sets;
+        if (listId < 0 || listId >= lists.length) {
+            return null; // Rejected when opening, so only reachable through a torn write
+        }
+        int[] ids = lists[listId];
+        int count = (word & PREFERRED_EXTRA) != 0 ? ids.length - 1 : ids.length;
+        List<PronounSet> all = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            all.add(sets[ids[i]]);
+        }
+        int preferredIndex = (int) (word >>> 48) & 0xff;
+        PronounSet preferred = preferredIndex == NO_PREFERRED ? null : sets[ids[preferredIndex]];
+        PronounResult result = new PronounResult(preferred, all, (word & ACCEPTS_ANY) != 0,
+                (word & PREFERS_NAME) != 0);
+        if (listId >= decoded.length) {
+            // Racing resizes may drop an entry, which only costs a later decode
+            decoded = Arrays.copyOf(decoded, lists.length);
+            this.decoded = decoded;
+        }
+        decoded[listId] = new Decoded(word, result);
+        return result;
+    }
+
+    private int setId(PronounSet set) {
+        Integer id = setIds.get(set);
+        if (id != null) {
+            return id;
+        }
+        synchronized (dictionaryLock) {
+            id = setIds.get(set);
+            if (id == null) {
+                PronounSet[] grown = Arrays.copyOf(sets, sets.length + 1);
+                id = sets.length;
+                grown[id] = set;
+                sets = grown;
+                setIds.put(set, id);
+            }
+            return id;
+        }
+    }
+
+    private int listId(List<Integer> ids) {
+        Integer id = listIds.get(ids);
+        if (id != null) {
+            return id;
+        }
+        synchronized (dictionaryLock) {
+            id = listIds.get(ids);
+            if (id == null) {
+                int[][] grown = Arrays.copyOf(lists, lists.length + 1);
+                id = lists.length;
+                grown[id] = ids.stream().mapToInt(Integer::intValue).toArray();
+                lists = grown;
+                if (channel != null) {
+                    // Persist the id before any slot refers to it, or a reopened
+                    // index would hand it to another list
+                    try {
+                        saveDictionaries();
+                    } catch (IOException e) {
+                        lists = Arrays.copyOf(grown, id);
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                listIds.put(List.copyOf(ids), id);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Returns the number of stored domains.
+     *
+     * @return the number of domains
+     */
+    public long size() {
+        return live.get();
+    }
+
+    /**
+     * Returns the number of slots.
+     *
+     * @return the capacity in slots
+     */
+    public long capacity() {
+        return slots;
+    }
+
+    /**
+     * Returns the size of the slot table, excluding the small on-heap
+     * dictionaries.
+     *
+     * @return the size in bytes
+     */
+    public long sizeInBytes() {
+        return slots * SLOT_SIZE;
+    }
+
+    /**
+     * Returns the number of distinct pronoun sets in the dictionary.
+     *
+     * @return the number of sets
+     */
+    public int dictionarySize() {
+        return sets.length;
+    }
+
+    /**
+     * Writes the dictionaries and forces the slots of a file-backed index to
+     * disk. Does nothing for an in-memory index.
+     *
+     * @throws IOException if the files cannot be written
+     */
+    public void flush() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        saveDictionaries();
+        for (ByteBuffer segment : segments) {
+            ((MappedByteBuffer) segment).force();
+        }
+    }
+
+    private void saveDictionaries() throws IOException {
+        PronounSet[] sets;
+        int[][] lists;
+        synchronized (dictionaryLock) {
+            sets = this.sets;
+            lists = this.lists;
+        }
+
+        Path temp = dictionaryPath.resolveSibling(dictionaryPath.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(DICTIONARY_MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(sets.length);
+            for (PronounSet set : sets) {
+                CacheEntryCodec.writeSet(out, set);
+            }
+            out.writeInt(lists.length);
+            for (int[] ids : lists) {
+                out.writeByte(ids.length);
+                for (int id : ids) {
+                    out.writeInt(id);
+                }
+            }
+        }
+        Files.move(temp, dictionaryPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the saved dictionaries. A missing file is only valid for an index
+     * that holds no results, which {@link #recount()} checks.
+     */
+    private void loadDictionaries() throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(dictionaryPath)))) {
+            if (in.readInt() != DICTIONARY_MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a result index dictionary: " + dictionaryPath);
+            }
+            PronounSet[] sets = new PronounSet[in.readInt()];
+            for (int i = 0; i < sets.length; i++) {
+                sets[i] = CacheEntryCodec.readSet(in);
+                setIds.put(sets[i], i);
+            }
+            int[][] lists = new int[in.readInt()][];
+            Map<List<Integer>, Integer> ids = new HashMap<>();
+            for (int i = 0; i < lists.length; i++) {
+                lists[i] = new int[in.readUnsignedByte()];
+                List<Integer> key = new ArrayList<>(lists[i].length);
+                for (int j = 0; j < lists[i].length; j++) {
+                    lists[i][j] = in.readInt();
+                    if (lists[i][j] < 0 || lists[i][j] >= sets.length) {
+                        throw new IOException("Corrupt result index dictionary: " + dictionaryPath);
+                    }
+                    key.add(lists[i][j]);
+                }
+                ids.put(List.copyOf(key), i);
+            }
+            listIds.putAll(ids);
+            this.sets = sets;
+            this.lists = lists;
+        } catch (NoSuchFileException e) {
+            // Never saved: valid only if no slot refers to a list
+        }
+    }
+
+    private void recount() throws IOException {
+        int lists = this.lists.length;
+        for (long slot = 0; slot < slots; slot++) {
+            if ((long) LONGS.get(segment(slot), offset(slot)) != 0) {
+                claimed.incrementAndGet();
+                long word = (long) LONGS.get(segment(slot), offset(slot) + 8);
+                if (word != 0) {
+                    live.incrementAndGet();
+                }
+                if ((word & HAS_RESULT) != 0 && (int) word >= lists) {
+                    throw new IOException("Result index refers to sets missing from " + dictionaryPath);
+                }
+            }
+        }
+    }
+
+    /**
+     * Flushes a file-backed index and closes its file. Direct buffers of an
+     * in-memory index are freed once the index is garbage collected.
+     *
+     * @throws IOException if flushing fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
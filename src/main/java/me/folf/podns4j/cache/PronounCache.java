@@ -0,0 +1,404 @@
+package me.folf.podns4j.cache;
+
+import me.folf.podns4j.jfr.CacheEvent;
+import me.folf.podns4j.model.PronounResult;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded in-memory cache of lookup results keyed by normalized domain.
+ *
+ * <p>
+ * Entries live for their record TTL, clamped to a minimum and maximum, or for
+ * a default TTL when the TTL is unknown. Domains without records are cached
+ * for the negative TTL. When the cache is full, expired entries are purged
+ * first and then arbitrary entries are evicted.
+ * </p>
+ *
+ * <p>
+ * A {@link SharedCacheStore} can be attached as a second tier shared with
+ * other processes. Local misses are looked up in the shared store (waiting at
+ * most {@link #SHARED_TIMEOUT}), new entries are written to it in the
+ * background, and local copies are dropped when another process refreshes
+ * them, so the next lookup reads the fresh shared entry.
+ * </p>
+ *
+ * <p>
+ * Entries may carry a fingerprint of the raw records they were parsed from.
+ * When a re-resolved domain returns the same records, {@link #refresh} extends
+ * the existing entry and keeps its result instance, so nothing is parsed
+ * again.
+ * </p>
+ */
+public final class PronounCache {
+    /**
+     * Default maximum number of entries.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 100_000;
+
+    /**
+     * Maximum time to wait for the shared store before treating a lookup as a
+     * miss.
+     */
+    public static final Duration SHARED_TIMEOUT = Duration.ofMillis(250);
+
+    private final Map<String, Slot> entries = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final long minTtlMillis;
+    private final long maxTtlMillis;
+    private final long defaultTtlMillis;
+    private final long negativeTtlMillis;
+    private final Clock clock;
+    private final SharedCacheStore sharedStore;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder sharedHits = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+
+    // A cached entry and the fingerprint of its records, or 0 if unknown
+    private record Slot(CacheEntry entry, long fingerprint) {
+    }
+
+    /**
+     * Creates a cache with default limits: 100,000 entries, TTLs clamped to
+     * between 30 seconds and 1 day, 5 minutes for unknown TTLs and 5 minutes
+     * for domains without records.
+     */
+    public PronounCache() {
+        this(DEFAULT_MAX_ENTRIES, Duration.ofSeconds(30), Duration.ofDays(1), Duration.ofMinutes(5),
+                Duration.ofMinutes(5), Clock.systemUTC());
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxEntries  the maximum number of entries
+     * @param minTtl      the minimum lifetime of an entry
+     * @param maxTtl      the maximum lifetime of an entry
+     * @param defaultTtl  the lifetime of entries whose TTL is unknown
+     * @param negativeTtl the lifetime of entries for domains without records
+     * @param clock       the clock used to expire entries
+     */
+    public PronounCache(int maxEntries, Duration minTtl, Duration maxTtl, Duration defaultTtl,
+            Duration negativeTtl, Clock clock) {
+        this(maxEntries, minTtl, maxTtl, defaultTtl, negativeTtl, clock, null);
+    }
+
+    /**
+     * Creates a cache backed by a shared second tier.
+     *
+     * @param maxEntries  the maximum number of local entries
+     * @param minTtl      the minimum lifetime of an entry
+     * @param maxTtl      the maximum lifetime of an entry
+     * @param defaultTtl  the lifetime of entries whose TTL is unknown
+     * @param negativeTtl the lifetime of entries for domains without records
+     * @param clock       the clock used to expire entries
+     * @param sharedStore the shared store, or null for a local cache only
+     */
+    public PronounCache(int maxEntries, Duration minTtl, Duration maxTtl, Duration defaultTtl,
+            Duration negativeTtl, Clock clock, SharedCacheStore sharedStore) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Maximum entries must be positive");
+        }
+        if (minTtl.isNegative() || maxTtl.compareTo(minTtl) < 0) {
+            throw new IllegalArgumentException("TTL bounds must be non-negative and ordered");
+        }
+        this.maxEntries = maxEntries;
+        this.minTtlMillis = minTtl.toMillis();
+        this.maxTtlMillis = maxTtl.toMillis();
+        this.defaultTtlMillis = defaultTtl.toMillis();
+        this.negativeTtlMillis = negativeTtl.toMillis();
+        this.clock = Objects.requireNonNull(clock, "clock cannot be null");
+        this.sharedStore = sharedStore;
+        if (sharedStore != null) {
+            sharedStore.subscribe(entries::remove);
+        }
+    }
+
+    /**
+     * Returns the unexpired entry for a name, counting a hit or miss. Local
+     * misses are looked up in the shared store, if any.
+     *
+     * @param name the normalized domain
+     * @return the entry, or null if absent or expired
+     */
+    public CacheEntry get(String name) {
+        return get(name, SHARED_TIMEOUT);
+    }
+
+    /**
+     * Returns the unexpired entry for a name, waiting at most the given time
+     * for the shared store on a local miss.
+     *
+     * @param name          the normalized domain
+     * @param sharedTimeout the longest wait for the shared store; zero or
+     *                      negative skips it
+     * @return the entry, or null if absent or expired
+     */
+    public CacheEntry get(String name, Duration sharedTimeout) {
+        CacheEvent event = new CacheEvent();
+        event.begin();
+        Slot slot = entries.get(name);
+        long now = clock.millis();
+        if (slot != null && !slot.entry().isExpired(now)) {
+            hits.increment();
+            event.complete(name, CacheEvent.HIT);
+            return slot.entry();
+        }
+
+        CacheEntry entry = sharedStore != null && sharedTimeout.compareTo(Duration.ZERO) > 0
+                ? getShared(name, now, sharedTimeout)
+                : null;
+        if (entry == null) {
+            misses.increment();
+            event.complete(name, CacheEvent.MISS);
+            return null;
+        }
+        hits.increment();
+        sharedHits.increment();
+        putLocal(name, new Slot(entry, 0));
+        event.complete(name, CacheEvent.SHARED_HIT);
+        return entry;
+    }
+
+    private CacheEntry getShared(String name, long now, Duration timeout) {
+        try {
+            byte[] bytes = sharedStore.get(name).get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            if (bytes == null) {
+                return null;
+            }
+            CacheEntry entry = CacheEntryCodec.decode(bytes);
+            return entry.isExpired(now) ? null : entry;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException | IllegalArgumentException e) {
+            return null; // An unavailable or corrupt shared tier is only a miss
+        }
+    }
+
+    /**
+     * Returns the entry for a name even if it has expired, without counting a
+     * hit or miss.
+     *
+     * @param name the normalized domain
+     * @return the entry, or null if absent
+     */
+    public CacheEntry peek(String name) {
+        Slot slot = entries.get(name);
+        return slot != null ? slot.entry() : null;
+    }
+
+    /**
+     * Caches a lookup result.
+     *
+     * @param name   the normalized domain
+     * @param result the result, or null if the domain has no records
+     * @param ttl    the record TTL in seconds, or -1 if unknown
+     * @return the cached entry
+     */
+    public CacheEntry put(String name, PronounResult result, long ttl) {
+        return put(name, result, ttl, 0);
+    }
+
+    /**
+     * Caches a lookup result along with a fingerprint of the records it was
+     * parsed from, so that {@link #refresh} can reuse it.
+     *
+     * @param name        the normalized domain
+     * @param result      the result, or null if the domain has no records
+     * @param ttl         the record TTL in seconds, or -1 if unknown
+     * @param fingerprint the fingerprint of the records, or 0 if unknown
+     * @return the cached entry
+     */
+    public CacheEntry put(String name, PronounResult result, long ttl, long fingerprint) {
+        long now = clock.millis();
+        CacheEntry entry = new CacheEntry(result, now, now + lifetime(result, ttl));
+        put(name, new Slot(entry, fingerprint));
+        return entry;
+    }
+
+    /**
+     * Extends the entry for a name if it was parsed from records with the
+     * given fingerprint. The entry may have expired; its result instance is
+     * kept and only its fetch and expiry times change. The shared store is not
+     * written, so other processes keep their copies.
+     *
+     * @param name        the normalized domain
+     * @param fingerprint the fingerprint of the freshly fetched records
+     * @param ttl         the record TTL in seconds, or -1 if unknown
+     * @return the extended entry, or null if there is no entry with that
+     *         fingerprint and the records must be parsed
+     */
+    public CacheEntry refresh(String name, long fingerprint, long ttl) {
+        Slot slot = entries.get(name);
+        if (slot == null || fingerprint == 0 || slot.fingerprint() != fingerprint) {
+            return null;
+        }
+        CacheEvent event = new CacheEvent();
+        event.begin();
+        PronounResult result = slot.entry().result();
+        long now = clock.millis();
+        CacheEntry entry = new CacheEntry(result, now, now + lifetime(result, ttl));
+        // Only the local copy: rewriting the unchanged entry in the shared
+        // store would make every other node drop theirs
+        putLocal(name, new Slot(entry, fingerprint));
+        reused.increment();
+        event.complete(name, CacheEvent.REFRESH);
+        return entry;
+    }
+
+    private long lifetime(PronounResult result, long ttl) {
+        if (result == null) {
+            return negativeTtlMillis;
+        } else if (ttl < 0) {
+            return defaultTtlMillis;
+        }
+        return Math.max(minTtlMillis, Math.min(maxTtlMillis, ttl * 1000));
+    }
+
+    /**
+     * Caches an entry as is, writing it to the shared store in the background.
+     *
+     * @param name  the normalized domain
+     * @param entry the entry
+     */
+    public void put(String name, CacheEntry entry) {
+        put(name, new Slot(entry, 0));
+    }
+
+    private void put(String name, Slot slot) {
+        CacheEntry entry = slot.entry();
+        CacheEvent event = new CacheEvent();
+        event.begin();
+        boolean refreshed = putLocal(name, slot);
+        if (sharedStore != null) {
+            long remaining = entry.expiresAt() - clock.millis();
+            if (remaining > 0) {
+                try {
+                    sharedStore.put(name, CacheEntryCodec.encode(entry), Duration.ofMillis(remaining));
+                } catch (RuntimeException e) {
+                    // The local entry is still usable
+                }
+            }
+        }
+        event.complete(name, refreshed ? CacheEvent.REFRESH : CacheEvent.STORE);
+    }
+
+    private boolean putLocal(String name, Slot slot) {
+        if (entries.put(name, slot) != null) {
+            return true;
+        }
+        if (entries.size() > maxEntries) {
+            evict(clock.millis());
+        }
+        return false;
+    }
+
+    /**
+     * Removes the local entry for a name. The shared store is not affected.
+     *
+     * @param name the normalized domain
+     */
+    public void invalidate(String name) {
+        entries.remove(name);
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    private void evict(long now) {
+        // Purge expired entries first, then make room for a tenth of the capacity
+        int target = maxEntries - Math.max(1, maxEntries / 10);
+        for (Iterator<Slot> it = entries.values().iterator(); it.hasNext();) {
+            if (it.next().entry().isExpired(now)) {
+                it.remove();
+                evictions.increment();
+            }
+        }
+        for (Iterator<Slot> it = entries.values().iterator(); entries.size() > target && it.hasNext();) {
+            it.next();
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Returns the number of entries, including expired ones not yet purged.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of lookups answered from the cache.
+     *
+     * @return the hit count
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups not answered from the cache.
+     *
+     * @return the miss count
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of hits answered by the shared store rather than the
+     * local cache.
+     *
+     * @return the shared hit count
+     */
+    public long sharedHits() {
+        return sharedHits.sum();
+    }
+
+    /**
+     * Returns the number of refreshes that reused an entry's result because
+     * its records were unchanged.
+     *
+     * @return the reuse count
+     */
+    public long reused() {
+        return reused.sum();
+    }
+
+    /**
+     * Returns the number of entries evicted to stay within capacity.
+     *
+     * @return the eviction count
+     */
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the clock used to expire entries.
+     *
+     * @return the clock
+     */
+    public Clock clock() {
+        return clock;
+    }
+}
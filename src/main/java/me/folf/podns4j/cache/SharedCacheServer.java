@@ -0,0 +1,296 @@
+package me.folf.podns4j.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal in-memory key-value server for {@link SocketSharedCacheStore}
+ * clients, standing in for a networked shared cache in tests and single-host
+ * deployments.
+ *
+ * <p>
+ * Values expire after the TTL given when they are stored, and expired values
+ * are purged as new ones are stored. When a client stores a value, every other
+ * connected client is sent the key so it can drop its local copy.
+ * </p>
+ *
+ * <p>
+ * Each client's replies and invalidations are written by its own writer
+ * thread. A client with more than {@value #MAX_QUEUED_MESSAGES} messages
+ * waiting is too slow to keep its local copies valid and is disconnected,
+ * so it never stalls the others.
+ * </p>
+ *
+ * <p>
+ * Example usage:
+ * </p>
+ *
+ * <pre>
+ * try (SharedCacheServer server = new SharedCacheServer(new InetSocketAddress("127.0.0.1", 0))) {
+ *     server.start();
+ *     SharedCacheStore store = new SocketSharedCacheStore(server.address());
+ *     ...
+ * }
+ * </pre>
+ */
+public final class SharedCacheServer implements AutoCloseable {
+    static final int GET = 'G';
+    static final int PUT = 'P';
+    static final int VALUE = 'V';
+    static final int STORED = 'S';
+    static final int INVALIDATE = 'I';
+
+    /**
+     * Maximum size of a stored value; clients sending larger values are
+     * disconnected.
+     */
+    public static final int MAX_VALUE_BYTES = 1 << 20;
+
+    /**
+     * Maximum number of messages waiting to be written to a client before it
+     * is disconnected.
+     */
+    public static final int MAX_QUEUED_MESSAGES = 1024;
+
+    private static final long PURGE_INTERVAL_MILLIS = 1000;
+
+    private final InetSocketAddress bindAddress;
+    private final Map<String, Value> values = new ConcurrentHashMap<>();
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicLong nextPurge = new AtomicLong();
+    private ServerSocket serverSocket;
+    private volatile boolean closed;
+
+    private static final class Value {
+        private final byte[] bytes;
+        private final long expiresAt;
+
+        private Value(byte[] bytes, long expiresAt) {
+            this.bytes = bytes;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private record Message(int op, String key, byte[] value) {
+    }
+
+    private static final class Connection {
+        private final Socket socket;
+        private final DataOutputStream out;
+        private final BlockingQueue<Message> unsent = new ArrayBlockingQueue<>(MAX_QUEUED_MESSAGES);
+        private Thread writer;
+
+        private Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        /**
+         * Queues a message, disconnecting the client if too many are waiting.
+         */
+        private void send(Message message) {
+            if (!unsent.offer(message)) {
+                disconnect();
+            }
+        }
+
+        private void write() {
+            try {
+                while (true) {
+                    Message message = unsent.take();
+                    out.writeByte(message.op());
+                    if (message.op() == VALUE) {
+                        out.writeInt(message.value() != null ? message.value().length : -1);
+                        if (message.value() != null) {
+                            out.write(message.value());
+                        }
+                    } else if (message.op() == INVALIDATE) {
+                        out.writeUTF(message.key());
+                    }
+                    if (unsent.isEmpty()) {
+                        out.flush();
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Disconnected
+            } catch (IOException e) {
+                disconnect();
+            }
+        }
+
+        private void disconnect() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+        }
+    }
+
+    /**
+     * Creates a server. Call {@link #start()} to begin serving.
+     *
+     * @param bindAddress the address to listen on (port 0 picks a free port)
+     */
+    public SharedCacheServer(InetSocketAddress bindAddress) {
+        this.bindAddress = bindAddress;
+    }
+
+    /**
+     * Binds the socket and starts accepting clients on a daemon thread.
+     *
+     * @throws IOException if the socket cannot be bound
+     */
+    public synchronized void start() throws IOException {
+        if (serverSocket != null || closed) {
+            throw new IllegalStateException("Server already started");
+        }
+        serverSocket = new ServerSocket();
+        serverSocket.bind(bindAddress);
+        daemon(this::accept, "podns4j-shared-cache").start();
+    }
+
+    /**
+     * Returns the address the server is listening on.
+     *
+     * @return the bound address
+     * @throws IOException if the server is not started
+     */
+    public InetSocketAddress address() throws IOException {
+        if (serverSocket == null) {
+            throw new IOException("Server not started");
+        }
+        return (InetSocketAddress) serverSocket.getLocalSocketAddress();
+    }
+
+    /**
+     * Returns the number of stored values, including expired ones not yet
+     * purged.
+     *
+     * @return the number of values
+     */
+    public int size() {
+        return values.size();
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Connection connection = new Connection(socket);
+                connection.writer = daemon(connection::write, "podns4j-shared-cache-writer");
+                connection.writer.start();
+                connections.add(connection);
+                daemon(() -> serve(connection), "podns4j-shared-cache-client").start();
+            } catch (IOException e) {
+                // Closed, or a client failed during setup
+            }
+        }
+    }
+
+    private void serve(Connection connection) {
+        try (Socket socket = connection.socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            while (true) {
+                int op = in.read();
+                if (op == -1) {
+                    return;
+                }
+                String key = in.readUTF();
+                if (op == GET) {
+                    connection.send(new Message(VALUE, key, get(key)));
+                } else if (op == PUT) {
+                    long ttlMillis = in.readLong();
+                    int length = in.readInt();
+                    if (length < 0 || length > MAX_VALUE_BYTES) {
+                        return; // Corrupt or hostile length
+                    }
+                    byte[] value = new byte[length];
+                    in.readFully(value);
+                    long now = System.currentTimeMillis();
+                    values.put(key, new Value(value, now + ttlMillis));
+                    purgeExpired(now);
+                    connection.send(new Message(STORED, key, null));
+                    broadcast(connection, key);
+                } else {
+                    return; // Protocol error
+                }
+            }
+        } catch (EOFException e) {
+            // Client went away mid-request
+        } catch (IOException e) {
+            // Connection failed
+        } finally {
+            connections.remove(connection);
+            connection.writer.interrupt();
+        }
+    }
+
+    private byte[] get(String key) {
+        Value value = values.get(key);
+        if (value == null) {
+            return null;
+        }
+        if (value.expiresAt <= System.currentTimeMillis()) {
+            values.remove(key, value);
+            return null;
+        }
+        return value.bytes;
+    }
+
+    private void purgeExpired(long now) {
+        long next = nextPurge.get();
+        // One storing thread at a time scans the values
+        if (now >= next && nextPurge.compareAndSet(next, now + PURGE_INTERVAL_MILLIS)) {
+            values.values().removeIf(value -> value.expiresAt <= now);
+        }
+    }
+
+    private void broadcast(Connection origin, String key) {
+        Message invalidate = new Message(INVALIDATE, key, null);
+        for (Connection connection : connections) {
+            if (connection != origin) {
+                connection.send(invalidate);
+            }
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Stops serving and disconnects all clients.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            // Ignore
+        }
+        for (Connection connection : connections) {
+            connection.disconnect();
+        }
+        connections.clear();
+    }
+}
@@ -0,0 +1,50 @@
+package me.folf.podns4j.cache;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * A second-tier cache shared between processes, such as a networked key-value
+ * store, consulted by {@link PronounCache} when its local tier misses.
+ *
+ * <p>
+ * Each {@link PronounCache} should use its own store client, so that the store
+ * can tell which client wrote an entry and notify only the others.
+ * </p>
+ */
+public interface SharedCacheStore extends AutoCloseable {
+    /**
+     * Fetches a value.
+     *
+     * @param key the key
+     * @return a future completing with the value, or null if absent or expired
+     */
+    CompletableFuture<byte[]> get(String key);
+
+    /**
+     * Stores a value.
+     *
+     * @param key   the key
+     * @param value the value
+     * @param ttl   how long the store should keep the value
+     * @return a future completing when the value is stored
+     */
+    CompletableFuture<Void> put(String key, byte[] value, Duration ttl);
+
+    /**
+     * Registers a listener for keys updated by other clients, so that local
+     * copies can be dropped. Stores that cannot notify may ignore this.
+     *
+     * @param listener the listener, called with each updated key
+     */
+    default void subscribe(Consumer<String> listener) {
+    }
+
+    /**
+     * Releases the store's resources.
+     */
+    @Override
+    default void close() {
+    }
+}
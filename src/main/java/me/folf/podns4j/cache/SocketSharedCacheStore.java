@@ -0,0 +1,207 @@
+package me.folf.podns4j.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * {@link SharedCacheStore} client for a {@link SharedCacheServer}.
+ *
+ * <p>
+ * Requests are pipelined over a single connection and answered in order.
+ * They are written by a dedicated writer thread, so callers never block on the
+ * socket: when the server stops reading and more than
+ * {@value #MAX_QUEUED_REQUESTS} requests are waiting to be written, further
+ * requests fail immediately. Invalidations pushed by the server are delivered
+ * to subscribers on the connection's reader thread.
+ * </p>
+ */
+public final class SocketSharedCacheStore implements SharedCacheStore {
+    /**
+     * Maximum number of requests waiting to be written.
+     */
+    public static final int MAX_QUEUED_REQUESTS = 1024;
+
+    private final Socket socket;
+    private final DataOutputStream out;
+    private final DataInputStream in;
+    private final BlockingQueue<Request> unsent = new ArrayBlockingQueue<>(MAX_QUEUED_REQUESTS);
+    private final Queue<CompletableFuture<byte[]>> pending = new ConcurrentLinkedQueue<>();
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+    private final Object lock = new Object();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    private record Request(int op, String key, long ttlMillis, byte[] value, CompletableFuture<byte[]> future) {
+    }
+
+    /**
+     * Connects to a shared cache server.
+     *
+     * @param address the server address
+     * @throws IOException if the connection fails
+     */
+    public SocketSharedCacheStore(InetSocketAddress address) throws IOException {
+        this.socket = new Socket(address.getAddress(), address.getPort());
+        socket.setTcpNoDelay(true);
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+
+        this.writer = new Thread(this::write, "podns4j-shared-cache-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Thread reader = new Thread(this::read, "podns4j-shared-cache-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    @Override
+    public CompletableFuture<byte[]> get(String key) {
+        return send(SharedCacheServer.GET, key, 0, null);
+    }
+
+    @Override
+    public CompletableFuture<Void> put(String key, byte[] value, Duration ttl) {
+        return send(SharedCacheServer.PUT, key, ttl.toMillis(), value).thenAccept(ignored -> {
+        });
+    }
+
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    private CompletableFuture<byte[]> send(int op, String key, long ttlMillis, byte[] value) {
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        if (value != null && value.length > SharedCacheServer.MAX_VALUE_BYTES) {
+            future.completeExceptionally(new IOException("Value too large: " + value.length + " bytes"));
+            return future;
+        }
+        synchronized (lock) {
+            if (closed) {
+                future.completeExceptionally(new IOException("Store closed"));
+            } else if (!unsent.offer(new Request(op, key, ttlMillis, value, future))) {
+                future.completeExceptionally(new IOException("Shared cache connection backed up"));
+            }
+        }
+        return future;
+    }
+
+    private void write() {
+        try {
+            while (true) {
+                Request request = unsent.take();
+                synchronized (lock) {
+                    if (closed) {
+                        request.future().completeExceptionally(new IOException("Store closed"));
+                        return;
+                    }
+                    // Queue before writing, so the response always finds its future
+                    pending.add(request.future());
+                }
+                out.writeByte(request.op());
+                out.writeUTF(request.key());
+                if (request.op() == SharedCacheServer.PUT) {
+                    out.writeLong(request.ttlMillis());
+                    out.writeInt(request.value().length);
+                    out.write(request.value());
+                }
+                if (unsent.isEmpty()) {
+                    out.flush();
+                }
+            }
+        } catch (InterruptedException e) {
+            // Closed
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void read() {
+        try {
+            while (true) {
+                int type = in.read();
+                if (type == -1) {
+                    break;
+                }
+                if (type == SharedCacheServer.INVALIDATE) {
+                    String key = in.readUTF();
+                    for (Consumer<String> listener : listeners) {
+                        try {
+                            listener.accept(key);
+                        } catch (RuntimeException ignored) {
+                            // One failing listener must not affect the others
+                        }
+                    }
+                } else if (type == SharedCacheServer.VALUE) {
+                    int length = in.readInt();
+                    if (length > SharedCacheServer.MAX_VALUE_BYTES) {
+                        throw new IOException("Value too large: " + length + " bytes");
+                    }
+                    byte[] value = null;
+                    if (length >= 0) {
+                        value = new byte[length];
+                        in.readFully(value);
+                    }
+                    complete(value);
+                } else if (type == SharedCacheServer.STORED) {
+                    complete(null);
+                } else {
+                    throw new IOException("Unexpected response type: " + type);
+                }
+            }
+            fail(new IOException("Connection closed by server"));
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void complete(byte[] value) throws IOException {
+        CompletableFuture<byte[]> future = pending.poll();
+        if (future == null) {
+            throw new IOException("Response without a request");
+        }
+        future.complete(value);
+    }
+
+    private void fail(IOException e) {
+        synchronized (lock) {
+            closed = true;
+        }
+        writer.interrupt();
+        Request request;
+        while ((request = unsent.poll()) != null) {
+            request.future().completeExceptionally(e);
+        }
+        CompletableFuture<byte[]> future;
+        while ((future = pending.poll()) != null) {
+            future.completeExceptionally(e);
+        }
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // Ignore
+        }
+    }
+
+    /**
+     * Disconnects from the server, failing outstanding requests.
+     */
+    @Override
+    public void close() {
+        fail(new IOException("Store closed"));
+    }
+}
@@ -0,0 +1,27 @@
+package me.folf.podns4j.cluster;
+
+import java.net.InetSocketAddress;
+import java.util.Objects;
+
+/**
+ * A member of a lookup cluster.
+ *
+ * @param id      the node's stable identifier; domains are assigned by id, so
+ *                a node keeps its domains when its address changes
+ * @param address the address of the node's {@link ClusterServer}
+ */
+public record ClusterNode(String id, InetSocketAddress address) {
+    /**
+     * Validates the parameters.
+     *
+     * @param id      the identifier
+     * @param address the address
+     */
+    public ClusterNode {
+        Objects.requireNonNull(id, "id cannot be null");
+        Objects.requireNonNull(address, "address cannot be null");
+        if (id.isEmpty()) {
+            throw new IllegalArgumentException("Node id cannot be empty");
+        }
+    }
+}
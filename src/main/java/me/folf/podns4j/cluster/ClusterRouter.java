@@ -0,0 +1,316 @@
+package me.folf.podns4j.cluster;
+
+import me.folf.podns4j.DomainNormalizer;
+import me.folf.podns4j.PoDNS4J;
+import me.folf.podns4j.PronounParseException;
+import me.folf.podns4j.cache.CacheEntry;
+import me.folf.podns4j.cache.CacheEntryCodec;
+import me.folf.podns4j.model.PronounResult;
+
+import javax.naming.NamingException;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Spreads lookups across a cluster so each domain is resolved and cached by a
+ * single owner node.
+ *
+ * <p>
+ * Domains are assigned to nodes with a {@link HashRing}. Lookups of domains
+ * this node owns go to the local {@link PoDNS4J} instance; others are
+ * forwarded to the owner's {@link ClusterServer} over pooled connections. The
+ * cluster's combined cache therefore holds each domain once, so its capacity
+ * grows with the number of nodes. If the owner cannot be reached within the
+ * timeout, the lookup falls back to the local instance.
+ * </p>
+ *
+ * <p>
+ * Membership is changed with {@link #updateMembers(Collection)}. Nodes must
+ * agree on the members and the number of virtual nodes to agree on owners;
+ * while they disagree, lookups still succeed but may be resolved twice.
+ * </p>
+ *
+ * <p>
+ * Example usage:
+ * </p>
+ *
+ * <pre>
+ * List&lt;ClusterNode&gt; members = List.of(
+ *         new ClusterNode("a", new InetSocketAddress("10.0.0.1", 7353)),
+ *         new ClusterNode("b", new InetSocketAddress("10.0.0.2", 7353)));
+ * ClusterServer server = new ClusterServer(podns, new InetSocketAddress(7353));
+ * server.start();
+ * ClusterRouter router = new ClusterRouter(podns, "a", members);
+ * PronounResult result = router.lookup("example.com");
+ * </pre>
+ */
+public final class ClusterRouter implements AutoCloseable {
+    /**
+     * Default number of ring points per node.
+     */
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    /**
+     * Default timeout for connecting to and waiting on the owner.
+     */
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(2);
+
+    private final PoDNS4J local;
+    private final String selfId;
+    private final int virtualNodes;
+    private final int timeoutMillis;
+    private final Map<InetSocketAddress, Queue<Connection>> pools = new ConcurrentHashMap<>();
+    private final LongAdder forwarded = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private volatile HashRing ring;
+    private volatile boolean closed;
+
+    private static final class Connection {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+
+        private Connection(InetSocketAddress address, int timeoutMillis) throws IOException {
+            this.socket = new Socket();
+            try {
+                socket.connect(address, timeoutMillis);
+                socket.setSoTimeout(timeoutMillis);
+                socket.setTcpNoDelay(true);
+                this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            } catch (IOException e) {
+                socket.close();
+                throw e;
+            }
+        }
+
+        private void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+        }
+    }
+
+    /**
+     * Creates a router with the default virtual nodes and timeout.
+     *
+     * @param local   the instance used for domains this node owns
+     * @param selfId  the id of this node among the members
+     * @param members the cluster members, including this node
+     */
+    public ClusterRouter(PoDNS4J local, String selfId, Collection<ClusterNode> members) {
+        this(local, selfId, members, DEFAULT_VIRTUAL_NODES, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Creates a router.
+     *
+     * @param local        the instance used for domains this node owns
+     * @param selfId       the id of this node among the members
+     * @param members      the cluster members, including this node
+     * @param virtualNodes the number of ring points per node
+     * @param timeout      the timeout for connecting to and waiting on the
+     *                     owner
+     */
+    public ClusterRouter(PoDNS4J local, String selfId, Collection<ClusterNode> members, int virtualNodes,
+            Duration timeout) {
+        this.local = Objects.requireNonNull(local, "local cannot be null");
+        this.selfId = Objects.requireNonNull(selfId, "selfId cannot be null");
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("Timeout must be positive");
+        }
+        this.virtualNodes = virtualNodes;
+        this.timeoutMillis = (int) Math.min(Integer.MAX_VALUE, timeout.toMillis());
+        this.ring = new HashRing(members, virtualNodes);
+    }
+
+    /**
+     * Replaces the cluster members. Only domains owned by added or removed
+     * nodes change owner.
+     *
+     * @param members the new members, including this node
+     */
+    public void updateMembers(Collection<ClusterNode> members) {
+        HashRing updated = new HashRing(members, virtualNodes);
+        ring = updated;
+
+        Set<InetSocketAddress> addresses = new HashSet<>();
+        for (ClusterNode node : updated.nodes()) {
+            addresses.add(node.address());
+        }
+        pools.entrySet().removeIf(pool -> {
+            if (addresses.contains(pool.getKey())) {
+                return false;
+            }
+            closeAll(pool.getValue());
+            return true;
+        });
+    }
+
+    /**
+     * Returns the node that owns a domain.
+     *
+     * @param domain the domain
+     * @return the owner, or null if there are no members
+     * @throws IllegalArgumentException if the domain is invalid
+     */
+    public ClusterNode owner(String domain) {
+        return ring.owner(DomainNormalizer.normalize(domain));
+    }
+
+    /**
+     * Looks up pronouns for a domain through its owner.
+     *
+     * @param domain the domain to look up (e.g., "example.com")
+     * @return the pronoun result, or null if no records were found
+     * @throws PronounParseException if the records cannot be parsed
+     * @throws NamingException       if the DNS query fails
+     */
+    public PronounResult lookup(String domain) throws PronounParseException, NamingException {
+        return lookupEntry(domain).result();
+    }
+
+    /**
+     * Looks up pronouns for a domain through its owner, along with when the
+     * records were fetched and when they expire.
+     *
+     * @param domain the domain to look up (e.g., "example.com")
+     * @return the lookup entry; its result is null if no records were found
+     * @throws PronounParseException if the records cannot be parsed
+     * @throws NamingException       if the DNS query fails
+     */
+    public CacheEntry lookupEntry(String domain) throws PronounParseException, NamingException {
+        String name = DomainNormalizer.normalize(domain);
+        ClusterNode owner = ring.owner(name);
+        if (owner == null || owner.id().equals(selfId) || closed) {
+            return local.lookupEntry(domain);
+        }
+        try {
+            CacheEntry entry = forward(owner, name.substring(DomainNormalizer.PREFIX.length()));
+            forwarded.increment();
+            return entry;
+        } catch (IOException e) {
+            fallbacks.increment();
+            return local.lookupEntry(domain);
+        }
+    }
+
+    private CacheEntry forward(ClusterNode owner, String domain)
+            throws IOException, PronounParseException, NamingException {
+        Queue<Connection> pool = pools.computeIfAbsent(owner.address(), key -> new ConcurrentLinkedQueue<>());
+        Connection connection = pool.poll();
+        boolean pooled = connection != null;
+        if (!pooled) {
+            connection = new Connection(owner.address(), timeoutMillis);
+        }
+
+        int status;
+        CacheEntry entry = null;
+        String message = null;
+        try {
+            connection.out.writeByte(ClusterServer.LOOKUP);
+            connection.out.writeUTF(domain);
+            connection.out.flush();
+
+            status = connection.in.readUnsignedByte();
+            if (status == ClusterServer.OK) {
+                long fetchedAt = connection.in.readLong();
+                long expiresAt = connection.in.readLong();
+                entry = new CacheEntry(CacheEntryCodec.readResult(connection.in), fetchedAt, expiresAt);
+            } else {
+                message = connection.in.readUTF();
+            }
+        } catch (SocketTimeoutException e) {
+            connection.close();
+            throw e;
+        } catch (IOException e) {
+            connection.close();
+            if (pooled) {
+                // The owner may have closed an idle connection; try another
+                return forward(owner, domain);
+            }
+            throw e;
+        }
+        if (closed) {
+            connection.close();
+        } else {
+            pool.add(connection);
+        }
+
+        switch (status) {
+            case ClusterServer.OK:
+                return entry;
+            case ClusterServer.PARSE_ERROR:
+                throw new PronounParseException(message);
+            case ClusterServer.DNS_ERROR:
+                throw new NamingException(message);
+            default:
+                throw new IOException("Owner " + owner.id() + " failed: " + message);
+        }
+    }
+
+    /**
+     * Returns the current ring.
+     *
+     * @return the ring
+     */
+    public HashRing ring() {
+        return ring;
+    }
+
+    /**
+     * Returns the number of lookups answered by another node.
+     *
+     * @return the number of forwarded lookups
+     */
+    public long forwarded() {
+        return forwarded.sum();
+    }
+
+    /**
+     * Returns the number of lookups answered locally because the owner could
+     * not be reached.
+     *
+     * @return the number of fallbacks
+     */
+    public long fallbacks() {
+        return fallbacks.sum();
+    }
+
+    private static void closeAll(Queue<Connection> pool) {
+        Connection connection;
+        while ((connection = pool.poll()) != null) {
+            connection.close();
+        }
+    }
+
+    /**
+     * Closes pooled connections. Later lookups are answered locally.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Queue<Connection> pool : pools.values()) {
+            closeAll(pool);
+        }
+        pools.clear();
+    }
+}
@@ -0,0 +1,186 @@
+package me.folf.podns4j.cluster;
+
+import me.folf.podns4j.PoDNS4J;
+import me.folf.podns4j.PronounParseException;
+import me.folf.podns4j.cache.CacheEntry;
+import me.folf.podns4j.cache.CacheEntryCodec;
+
+import javax.naming.NamingException;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Answers lookups forwarded by other nodes' {@link ClusterRouter}s from this
+ * node's {@link PoDNS4J} instance and its cache.
+ *
+ * <p>
+ * The protocol is a sequence of requests on a persistent connection, each
+ * answered in order. A request is the byte {@code 'L'} followed by the domain
+ * as a modified-UTF-8 string. A response is a status byte: {@code 'O'}
+ * followed by the entry's fetch and expiry times as longs and the result as
+ * written by {@link CacheEntryCodec#writeResult}, or {@code 'P'}
+ * (unparseable records), {@code 'D'} (DNS failure) or {@code 'F'} (other
+ * failure) followed by the error message.
+ * </p>
+ *
+ * <p>
+ * Example usage:
+ * </p>
+ *
+ * <pre>
+ * try (ClusterServer server = new ClusterServer(podns, new InetSocketAddress(7353))) {
+ *     server.start();
+ *     ...
+ * }
+ * </pre>
+ */
+public final class ClusterServer implements AutoCloseable {
+    static final int LOOKUP = 'L';
+    static final int OK = 'O';
+    static final int PARSE_ERROR = 'P';
+    static final int DNS_ERROR = 'D';
+    static final int FAILED = 'F';
+
+    private final PoDNS4J podns4j;
+    private final InetSocketAddress bindAddress;
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private ServerSocket serverSocket;
+    private volatile boolean closed;
+
+    /**
+     * Creates a server. Call {@link #start()} to begin serving.
+     *
+     * @param podns4j     the instance that answers forwarded lookups; it must
+     *                    not route through a {@link ClusterRouter}
+     * @param bindAddress the address to listen on (port 0 picks a free port)
+     */
+    public ClusterServer(PoDNS4J podns4j, InetSocketAddress bindAddress) {
+        this.podns4j = Objects.requireNonNull(podns4j, "podns4j cannot be null");
+        this.bindAddress = Objects.requireNonNull(bindAddress, "bindAddress cannot be null");
+    }
+
+    /**
+     * Binds the socket and starts accepting nodes on a daemon thread.
+     *
+     * @throws IOException if the socket cannot be bound
+     */
+    public synchronized void start() throws IOException {
+        if (serverSocket != null || closed) {
+            throw new IllegalStateException("Server already started");
+        }
+        serverSocket = new ServerSocket();
+        serverSocket.bind(bindAddress);
+        daemon(this::accept, "podns4j-cluster").start();
+    }
+
+    /**
+     * Returns the address the server is listening on.
+     *
+     * @return the bound address
+     * @throws IOException if the server is not started
+     */
+    public InetSocketAddress address() throws IOException {
+        if (serverSocket == null) {
+            throw new IOException("Server not started");
+        }
+        return (InetSocketAddress) serverSocket.getLocalSocketAddress();
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.add(socket);
+                if (closed) {
+                    // Accepted while closing; close() may already have
+                    // disconnected the other nodes
+                    connections.remove(socket);
+                    socket.close();
+                    return;
+                }
+                socket.setTcpNoDelay(true);
+                daemon(() -> serve(socket), "podns4j-cluster-client").start();
+            } catch (IOException e) {
+                // Closed, or a node failed during setup
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            while (true) {
+                int op = in.read();
+                if (op != LOOKUP) {
+                    return; // End of stream or protocol error
+                }
+                String domain = in.readUTF();
+                try {
+                    CacheEntry entry = podns4j.lookupEntry(domain);
+                    out.writeByte(OK);
+                    out.writeLong(entry.fetchedAt());
+                    out.writeLong(entry.expiresAt());
+                    CacheEntryCodec.writeResult(out, entry.result());
+                } catch (PronounParseException e) {
+                    writeError(out, PARSE_ERROR, e);
+                } catch (NamingException e) {
+                    writeError(out, DNS_ERROR, e);
+                } catch (RuntimeException e) {
+                    writeError(out, FAILED, e);
+                }
+                out.flush();
+            }
+        } catch (EOFException e) {
+            // Node went away mid-request
+        } catch (IOException e) {
+            // Connection failed
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    private static void writeError(DataOutputStream out, int status, Exception e) throws IOException {
+        out.writeByte(status);
+        out.writeUTF(String.valueOf(e.getMessage()));
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Stops serving and disconnects all nodes.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            // Ignore
+        }
+        for (Socket socket : connections) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+        }
+        connections.clear();
+    }
+}
@@ -0,0 +1,91 @@
+package me.folf.podns4j.cluster;
+
+import me.folf.podns4j.StableHash;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable consistent hash ring assigning names to cluster nodes.
+ *
+ * <p>
+ * Each node is placed on the ring at {@code virtualNodes} points derived from
+ * its id, and a name belongs to the node at the first point at or after the
+ * name's hash. Adding or removing a node only moves the names between it and
+ * its neighbours, about {@code 1/n} of all names, and the virtual nodes keep
+ * the share of each node close to even.
+ * </p>
+ */
+public final class HashRing {
+    private final List<ClusterNode> nodes;
+    private final long[] points;
+    private final ClusterNode[] owners;
+
+    /**
+     * Builds a ring.
+     *
+     * @param nodes        the members
+     * @param virtualNodes the number of points per node
+     * @throws IllegalArgumentException if node ids are not unique or
+     *                                  virtualNodes is not positive
+     */
+    public HashRing(Collection<ClusterNode> nodes, int virtualNodes) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("Virtual nodes must be positive");
+        }
+        Set<String> ids = new HashSet<>();
+        for (ClusterNode node : nodes) {
+            if (!ids.add(node.id())) {
+                throw new IllegalArgumentException("Duplicate node id: " + node.id());
+            }
+        }
+        this.nodes = List.copyOf(nodes);
+
+        long[][] entries = new long[this.nodes.size() * virtualNodes][];
+        int count = 0;
+        for (int n = 0; n < this.nodes.size(); n++) {
+            String id = this.nodes.get(n).id();
+            for (int v = 0; v < virtualNodes; v++) {
+                entries[count++] = new long[] { StableHash.hash(id.concat("#").concat(Integer.toString(v))), n };
+            }
+        }
+        // Ties between points are broken by node id so every member builds the same ring
+        Arrays.sort(entries, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0])
+                : this.nodes.get((int) a[1]).id().compareTo(this.nodes.get((int) b[1]).id()));
+        this.points = new long[count];
+        this.owners = new ClusterNode[count];
+        for (int i = 0; i < count; i++) {
+            points[i] = entries[i][0];
+            owners[i] = this.nodes.get((int) entries[i][1]);
+        }
+    }
+
+    /**
+     * Returns the node that owns a name.
+     *
+     * @param name the normalized name
+     * @return the owner, or null if the ring is empty
+     */
+    public ClusterNode owner(String name) {
+        if (points.length == 0) {
+            return null;
+        }
+        int index = Arrays.binarySearch(points, StableHash.hash(name));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    /**
+     * Returns the members.
+     *
+     * @return the nodes
+     */
+    public List<ClusterNode> nodes() {
+        return nodes;
+    }
+}
@@ -0,0 +1,82 @@
+package me.folf.podns4j.crawl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.TreeSet;
+
+/**
+ * Progress through an ordered input: every position below the watermark is
+ * completed, along with the listed positions above it.
+ */
+final class CrawlCheckpoint {
+    private static final int MAGIC = 0x50444e43; // "PDNC"
+    private static final int VERSION = 1;
+
+    private long watermark;
+    private final TreeSet<Long> completed = new TreeSet<>();
+
+    /**
+     * Returns whether the input position has been completed.
+     */
+    boolean isCompleted(long position) {
+        return position < watermark || completed.contains(position);
+    }
+
+    /**
+     * Records the input position as completed.
+     */
+    void complete(long position) {
+        if (position < watermark) {
+            return;
+        }
+        completed.add(position);
+        while (!completed.isEmpty() && completed.first() == watermark) {
+            completed.pollFirst();
+            watermark++;
+        }
+    }
+
+    /**
+     * Writes the checkpoint, replacing the file atomically.
+     */
+    void save(Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(watermark);
+            out.writeInt(completed.size());
+            for (long position : completed) {
+                out.writeLong(position);
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a checkpoint, or returns an empty one if the file does not exist.
+     */
+    static CrawlCheckpoint load(Path path) throws IOException {
+        CrawlCheckpoint checkpoint = new CrawlCheckpoint();
+        if (path == null || !Files.exists(path)) {
+            return checkpoint;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a crawl checkpoint: " + path);
+            }
+            checkpoint.watermark = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                checkpoint.completed.add(in.readLong());
+            }
+        }
+        return checkpoint;
+    }
+}
@@ -0,0 +1,22 @@
+package me.folf.podns4j.crawl;
+
+import me.folf.podns4j.model.PronounResult;
+
+/**
+ * Outcome of looking up one domain during a crawl.
+ *
+ * @param domain the domain, as read from the input
+ * @param result the pronoun result, or null if the domain has no records or
+ *               the lookup failed
+ * @param error  the failure, or null if the lookup succeeded
+ */
+public record CrawlResult(String domain, PronounResult result, Exception error) {
+    /**
+     * Returns whether the lookup failed.
+     *
+     * @return true if the lookup failed
+     */
+    public boolean failed() {
+        return error != null;
+    }
+}
@@ -0,0 +1,334 @@
+package me.folf.podns4j.crawl;
+
+import me.folf.podns4j.DomainNormalizer;
+import me.folf.podns4j.PoDNS4J;
+import me.folf.podns4j.PronounParseException;
+import me.folf.podns4j.model.PronounResult;
+
+import javax.naming.NamingException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Looks up large lists of domains without overloading the DNS servers of any
+ * one zone.
+ *
+ * <p>
+ * Domains are grouped by zone (by default their registrable domain) and each
+ * zone gets its own token bucket, so consecutive lookups in one zone are spaced
+ * at least {@code 1 / zoneRate} seconds apart while other zones proceed. A
+ * global token bucket caps the total rate, and at most {@code concurrency}
+ * lookups are in flight. The input is read lazily, keeping a bounded window of
+ * domains queued, so zones that are close together in the input are
+ * interleaved rather than queried in bursts. Only about a second's worth of
+ * lookups per zone counts towards the window: for sorted input, reading
+ * continues past a long run of one zone (up to a few windows in total) so that
+ * other zones keep the workers busy.
+ * </p>
+ *
+ * <p>
+ * Results are passed to the listener on the calling thread as lookups
+ * complete, in completion order. If a checkpoint file is configured, progress
+ * is saved to it periodically and when the crawl ends; crawling the same input
+ * again with the same checkpoint skips domains already completed, including
+ * failed ones.
+ * </p>
+ *
+ * <p>
+ * Example usage:
+ * </p>
+ *
+ * <pre>
+ * try (CrawlScheduler scheduler = new CrawlScheduler(podns, 500, 2, 64, Path.of("crawl.ckpt"));
+ *         Stream&lt;String&gt; domains = Files.lines(Path.of("domains.txt"))) {
+ *     scheduler.crawl(domains.iterator(), result -&gt; store(result));
+ * }
+ * </pre>
+ */
+public final class CrawlScheduler implements AutoCloseable {
+    private static final long CHECKPOINT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final long MAX_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final int WINDOW_PER_WORKER = 256;
+    private static final int MAX_BUFFERED_WINDOWS = 4;
+
+    // Second-level labels under two-letter country codes that are suffixes in practice (e.g. co.uk)
+    private static final Set<String> SECOND_LEVEL_SUFFIXES = Set.of(
+            "ac", "co", "com", "edu", "go", "gov", "ne", "net", "or", "org");
+
+    private final PoDNS4J podns4j;
+    private final double globalRate;
+    private final double zoneRate;
+    private final int concurrency;
+    private final Path checkpointPath;
+    private final Function<String, String> zoneKey;
+    private final ExecutorService executor;
+
+    private static final class Zone {
+        private final Queue<Task> tasks = new ArrayDeque<>();
+        private final TokenBucket bucket;
+        private long readyAt;
+        private long order;
+        private boolean queued;
+
+        private Zone(TokenBucket bucket) {
+            this.bucket = bucket;
+        }
+    }
+
+    private static final class Task {
+        private final String domain;
+        private final long position;
+        private CrawlResult result;
+
+        private Task(String domain, long position) {
+            this.domain = domain;
+            this.position = position;
+        }
+    }
+
+    /**
+     * Creates a scheduler grouping domains by registrable domain.
+     *
+     * @param podns4j     the instance used for lookups
+     * @param globalRate  the maximum total lookups per second
+     * @param zoneRate    the maximum lookups per second within one zone
+     * @param concurrency the maximum number of lookups in flight
+     * @param checkpoint  the checkpoint file, or null to disable checkpointing
+     */
+    public CrawlScheduler(PoDNS4J podns4j, double globalRate, double zoneRate, int concurrency, Path checkpoint) {
+        this(podns4j, globalRate, zoneRate, concurrency, checkpoint, CrawlScheduler::registrableDomain);
+    }
+
+    /**
+     * Creates a scheduler.
+     *
+     * @param podns4j     the instance used for lookups
+     * @param globalRate  the maximum total lookups per second
+     * @param zoneRate    the maximum lookups per second within one zone
+     * @param concurrency the maximum number of lookups in flight
+     * @param checkpoint  the checkpoint file, or null to disable checkpointing
+     * @param zoneKey     maps a domain to the zone it is rate-limited under
+     */
+    public CrawlScheduler(PoDNS4J podns4j, double globalRate, double zoneRate, int concurrency, Path checkpoint,
+            Function<String, String> zoneKey) {
+        if (!(globalRate > 0) || !(zoneRate > 0)) {
+            throw new IllegalArgumentException("Rates must be positive");
+        }
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("Concurrency must be positive");
+        }
+        this.podns4j = Objects.requireNonNull(podns4j, "podns4j cannot be null");
+        this.globalRate = globalRate;
+        this.zoneRate = zoneRate;
+        this.concurrency = concurrency;
+        this.checkpointPath = checkpoint;
+        this.zoneKey = Objects.requireNonNull(zoneKey, "zoneKey cannot be null");
+        this.executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "podns4j-crawl");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the registrable domain of a domain, e.g. {@code example.co.uk}
+     * for {@code www.example.co.uk}. This is a heuristic: without a public
+     * suffix list, only common second-level suffixes under two-letter country
+     * codes are recognized.
+     *
+     * @param domain the domain
+     * @return the registrable domain
+     * @throws IllegalArgumentException if the domain is invalid
+     */
+    public static String registrableDomain(String domain) {
+        String name = DomainNormalizer.normalize(domain).substring(DomainNormalizer.PREFIX.length());
+        int last = name.lastIndexOf('.');
+        if (last == -1) {
+            return name;
+        }
+        int second = name.lastIndexOf('.', last - 1);
+        if (second == -1) {
+            return name;
+        }
+        int keep = second;
+        if (name.length() - last - 1 == 2 && SECOND_LEVEL_SUFFIXES.contains(name.substring(second + 1, last))) {
+            keep = name.lastIndexOf('.', second - 1);
+            if (keep == -1) {
+                return name;
+            }
+        }
+        return name.substring(keep + 1);
+    }
+
+    /**
+     * Looks up every domain from an input, blocking until all have completed.
+     * The input must produce the same domains in the same order when resuming
+     * from a checkpoint.
+     *
+     * @param domains  the domains to look up
+     * @param listener receives each result as it completes
+     * @return the crawl totals
+     * @throws IOException          if the checkpoint cannot be read or written
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public CrawlSummary crawl(Iterator<String> domains, Consumer<CrawlResult> listener)
+            throws IOException, InterruptedException {
+        Objects.requireNonNull(listener, "listener cannot be null");
+        long started = System.nanoTime();
+        CrawlCheckpoint checkpoint = CrawlCheckpoint.load(checkpointPath);
+        Map<String, Zone> zones = new HashMap<>();
+        // Zones ready at the same time are served in the order they became ready
+        PriorityQueue<Zone> ready = new PriorityQueue<>(Comparator.comparingLong((Zone zone) -> zone.readyAt)
+                .thenComparingLong(zone -> zone.order));
+        long order = 0;
+        BlockingQueue<Task> completions = new LinkedBlockingQueue<>();
+        TokenBucket global = new TokenBucket(globalRate, Math.max(1, Math.ceil(globalRate / 100)), started);
+        int window = concurrency * WINDOW_PER_WORKER;
+        // Tasks beyond a zone's limit cannot be dispatched soon, so they do not
+        // fill the window, but the total buffered is still bounded
+        int zoneLimit = (int) Math.max(1, Math.min(window, Math.ceil(zoneRate)));
+        int maxBuffered = window * MAX_BUFFERED_WINDOWS;
+
+        long position = 0;
+        long skipped = 0;
+        long completed = 0;
+        long failed = 0;
+        int queued = 0;
+        int schedulable = 0;
+        int inFlight = 0;
+        boolean exhausted = false;
+        long nextCheckpoint = started + CHECKPOINT_INTERVAL_NANOS;
+
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                while (!exhausted && schedulable < window && queued < maxBuffered) {
+                    if (!domains.hasNext()) {
+                        exhausted = true;
+                        break;
+                    }
+                    String domain = domains.next();
+                    long current = position++;
+                    if (checkpoint.isCompleted(current)) {
+                        skipped++;
+                        continue;
+                    }
+                    Zone zone = zones.computeIfAbsent(zoneOf(domain),
+                            key -> new Zone(new TokenBucket(zoneRate, 1, now)));
+                    if (zone.tasks.size() < zoneLimit) {
+                        schedulable++;
+                    }
+                    zone.tasks.add(new Task(domain, current));
+                    if (!zone.queued) {
+                        zone.readyAt = now + zone.bucket.nanosUntilAvailable(now);
+                        zone.order = order++;
+                        zone.queued = true;
+                        ready.add(zone);
+                    }
+                    queued++;
+                }
+                if (exhausted && queued == 0 && inFlight == 0) {
+                    break;
+                }
+
+                long wait = MAX_WAIT_NANOS;
+                if (inFlight < concurrency && !ready.isEmpty()) {
+                    Zone zone = ready.peek();
+                    long until = Math.max(zone.readyAt - now, global.nanosUntilAvailable(now));
+                    if (until <= 0) {
+                        ready.poll();
+                        zone.bucket.take(now);
+                        global.take(now);
+                        if (zone.tasks.size() <= zoneLimit) {
+                            schedulable--; // Otherwise the next task moves within the limit
+                        }
+                        dispatch(zone.tasks.poll(), completions);
+                        queued--;
+                        inFlight++;
+                        if (zone.tasks.isEmpty()) {
+                            zone.queued = false;
+                        } else {
+                            zone.readyAt = now + zone.bucket.nanosUntilAvailable(now);
+                            zone.order = order++;
+                            ready.add(zone);
+                        }
+                        continue;
+                    }
+                    wait = Math.min(wait, until);
+                }
+
+                Task done = completions.poll(wait, TimeUnit.NANOSECONDS);
+                while (done != null) {
+                    inFlight--;
+                    completed++;
+                    if (done.result.failed()) {
+                        failed++;
+                    }
+                    listener.accept(done.result);
+                    checkpoint.complete(done.position);
+                    done = completions.poll();
+                }
+
+                long after = System.nanoTime();
+                if (zones.size() > 2 * window) {
+                    // Forget idle zones whose limit has fully recovered
+                    zones.values().removeIf(zone -> !zone.queued && zone.bucket.isFull(after));
+                }
+                if (checkpointPath != null && after >= nextCheckpoint) {
+                    checkpoint.save(checkpointPath);
+                    nextCheckpoint = after + CHECKPOINT_INTERVAL_NANOS;
+                }
+            }
+        } finally {
+            if (checkpointPath != null) {
+                checkpoint.save(checkpointPath);
+            }
+        }
+        return new CrawlSummary(completed, failed, skipped, Duration.ofNanos(System.nanoTime() - started));
+    }
+
+    private String zoneOf(String domain) {
+        try {
+            return zoneKey.apply(domain);
+        } catch (IllegalArgumentException e) {
+            return domain; // The lookup reports the invalid domain
+        }
+    }
+
+    private void dispatch(Task task, BlockingQueue<Task> completions) {
+        executor.execute(() -> {
+            try {
+                PronounResult result = podns4j.lookup(task.domain);
+                task.result = new CrawlResult(task.domain, result, null);
+            } catch (NamingException | PronounParseException | RuntimeException e) {
+                task.result = new CrawlResult(task.domain, null, e);
+            }
+            completions.add(task);
+        });
+    }
+
+    /**
+     * Stops the lookup threads. Lookups still in flight are abandoned.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
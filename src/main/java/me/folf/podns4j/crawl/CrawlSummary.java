@@ -0,0 +1,15 @@
+package me.folf.podns4j.crawl;
+
+import java.time.Duration;
+
+/**
+ * Totals for a finished crawl.
+ *
+ * @param completed the number of domains looked up, including failures
+ * @param failed    the number of lookups that failed
+ * @param skipped   the number of domains skipped because a checkpoint recorded
+ *                  them as already completed
+ * @param elapsed   the wall-clock duration of the crawl
+ */
+public record CrawlSummary(long completed, long failed, long skipped, Duration elapsed) {
+}
@@ -0,0 +1,66 @@
+package me.folf.podns4j.crawl;
+
+/**
+ * Token bucket rate limiter driven by an explicit nanosecond clock. Not
+ * thread-safe; the scheduler uses it from a single thread.
+ */
+final class TokenBucket {
+    private final double tokensPerNano;
+    private final double burst;
+    private double tokens;
+    private long updatedAt;
+
+    /**
+     * Creates a full bucket.
+     *
+     * @param ratePerSecond the sustained rate
+     * @param burst         the maximum number of tokens
+     * @param now           the current time in nanoseconds
+     */
+    TokenBucket(double ratePerSecond, double burst, long now) {
+        this.tokensPerNano = ratePerSecond / 1e9;
+        this.burst = burst;
+        this.tokens = burst;
+        this.updatedAt = now;
+    }
+
+    private void refill(long now) {
+        if (now > updatedAt) {
+            tokens = Math.min(burst, tokens + (now - updatedAt) * tokensPerNano);
+            updatedAt = now;
+        }
+    }
+
+    /**
+     * Returns how long until a token is available.
+     *
+     * @param now the current time in nanoseconds
+     * @return the wait in nanoseconds, or 0 if a token is available
+     */
+    long nanosUntilAvailable(long now) {
+        refill(now);
+        return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+
+    /**
+     * Takes a token, which must be available.
+     *
+     * @param now the current time in nanoseconds
+     */
+    void take(long now) {
+        refill(now);
+        tokens -= 1;
+    }
+
+    /**
+     * Returns whether the bucket has refilled completely, so forgetting it
+     * would not loosen the limit.
+     *
+     * @param now the current time in nanoseconds
+     * @return true if the bucket is full
+     */
+    boolean isFull(long now) {
+        refill(now);
+        return tokens >= burst;
+    }
+}
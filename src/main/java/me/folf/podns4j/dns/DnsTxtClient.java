@@ -0,0 +1,403 @@
+package me.folf.podns4j.dns;
+
+import me.folf.podns4j.jfr.DnsQueryEvent;
+
+import javax.naming.CommunicationException;
+import javax.naming.NameNotFoundException;
+import javax.naming.NamingException;
+import javax.naming.ServiceUnavailableException;
+import javax.naming.TimeLimitExceededException;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.StringTokenizer;
+
+/**
+ * Minimal DNS client for TXT queries.
+ *
+ * <p>
+ * Queries are sent over UDP advertising an EDNS0 buffer so that records with
+ * many pronoun sets and comments fit in a single datagram. Truncated responses
+ * are retried over TCP, and servers that reject EDNS0 are retried without it.
+ * Failures are reported with the same {@link NamingException} subclasses as the
+ * JNDI DNS provider.
+ * </p>
+ */
+public final class DnsTxtClient {
+    /**
+     * Default EDNS0 UDP payload size, as recommended by DNS Flag Day 2020.
+     */
+    public static final int DEFAULT_UDP_PAYLOAD = 1232;
+
+    /**
+     * Default per-attempt timeout in milliseconds.
+     */
+    public static final int DEFAULT_TIMEOUT_MILLIS = 1000;
+
+    /**
+     * Default number of passes over the nameserver list.
+     */
+    public static final int DEFAULT_ATTEMPTS = 2;
+
+    private static final Path RESOLV_CONF = Path.of("/etc/resolv.conf");
+
+    private final List<InetSocketAddress> nameservers;
+    private final int timeoutMillis;
+    private final int attempts;
+    private final int udpPayload;
+
+    /**
+     * Creates a client with default timeouts and buffer size.
+     *
+     * @param nameservers the recursive nameservers to query, in order
+     */
+    public DnsTxtClient(List<InetSocketAddress> nameservers) {
+        this(nameservers, DEFAULT_TIMEOUT_MILLIS, DEFAULT_ATTEMPTS, DEFAULT_UDP_PAYLOAD);
+    }
+
+    /**
+     * Creates a client.
+     *
+     * @param nameservers   the recursive nameservers to query, in order
+     * @param timeoutMillis the timeout for each attempt in milliseconds
+     * @param attempts      the number of passes over the nameserver list
+     * @param udpPayload    the EDNS0 UDP payload size to advertise, or 0 to
+     *                      disable EDNS0
+     */
+    public DnsTxtClient(List<InetSocketAddress> nameservers, int timeoutMillis, int attempts, int udpPayload) {
+        Objects.requireNonNull(nameservers, "nameservers cannot be null");
+        if (nameservers.isEmpty()) {
+            throw new IllegalArgumentException("At least one nameserver is required");
+        }
+        if (timeoutMillis <= 0 || attempts <= 0) {
+            throw new IllegalArgumentException("Timeout and attempts must be positive");
+        }
+        if (udpPayload != 0 && (udpPayload < 512 || udpPayload > 65535)) {
+            throw new IllegalArgumentException("UDP payload must be 0 or between 512 and 65535");
+        }
+        this.nameservers = List.copyOf(nameservers);
+        this.timeoutMillis = timeoutMillis;
+        this.attempts = attempts;
+        this.udpPayload = udpPayload;
+    }
+
+    /**
+     * Creates a client for the system's nameservers, read from
+     * {@code /etc/resolv.conf}.
+     *
+     * @return the client, or null if the system configuration is unavailable
+     *         (e.g. on Windows) or lists no nameservers
+     */
+    public static DnsTxtClient system() {
+        try {
+            return fromResolvConf(RESOLV_CONF);
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Creates a client from a resolv.conf file, honoring its
+     * {@code nameserver} entries and the {@code timeout} and {@code attempts}
+     * options.
+     *
+     * @param path the file to read
+     * @return the client
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the file lists no usable nameservers
+     */
+    public static DnsTxtClient fromResolvConf(Path path) throws IOException {
+        List<InetSocketAddress> nameservers = new ArrayList<>();
+        int timeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+        int attempts = DEFAULT_ATTEMPTS;
+
+        for (String line : Files.readAllLines(path)) {
+            // StringTokenizer rather than a regular expression keeps this cheap at startup
+            StringTokenizer tokens = new StringTokenizer(line);
+            String[] fields = new String[tokens.countTokens()];
+            for (int i = 0; i < fields.length; i++) {
+                fields[i] = tokens.nextToken();
+            }
+            if (fields.length < 2 || fields[0].startsWith("#") || fields[0].startsWith(";")) {
+                continue;
+            }
+            if (fields[0].equals("nameserver")) {
+                InetAddress address = parseLiteral(fields[1]);
+                if (address != null) {
+                    nameservers.add(new InetSocketAddress(address, 53));
+                }
+            } else if (fields[0].equals("options")) {
+                for (int i = 1; i < fields.length; i++) {
+                    if (fields[i].startsWith("timeout:")) {
+                        timeoutMillis = parseOption(fields[i], timeoutMillis / 1000) * 1000;
+                    } else if (fields[i].startsWith("attempts:")) {
+                        attempts = parseOption(fields[i], attempts);
+                    }
+                }
+            }
+        }
+        return new DnsTxtClient(nameservers, timeoutMillis, attempts, DEFAULT_UDP_PAYLOAD);
+    }
+
+    private static InetAddress parseLiteral(String address) {
+        // Only accept IP literals, so reading the configuration never triggers a lookup
+        if (address.indexOf(':') == -1) {
+            for (int i = 0; i < address.length(); i++) {
+                char c = address.charAt(i);
+                if (c != '.' && (c < '0' || c > '9')) {
+                    return null;
+                }
+            }
+        }
+        try {
+            return InetAddress.getByName(address);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static int parseOption(String option, int fallback) {
+        try {
+            int value = Integer.parseInt(option.substring(option.indexOf(':') + 1));
+            return value > 0 ? value : fallback;
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    /**
+     * Returns the nameservers queried by this client.
+     *
+     * @return the nameservers
+     */
+    public List<InetSocketAddress> nameservers() {
+        return nameservers;
+    }
+
+    /**
+     * Queries the TXT records of a name.
+     *
+     * @param name the name to query
+     * @return the decoded records; empty if the name exists without TXT records
+     * @throws NameNotFoundException       if the name does not exist
+     * @throws ServiceUnavailableException if every server failed to answer
+     * @throws CommunicationException      if no server could be reached
+     */
+    public TxtAnswer query(String name) throws NamingException {
+        return query(name, null);
+    }
+
+    /**
+     * Queries the TXT records of a name, giving up once a deadline passes.
+     * Each attempt waits at most the time remaining, and no attempt is started
+     * after the deadline.
+     *
+     * @param name    the name to query
+     * @param timeout the time allowed for all attempts together, or null for
+     *                no limit beyond the per-attempt timeout
+     * @return the decoded records; empty if the name exists without TXT records
+     * @throws NameNotFoundException       if the name does not exist
+     * @throws TimeLimitExceededException  if the deadline passed first
+     * @throws ServiceUnavailableException if every server failed to answer
+     * @throws CommunicationException      if no server could be reached
+     */
+    public TxtAnswer query(String name, Duration timeout) throws NamingException {
+        long deadline = timeout != null ? System.nanoTime() + timeout.toNanos() : 0;
+        DnsQueryEvent event = new DnsQueryEvent();
+        event.begin();
+        InetSocketAddress answered = null;
+        int rcode = -1;
+        TxtAnswer answer = null;
+        try {
+            IOException lastError = null;
+            boolean serverFailed = false;
+
+            for (int attempt = 0; attempt < attempts; attempt++) {
+                for (InetSocketAddress server : nameservers) {
+                    byte[] response;
+                    try {
+                        response = exchange(server, name, udpPayload, timeout, deadline, lastError);
+                        if (udpPayload > 0 && DnsWire.rcode(response) == DnsWire.RCODE_FORMERR) {
+                            // Server predates EDNS0; fall back to a plain query
+                            response = exchange(server, name, 0, timeout, deadline, lastError);
+                        }
+                    } catch (IOException e) {
+                        lastError = e;
+                        continue;
+                    }
+
+                    answered = server;
+                    rcode = DnsWire.rcode(response);
+                    if (rcode == DnsWire.RCODE_NXDOMAIN) {
+                        throw new NameNotFoundException("DNS name not found: " + name);
+                    }
+                    if (rcode != DnsWire.RCODE_NOERROR) {
+                        serverFailed = true;
+                        continue;
+                    }
+                    try {
+                        answer = parseAnswer(response);
+                        return answer;
+                    } catch (RuntimeException e) {
+                        lastError = new IOException("Malformed DNS response from " + server, e);
+                    }
+                }
+            }
+
+            if (timeout != null && deadline - System.nanoTime() <= 0) {
+                // The last attempt ran into the caller's deadline
+                TimeLimitExceededException e = new TimeLimitExceededException(
+                        "DNS query deadline passed for " + name);
+                e.setRootCause(lastError);
+                throw e;
+            }
+            if (serverFailed) {
+                throw new ServiceUnavailableException("DNS servers failed to answer for " + name);
+            }
+            CommunicationException e = new CommunicationException("DNS query failed for " + name);
+            e.setRootCause(lastError);
+            throw e;
+        } finally {
+            event.complete(name, answered, rcode, answer != null ? answer.records().size() : 0,
+                    answer != null ? answer.ttl() : -1);
+        }
+    }
+
+    /**
+     * Returns the time to wait for a response: the per-attempt timeout, capped
+     * at the time left before the deadline if there is one.
+     */
+    private int waitMillis(String name, Duration timeout, long deadline, IOException lastError)
+            throws TimeLimitExceededException {
+        if (timeout == null) {
+            return timeoutMillis;
+        }
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            TimeLimitExceededException e = new TimeLimitExceededException("DNS query deadline passed for " + name);
+            e.setRootCause(lastError);
+            throw e;
+        }
+        // Round up so a fraction of a millisecond is not an infinite timeout
+        return (int) Math.min(timeoutMillis, (remaining + 999_999) / 1_000_000L);
+    }
+
+    private byte[] exchange(InetSocketAddress server, String name, int payload, Duration timeout, long deadline,
+            IOException lastError) throws IOException, TimeLimitExceededException {
+        int id = MessageIds.next();
+        byte[] query = DnsWire.encodeQuery(id, name, DnsWire.TYPE_TXT, payload);
+
+        byte[] response = udpExchange(server, query, id, Math.max(payload, 512),
+                waitMillis(name, timeout, deadline, lastError));
+        if (DnsWire.isTruncated(response)) {
+            response = tcpExchange(server, query, id, waitMillis(name, timeout, deadline, lastError));
+        }
+        return response;
+    }
+
+    private byte[] udpExchange(InetSocketAddress server, byte[] query, int id, int bufferSize, int timeoutMillis)
+            throws IOException {
+        try (DatagramSocket socket = new DatagramSocket()) {
+            socket.setSoTimeout(timeoutMillis);
+            socket.connect(server);
+            socket.send(new DatagramPacket(query, query.length));
+
+            long deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+            byte[] buffer = new byte[bufferSize];
+            while (true) {
+                DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                socket.receive(packet);
+                if (isResponseTo(buffer, packet.getLength(), id)) {
+                    byte[] response = new byte[packet.getLength()];
+                    System.arraycopy(buffer, 0, response, 0, response.length);
+                    return response;
+                }
+
+                // Ignore stray datagrams, but never wait past the original timeout
+                int remaining = (int) ((deadline - System.nanoTime()) / 1_000_000L);
+                if (remaining <= 0) {
+                    throw new SocketTimeoutException("Timed out waiting for response from " + server);
+                }
+                socket.setSoTimeout(remaining);
+            }
+        }
+    }
+
+    private byte[] tcpExchange(InetSocketAddress server, byte[] query, int id, int timeoutMillis)
+            throws IOException {
+        try (Socket socket = new Socket()) {
+            socket.connect(server, timeoutMillis);
+            socket.setSoTimeout(timeoutMillis);
+            socket.setTcpNoDelay(true);
+
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeShort(query.length);
+            out.write(query);
+            out.flush();
+
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            byte[] response = new byte[in.readUnsignedShort()];
+            in.readFully(response);
+            if (!isResponseTo(response, response.length, id)) {
+                throw new IOException("Unexpected TCP response from " + server);
+            }
+            return response;
+        }
+    }
+
+    private static boolean isResponseTo(byte[] msg, int length, int id) {
+        return length >= DnsWire.HEADER_SIZE && DnsWire.readShort(msg, 0) == id && DnsWire.isResponse(msg);
+    }
+
+    /**
+     * Extracts the TXT records from a successful response. Records of other
+     * types (such as a CNAME chain leading to the TXT records) are skipped.
+     */
+    static TxtAnswer parseAnswer(byte[] msg) {
+        int questions = DnsWire.readShort(msg, 4);
+        int answers = DnsWire.readShort(msg, 6);
+        int authorities = DnsWire.readShort(msg, 8);
+
+        int pos = DnsWire.HEADER_SIZE;
+        for (int i = 0; i < questions; i++) {
+            pos = DnsWire.skipName(msg, pos) + 4;
+        }
+
+        List<String> records = new ArrayList<>(answers);
+        long ttl = -1;
+        for (int i = 0; i < answers + authorities; i++) {
+            pos = DnsWire.skipName(msg, pos);
+            int type = DnsWire.readShort(msg, pos);
+            int rrClass = DnsWire.readShort(msg, pos + 2);
+            long rrTtl = DnsWire.readInt(msg, pos + 4);
+            int rdlength = DnsWire.readShort(msg, pos + 8);
+            pos += 10;
+            if (pos + rdlength > msg.length) {
+                throw new IllegalArgumentException("Resource record overruns message");
+            }
+
+            if (i < answers && type == DnsWire.TYPE_TXT && rrClass == DnsWire.CLASS_IN) {
+                records.add(DnsWire.decodeTxtRdata(msg, pos, rdlength));
+                ttl = ttl < 0 ? rrTtl : Math.min(ttl, rrTtl);
+            } else if (i >= answers && records.isEmpty() && type == DnsWire.TYPE_SOA) {
+                // Negative answer: cache for min(SOA TTL, SOA MINIMUM) per RFC 2308
+                long minimum = DnsWire.readInt(msg, pos + rdlength - 4);
+                ttl = Math.min(rrTtl, minimum);
+            }
+            pos += rdlength;
+        }
+        return new TxtAnswer(records, ttl);
+    }
+}
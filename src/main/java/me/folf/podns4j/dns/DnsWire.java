@@ -0,0 +1,341 @@
+package me.folf.podns4j.dns;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Helpers for reading and writing DNS messages in wire format (RFC 1035).
+ */
+public final class DnsWire {
+    /**
+     * Size of the fixed DNS message header.
+     */
+    public static final int HEADER_SIZE = 12;
+
+    /**
+     * Resource record type for TXT records.
+     */
+    public static final int TYPE_TXT = 16;
+
+    /**
+     * Resource record type for SOA records.
+     */
+    public static final int TYPE_SOA = 6;
+
+    /**
+     * Pseudo resource record type for EDNS0 OPT records (RFC 6891).
+     */
+    public static final int TYPE_OPT = 41;
+
+    /**
+     * The Internet class.
+     */
+    public static final int CLASS_IN = 1;
+
+    /**
+     * Response code for a successful query.
+     */
+    public static final int RCODE_NOERROR = 0;
+
+    /**
+     * Response code for a malformed query.
+     */
+    public static final int RCODE_FORMERR = 1;
+
+    /**
+     * Response code for a server failure.
+     */
+    public static final int RCODE_SERVFAIL = 2;
+
+    /**
+     * Response code for a non-existent domain.
+     */
+    public static final int RCODE_NXDOMAIN = 3;
+
+    /**
+     * Maximum length of a single character-string.
+     */
+    public static final int MAX_CHARACTER_STRING = 255;
+
+    private static final int FLAG_QR = 0x8000;
+    private static final int FLAG_TC = 0x0200;
+    private static final int FLAG_RD = 0x0100;
+
+    private DnsWire() {
+    }
+
+    /**
+     * Encodes a recursive query for a single question.
+     *
+     * @param id          the message id
+     * @param name        the name to query
+     * @param type        the record type to query
+     * @param udpPayload  the EDNS0 UDP payload size to advertise, or 0 to send
+     *                    the query without an OPT record
+     * @return the encoded query
+     */
+    public static byte[] encodeQuery(int id, String name, int type, int udpPayload) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        writeShort(out, id);
+        writeShort(out, FLAG_RD);
+        writeShort(out, 1);
+        writeShort(out, 0);
+        writeShort(out, 0);
+        writeShort(out, udpPayload > 0 ? 1 : 0);
+        writeName(out, name);
+        writeShort(out, type);
+        writeShort(out, CLASS_IN);
+
+        if (udpPayload > 0) {
+            out.write(0); // root owner name
+            writeShort(out, TYPE_OPT);
+            writeShort(out, udpPayload);
+            writeInt(out, 0); // extended rcode, version and flags
+            writeShort(out, 0); // no options
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes a domain name as a sequence of uncompressed labels.
+     *
+     * @param out  the stream to write to
+     * @param name the name to write (a trailing dot is optional)
+     * @throws IllegalArgumentException if a label is empty or too long
+     */
+    public static void writeName(ByteArrayOutputStream out, String name) {
+        int start = 0;
+        int length = name.endsWith(".") ? name.length() - 1 : name.length();
+        while (start < length) {
+            int end = name.indexOf('.', start);
+            if (end == -1 || end > length) {
+                end = length;
+            }
+            byte[] label = name.substring(start, end).getBytes(StandardCharsets.US_ASCII);
+            if (label.length == 0 || label.length > 63) {
+                throw new IllegalArgumentException("Invalid label in domain name: " + name);
+            }
+            out.write(label.length);
+            out.write(label, 0, label.length);
+            start = end + 1;
+        }
+        out.write(0);
+    }
+
+    /**
+     * Returns the position just past the (possibly compressed) name at pos.
+     *
+     * @param msg the message
+     * @param pos the position of the name
+     * @return the position after the name
+     */
+    public static int skipName(byte[] msg, int pos) {
+        while (true) {
+            int len = msg[pos] & 0xff;
+            if ((len & 0xc0) == 0xc0) {
+                return pos + 2;
+            }
+            if (len == 0) {
+                return pos + 1;
+            }
+            pos += len + 1;
+        }
+    }
+
+    /**
+     * Reads the (possibly compressed) name at pos into a lowercase dotted string
+     * without a trailing dot.
+     *
+     * @param msg the message
+     * @param pos the position of the name
+     * @return the decoded name
+     * @throws IllegalArgumentException if the name is malformed
+     */
+    public static String readName(byte[] msg, int pos) {
+        StringBuilder sb = new StringBuilder();
+        int jumps = 0;
+        while (true) {
+            int len = msg[pos] & 0xff;
+            if ((len & 0xc0) == 0xc0) {
+                if (++jumps > 64) {
+                    throw new IllegalArgumentException("Compression loop in domain name");
+                }
+                pos = ((len & 0x3f) << 8) | (msg[pos + 1] & 0xff);
+                continue;
+            }
+            if (len == 0) {
+                return sb.toString();
+            }
+            if (sb.length() > 0) {
+                sb.append('.');
+            }
+            for (int i = 1; i <= len; i++) {
+                sb.append(Character.toLowerCase((char) (msg[pos + i] & 0xff)));
+            }
+            pos += len + 1;
+        }
+    }
+
+    /**
+     * Decodes TXT RDATA by concatenating its character-strings as UTF-8.
+     *
+     * @param msg    the message
+     * @param pos    the start of the RDATA
+     * @param length the RDATA length
+     * @return the decoded text
+     * @throws IllegalArgumentException if a character-string overruns the RDATA
+     */
+    public static String decodeTxtRdata(byte[] msg, int pos, int length) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length);
+        int end = pos + length;
+        while (pos < end) {
+            int len = msg[pos] & 0xff;
+            if (pos + 1 + len > end) {
+                throw new IllegalArgumentException("Character-string overruns TXT RDATA");
+            }
+            out.write(msg, pos + 1, len);
+            pos += len + 1;
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Encodes text as TXT RDATA, splitting it into character-strings of at most
+     * 255 bytes.
+     *
+     * @param text the text to encode
+     * @return the RDATA
+     */
+    public static byte[] encodeTxtRdata(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length + bytes.length / MAX_CHARACTER_STRING + 1);
+        int pos = 0;
+        do {
+            int len = Math.min(MAX_CHARACTER_STRING, bytes.length - pos);
+            out.write(len);
+            out.write(bytes, pos, len);
+            pos += len;
+        } while (pos < bytes.length);
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a TXT value in the presentation form produced by the JNDI DNS
+     * provider, where character-strings are separated by spaces and quoted with
+     * backslash escapes when they contain a space, quote or backslash.
+     *
+     * <p>
+     * The character-strings are concatenated without separators, and the bytes
+     * (which JNDI maps one-to-one onto characters) are decoded as UTF-8.
+     * </p>
+     *
+     * @param value the presentation form of the TXT record
+     * @return the decoded text
+     */
+    public static String decodePresentationTxt(String value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(value.length());
+        int i = 0;
+        int n = value.length();
+        while (i < n) {
+            char c = value.charAt(i);
+            if (c == ' ') {
+                i++;
+                continue;
+            }
+
+            boolean quoted = c == '"';
+            if (quoted) {
+                i++;
+            }
+            while (i < n) {
+                c = value.charAt(i);
+                if (quoted ? c == '"' : c == ' ') {
+                    break;
+                }
+                if (c == '\\' && i + 1 < n) {
+                    c = value.charAt(++i);
+                }
+                out.write(c);
+                i++;
+            }
+            if (quoted) {
+                i++; // closing quote
+            }
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads an unsigned 16-bit value.
+     *
+     * @param msg the message
+     * @param pos the position
+     * @return the value
+     */
+    public static int readShort(byte[] msg, int pos) {
+        return ((msg[pos] & 0xff) << 8) | (msg[pos + 1] & 0xff);
+    }
+
+    /**
+     * Reads an unsigned 32-bit value.
+     *
+     * @param msg the message
+     * @param pos the position
+     * @return the value
+     */
+    public static long readInt(byte[] msg, int pos) {
+        return ((long) readShort(msg, pos) << 16) | readShort(msg, pos + 2);
+    }
+
+    /**
+     * Writes a 16-bit value.
+     *
+     * @param out   the stream
+     * @param value the value
+     */
+    public static void writeShort(ByteArrayOutputStream out, int value) {
+        out.write((value >>> 8) & 0xff);
+        out.write(value & 0xff);
+    }
+
+    /**
+     * Writes a 32-bit value.
+     *
+     * @param out   the stream
+     * @param value the value
+     */
+    public static void writeInt(ByteArrayOutputStream out, long value) {
+        writeShort(out, (int) (value >>> 16));
+        writeShort(out, (int) value);
+    }
+
+    /**
+     * Returns true if the message is a response.
+     *
+     * @param msg the message
+     * @return true if the QR flag is set
+     */
+    public static boolean isResponse(byte[] msg) {
+        return (readShort(msg, 2) & FLAG_QR) != 0;
+    }
+
+    /**
+     * Returns true if the message was truncated.
+     *
+     * @param msg the message
+     * @return true if the TC flag is set
+     */
+    public static boolean isTruncated(byte[] msg) {
+        return (readShort(msg, 2) & FLAG_TC) != 0;
+    }
+
+    /**
+     * Returns the response code of the message.
+     *
+     * @param msg the message
+     * @return the rcode
+     */
+    public static int rcode(byte[] msg) {
+        return readShort(msg, 2) & 0x0f;
+    }
+}
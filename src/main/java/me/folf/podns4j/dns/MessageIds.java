@@ -0,0 +1,72 @@
+package me.folf.podns4j.dns;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.SecureRandom;
+
+/**
+ * Source of unpredictable DNS message IDs.
+ *
+ * <p>
+ * Reads the kernel's random device directly where it exists, which is what
+ * {@link SecureRandom} does on Unix, without the tens of milliseconds it takes
+ * to initialize the security providers in a fresh JVM. Falls back to
+ * {@link SecureRandom} elsewhere. Bytes are read in blocks, so most IDs cost
+ * no system call.
+ * </p>
+ */
+final class MessageIds {
+    private static final String URANDOM = "/dev/urandom";
+    private static final int BLOCK_SIZE = 256;
+
+    private static final byte[] block = new byte[BLOCK_SIZE];
+    private static int position = BLOCK_SIZE;
+    private static InputStream urandom;
+    private static SecureRandom fallback;
+
+    private MessageIds() {
+    }
+
+    /**
+     * Returns a random 16-bit message ID.
+     */
+    static synchronized int next() {
+        if (position == BLOCK_SIZE) {
+            refill();
+        }
+        int id = (block[position] & 0xff) << 8 | (block[position + 1] & 0xff);
+        position += 2;
+        return id;
+    }
+
+    private static void refill() {
+        position = 0;
+        if (fallback == null) {
+            try {
+                if (urandom == null) {
+                    urandom = new FileInputStream(URANDOM);
+                }
+                if (urandom.readNBytes(block, 0, BLOCK_SIZE) == BLOCK_SIZE) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not available; use the fallback from now on
+            }
+            closeUrandom();
+            fallback = new SecureRandom();
+        }
+        fallback.nextBytes(block);
+    }
+
+    private static void closeUrandom() {
+        if (urandom != null) {
+            try {
+                urandom.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+            urandom = null;
+        }
+    }
+}
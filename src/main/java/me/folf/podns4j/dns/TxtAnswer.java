@@ -0,0 +1,41 @@
+package me.folf.podns4j.dns;
+
+import me.folf.podns4j.StableHash;
+
+import java.util.List;
+
+/**
+ * The decoded TXT records returned for a name.
+ *
+ * @param records the decoded TXT values, one per resource record
+ * @param ttl     the smallest TTL of the records in seconds, or -1 if unknown
+ */
+public record TxtAnswer(List<String> records, long ttl) {
+    /**
+     * Validates and copies parameters.
+     *
+     * @param records the records
+     * @param ttl     the ttl
+     */
+    public TxtAnswer {
+        records = records != null ? List.copyOf(records) : List.of();
+    }
+
+    /**
+     * Returns a fingerprint of the records that does not depend on their
+     * order. Answers with the same records, in any order, have the same
+     * fingerprint; the TTL is not included.
+     *
+     * @return the fingerprint, never 0
+     */
+    public long fingerprint() {
+        // Summing per-record hashes ignores order but, unlike XOR, keeps
+        // duplicate records from cancelling out
+        long sum = 0;
+        for (int i = 0; i < records.size(); i++) {
+            sum += StableHash.hash(records.get(i));
+        }
+        long fingerprint = StableHash.mix(sum ^ records.size());
+        return fingerprint != 0 ? fingerprint : 1;
+    }
+}
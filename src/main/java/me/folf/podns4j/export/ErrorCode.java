@@ -0,0 +1,76 @@
+package me.folf.podns4j.export;
+
+import me.folf.podns4j.PronounParseException;
+
+import javax.naming.CommunicationException;
+import javax.naming.NamingException;
+import javax.naming.ServiceUnavailableException;
+import javax.naming.TimeLimitExceededException;
+
+/**
+ * Why a lookup failed, as stored in an export file.
+ */
+public enum ErrorCode {
+    /**
+     * The lookup succeeded.
+     */
+    NONE,
+
+    /**
+     * The records could not be parsed.
+     */
+    PARSE,
+
+    /**
+     * The domain was invalid.
+     */
+    INVALID_DOMAIN,
+
+    /**
+     * The nameservers could not be reached or did not answer in time.
+     */
+    COMMUNICATION,
+
+    /**
+     * The nameservers answered with a failure.
+     */
+    SERVER_FAILURE,
+
+    /**
+     * Some other DNS failure.
+     */
+    DNS,
+
+    /**
+     * Any other failure.
+     */
+    OTHER;
+
+    /**
+     * Classifies a lookup failure.
+     *
+     * @param error the failure, or null if the lookup succeeded
+     * @return the error code
+     */
+    public static ErrorCode of(Exception error) {
+        if (error == null) {
+            return NONE;
+        }
+        if (error instanceof PronounParseException) {
+            return PARSE;
+        }
+        if (error instanceof IllegalArgumentException) {
+            return INVALID_DOMAIN;
+        }
+        if (error instanceof CommunicationException || error instanceof TimeLimitExceededException) {
+            return COMMUNICATION;
+        }
+        if (error instanceof ServiceUnavailableException) {
+            return SERVER_FAILURE;
+        }
+        if (error instanceof NamingException) {
+            return DNS;
+        }
+        return OTHER;
+    }
+}
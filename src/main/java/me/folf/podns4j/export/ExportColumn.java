@@ -0,0 +1,38 @@
+package me.folf.podns4j.export;
+
+/**
+ * A column of a result export file. Readers only decode the columns they ask
+ * for.
+ */
+public enum ExportColumn {
+    /**
+     * The domain as given to the writer.
+     */
+    DOMAIN,
+
+    /**
+     * Whether there was a result, and its accepts-any and prefers-name flags.
+     */
+    FLAGS,
+
+    /**
+     * The pronoun sets as dictionary ids with tag bitmasks, and the preferred
+     * set.
+     */
+    SETS,
+
+    /**
+     * The TTL of the answer, in seconds.
+     */
+    TTL,
+
+    /**
+     * When the answer was fetched, in epoch milliseconds.
+     */
+    FETCHED_AT,
+
+    /**
+     * Why the lookup failed.
+     */
+    ERROR
+}
@@ -0,0 +1,103 @@
+package me.folf.podns4j.export;
+
+import me.folf.podns4j.model.PronounSet;
+import me.folf.podns4j.model.Tag;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Constants and encoding helpers shared by {@link ResultExportWriter} and
+ * {@link ResultExportReader}.
+ *
+ * <p>
+ * A file is a header (magic and version), a sequence of row groups, a footer
+ * and a trailer. Each row group holds its row count and the byte length of
+ * each column, in {@link ExportColumn} order, followed by the column data, so
+ * a reader can skip the columns it does not need. The footer holds the
+ * dictionary of pronoun sets (forms only, without tags) and the offset and
+ * row count of each row group; the trailer holds the footer offset and the
+ * magic again.
+ * </p>
+ *
+ * <p>
+ * Integers in columns are unsigned LEB128 varints, zigzag-encoded where they
+ * may be negative. Timestamps are stored as the difference from the previous
+ * row in the group.
+ * </p>
+ */
+final class ExportFormat {
+    static final int MAGIC = 0x50444e45; // "PDNE"
+    static final byte VERSION = 1;
+    static final int HEADER_SIZE = 5;
+    static final int TRAILER_SIZE = 12;
+    static final int GROUP_HEADER_SIZE = 4 + 4 * ExportColumn.values().length;
+
+    static final int FLAG_HAS_RESULT = 1;
+    static final int FLAG_ACCEPTS_ANY = 1 << 1;
+    static final int FLAG_PREFERS_NAME = 1 << 2;
+
+    private ExportFormat() {
+    }
+
+    static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7fL) != 0) {
+            out.write((int) (value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static void writeSignedVarint(ByteArrayOutputStream out, long value) {
+        writeVarint(out, (value << 1) ^ (value >> 63));
+    }
+
+    static long readVarint(ByteBuffer in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (!in.hasRemaining()) {
+                throw new IOException("Truncated column");
+            }
+            int b = in.get();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    static long readSignedVarint(ByteBuffer in) throws IOException {
+        long value = readVarint(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static int tagMask(Set<Tag> tags) {
+        int mask = 0;
+        for (Tag tag : tags) {
+            mask |= 1 << tag.ordinal();
+        }
+        return mask;
+    }
+
+    static Set<Tag> tags(int mask) {
+        Set<Tag> tags = EnumSet.noneOf(Tag.class);
+        for (Tag tag : Tag.values()) {
+            if ((mask & (1 << tag.ordinal())) != 0) {
+                tags.add(tag);
+            }
+        }
+        return tags;
+    }
+
+    static PronounSet withoutTags(PronounSet set) {
+        if (set.tags().isEmpty()) {
+            return set;
+        }
+        return new PronounSet(set.subject(), set.object(), set.possessiveDeterminer(), set.possessivePronoun(),
+                set.reflexive(), Set.of());
+    }
+}
@@ -0,0 +1,195 @@
+package me.folf.podns4j.export;
+
+import me.folf.podns4j.model.PronounResult;
+import me.folf.podns4j.model.PronounSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * One row of an export file, as seen by a {@link ResultExportReader} scan.
+ *
+ * <p>
+ * The same instance is reused for every row of a scan, so copy out anything
+ * that must outlive the visitor call. Reading a column that was not selected
+ * for the scan throws {@link IllegalStateException}.
+ * </p>
+ */
+public final class ExportRow {
+    private final ResultExportReader reader;
+    private final Set<ExportColumn> columns;
+
+    String domain;
+    int flags;
+    int setCount;
+    // The preferred set is stored after the listed sets when it is not one of them
+    int[] setIds = new int[8];
+    int[] tagMasks = new int[8];
+    int preferred;
+    long ttl;
+    long fetchedAt;
+    ErrorCode error;
+
+    ExportRow(ResultExportReader reader, Set<ExportColumn> columns) {
+        this.reader = reader;
+        this.columns = columns;
+    }
+
+    private void require(ExportColumn column) {
+        if (!columns.contains(column)) {
+            throw new IllegalStateException("Column not read: " + column);
+        }
+    }
+
+    /**
+     * Returns the domain.
+     *
+     * @return the domain, as given to the writer
+     */
+    public String domain() {
+        require(ExportColumn.DOMAIN);
+        return domain;
+    }
+
+    /**
+     * Returns true if the lookup found records.
+     *
+     * @return true if there is a result
+     */
+    public boolean hasResult() {
+        require(ExportColumn.FLAGS);
+        return (flags & ExportFormat.FLAG_HAS_RESULT) != 0;
+    }
+
+    /**
+     * Returns true if the result accepts any pronouns.
+     *
+     * @return true if a wildcard record was present
+     */
+    public boolean acceptsAny() {
+        require(ExportColumn.FLAGS);
+        return (flags & ExportFormat.FLAG_ACCEPTS_ANY) != 0;
+    }
+
+    /**
+     * Returns true if the result prefers to be referred to by name.
+     *
+     * @return true if a none record was present
+     */
+    public boolean prefersName() {
+        require(ExportColumn.FLAGS);
+        return (flags & ExportFormat.FLAG_PREFERS_NAME) != 0;
+    }
+
+    /**
+     * Returns the number of pronoun sets in the result.
+     *
+     * @return the number of sets, 0 if there is no result
+     */
+    public int setCount() {
+        require(ExportColumn.SETS);
+        return setCount;
+    }
+
+    /**
+     * Returns the dictionary id of a set, which identifies its forms
+     * regardless of tags.
+     *
+     * @param index the index of the set in the result
+     * @return the id, an index into {@link ResultExportReader#dictionary()}
+     */
+    public int setId(int index) {
+        require(ExportColumn.SETS);
+        return setIds[checkIndex(index)];
+    }
+
+    /**
+     * Returns the tag bitmask of a set, with bit {@code 1 << tag.ordinal()}
+     * set for each tag.
+     *
+     * @param index the index of the set in the result
+     * @return the tag bitmask
+     */
+    public int tagMask(int index) {
+        require(ExportColumn.SETS);
+        return tagMasks[checkIndex(index)];
+    }
+
+    /**
+     * Returns a set with its tags.
+     *
+     * @param index the index of the set in the result
+     * @return the pronoun set
+     */
+    public PronounSet set(int index) {
+        require(ExportColumn.SETS);
+        checkIndex(index);
+        return reader.set(setIds[index], tagMasks[index]);
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= setCount) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the preferred set.
+     *
+     * @return the preferred set, or null if there is none
+     */
+    public PronounSet preferred() {
+        require(ExportColumn.SETS);
+        return preferred == -1 ? null : reader.set(setIds[preferred], tagMasks[preferred]);
+    }
+
+    /**
+     * Rebuilds the full result. Requires the {@link ExportColumn#FLAGS} and
+     * {@link ExportColumn#SETS} columns.
+     *
+     * @return the pronoun result, or null if there is none
+     */
+    public PronounResult result() {
+        if (!hasResult()) {
+            return null;
+        }
+        require(ExportColumn.SETS);
+        List<PronounSet> sets = new ArrayList<>(setCount);
+        for (int i = 0; i < setCount; i++) {
+            sets.add(reader.set(setIds[i], tagMasks[i]));
+        }
+        return new PronounResult(preferred(), sets, acceptsAny(), prefersName());
+    }
+
+    /**
+     * Returns the TTL of the answer.
+     *
+     * @return the TTL in seconds, or -1 if unknown
+     */
+    public long ttl() {
+        require(ExportColumn.TTL);
+        return ttl;
+    }
+
+    /**
+     * Returns when the answer was fetched.
+     *
+     * @return the time in epoch milliseconds
+     */
+    public long fetchedAt() {
+        require(ExportColumn.FETCHED_AT);
+        return fetchedAt;
+    }
+
+    /**
+     * Returns why the lookup failed.
+     *
+     * @return the error code, {@link ErrorCode#NONE} if it succeeded
+     */
+    public ErrorCode error() {
+        require(ExportColumn.ERROR);
+        return error;
+    }
+}
@@ -0,0 +1,292 @@
+package me.folf.podns4j.export;
+
+import me.folf.podns4j.model.PronounSet;
+import me.folf.podns4j.model.Tag;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Reads files written by {@link ResultExportWriter}, decoding only the columns
+ * a scan asks for.
+ *
+ * <p>
+ * Unselected columns are skipped without being read from disk, so a scan of
+ * the flags column alone reads about one byte per row. Tagged pronoun sets are
+ * built once per distinct combination of forms and tags and shared between
+ * rows.
+ * </p>
+ *
+ * <p>
+ * Example usage:
+ * </p>
+ *
+ * <pre>
+ * try (ResultExportReader reader = new ResultExportReader(Path.of("crawl.pdne"))) {
+ *     long[] counts = new long[reader.dictionary().size()];
+ *     reader.scan(EnumSet.of(ExportColumn.SETS), row -&gt; {
+ *         for (int i = 0; i &lt; row.setCount(); i++) {
+ *             counts[row.setId(i)]++;
+ *         }
+ *     });
+ * }
+ * </pre>
+ */
+public final class ResultExportReader implements AutoCloseable {
+    private final FileChannel channel;
+    private final List<PronounSet> dictionary;
+    private final long[] groupOffsets;
+    private final int[] groupRows;
+    private final long rowCount;
+    private final PronounSet[] variants;
+
+    /**
+     * Opens an export file.
+     *
+     * @param file the file
+     * @throws IOException if the file cannot be read or is not an export file
+     */
+    public ResultExportReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < ExportFormat.HEADER_SIZE + ExportFormat.TRAILER_SIZE) {
+                throw new IOException("Not an export file: " + file);
+            }
+            ByteBuffer header = read(0, ExportFormat.HEADER_SIZE);
+            ByteBuffer trailer = read(size - ExportFormat.TRAILER_SIZE, ExportFormat.TRAILER_SIZE);
+            long footer = trailer.getLong();
+            if (header.getInt() != ExportFormat.MAGIC || trailer.getInt() != ExportFormat.MAGIC) {
+                throw new IOException("Not an export file: " + file);
+            }
+            if (header.get() != ExportFormat.VERSION) {
+                throw new IOException("Unsupported export file version: " + file);
+            }
+            if (footer < ExportFormat.HEADER_SIZE || footer > size - ExportFormat.TRAILER_SIZE) {
+                throw new IOException("Corrupt export file footer: " + file);
+            }
+
+            ByteBuffer footerBytes = read(footer, (int) (size - ExportFormat.TRAILER_SIZE - footer));
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+                    footerBytes.array(), 0, footerBytes.limit()));
+            int dictionarySize = in.readInt();
+            List<PronounSet> sets = new ArrayList<>(dictionarySize);
+            for (int i = 0; i < dictionarySize; i++) {
+                sets.add(new PronounSet(in.readUTF(), in.readUTF(), readNullable(in), readNullable(in),
+                        readNullable(in), Set.of()));
+            }
+            this.dictionary = List.copyOf(sets);
+            int groups = in.readInt();
+            this.groupOffsets = new long[groups];
+            this.groupRows = new int[groups];
+            long rows = 0;
+            for (int i = 0; i < groups; i++) {
+                groupOffsets[i] = in.readLong();
+                groupRows[i] = in.readInt();
+                rows += groupRows[i];
+            }
+            this.rowCount = rows;
+            this.variants = new PronounSet[dictionarySize << Tag.values().length];
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e instanceof IOException ? (IOException) e : new IOException("Corrupt export file: " + file, e);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        readFully(buffer, position);
+        return buffer.flip();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of export file");
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Returns the total number of rows.
+     *
+     * @return the number of rows
+     */
+    public long rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the number of row groups.
+     *
+     * @return the number of row groups
+     */
+    public int rowGroupCount() {
+        return groupRows.length;
+    }
+
+    /**
+     * Returns the distinct pronoun sets in the file, without tags, indexed by
+     * {@link ExportRow#setId(int)}.
+     *
+     * @return the dictionary
+     */
+    public List<PronounSet> dictionary() {
+        return dictionary;
+    }
+
+    PronounSet set(int id, int tagMask) {
+        int index = (id << Tag.values().length) | tagMask;
+        PronounSet set = variants[index];
+        if (set == null) {
+            PronounSet forms = dictionary.get(id);
+            set = tagMask == 0 ? forms : new PronounSet(forms.subject(), forms.object(),
+                    forms.possessiveDeterminer(), forms.possessivePronoun(), forms.reflexive(),
+                    ExportFormat.tags(tagMask));
+            variants[index] = set;
+        }
+        return set;
+    }
+
+    /**
+     * Visits every row in file order, decoding only the given columns.
+     *
+     * @param columns the columns to decode
+     * @param visitor receives each row; the row instance is reused
+     * @throws IOException if the file cannot be read or is corrupt
+     */
+    public void scan(Set<ExportColumn> columns, Consumer<ExportRow> visitor) throws IOException {
+        Objects.requireNonNull(visitor, "visitor cannot be null");
+        Set<ExportColumn> selected = columns.isEmpty() ? EnumSet.noneOf(ExportColumn.class) : EnumSet.copyOf(columns);
+        ExportColumn[] all = ExportColumn.values();
+        ExportRow row = new ExportRow(this, selected);
+        ByteBuffer[] data = new ByteBuffer[all.length];
+
+        for (int group = 0; group < groupRows.length; group++) {
+            ByteBuffer header = read(groupOffsets[group], ExportFormat.GROUP_HEADER_SIZE);
+            int rows = header.getInt();
+            if (rows != groupRows[group]) {
+                throw new IOException("Corrupt row group " + group);
+            }
+            long position = groupOffsets[group] + ExportFormat.GROUP_HEADER_SIZE;
+            for (ExportColumn column : all) {
+                int length = header.getInt();
+                if (selected.contains(column)) {
+                    ByteBuffer buffer = data[column.ordinal()];
+                    if (buffer == null || buffer.capacity() < length) {
+                        buffer = ByteBuffer.allocate(length);
+                        data[column.ordinal()] = buffer;
+                    }
+                    buffer.clear().limit(length);
+                    readFully(buffer, position);
+                    buffer.flip();
+                }
+                position += length;
+            }
+
+            row.fetchedAt = 0;
+            for (int i = 0; i < rows; i++) {
+                decode(row, data, selected);
+                visitor.accept(row);
+            }
+        }
+    }
+
+    private void decode(ExportRow row, ByteBuffer[] data, Set<ExportColumn> selected) throws IOException {
+        try {
+            if (selected.contains(ExportColumn.DOMAIN)) {
+                ByteBuffer in = data[ExportColumn.DOMAIN.ordinal()];
+                int length = (int) ExportFormat.readVarint(in);
+                row.domain = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+                in.position(in.position() + length);
+            }
+            if (selected.contains(ExportColumn.FLAGS)) {
+                row.flags = data[ExportColumn.FLAGS.ordinal()].get();
+            }
+            if (selected.contains(ExportColumn.SETS)) {
+                decodeSets(row, data[ExportColumn.SETS.ordinal()]);
+            }
+            if (selected.contains(ExportColumn.TTL)) {
+                row.ttl = ExportFormat.readSignedVarint(data[ExportColumn.TTL.ordinal()]);
+            }
+            if (selected.contains(ExportColumn.FETCHED_AT)) {
+                row.fetchedAt += ExportFormat.readSignedVarint(data[ExportColumn.FETCHED_AT.ordinal()]);
+            }
+            if (selected.contains(ExportColumn.ERROR)) {
+                int code = data[ExportColumn.ERROR.ordinal()].get();
+                ErrorCode[] codes = ErrorCode.values();
+                row.error = code >= 0 && code < codes.length ? codes[code] : ErrorCode.OTHER;
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt export file", e);
+        }
+    }
+
+    private void decodeSets(ExportRow row, ByteBuffer in) throws IOException {
+        int count = (int) ExportFormat.readVarint(in);
+        if (row.setIds.length < count + 1) {
+            row.setIds = new int[count + 1];
+            row.tagMasks = new int[count + 1];
+        }
+        for (int i = 0; i < count; i++) {
+            row.setIds[i] = readSetId(in);
+            row.tagMasks[i] = readTagMask(in);
+        }
+        row.setCount = count;
+
+        int preferred = (int) ExportFormat.readVarint(in);
+        if (preferred == count + 1) {
+            row.setIds[count] = readSetId(in);
+            row.tagMasks[count] = readTagMask(in);
+            row.preferred = count;
+        } else if (preferred <= count) {
+            row.preferred = preferred - 1;
+        } else {
+            throw new IOException("Corrupt preferred set index: " + preferred);
+        }
+    }
+
+    private int readSetId(ByteBuffer in) throws IOException {
+        long id = ExportFormat.readVarint(in);
+        if (id >= dictionary.size()) {
+            throw new IOException("Corrupt pronoun set id: " + id);
+        }
+        return (int) id;
+    }
+
+    private static int readTagMask(ByteBuffer in) throws IOException {
+        int mask = in.get() & 0xff;
+        if (mask >= 1 << Tag.values().length) {
+            throw new IOException("Corrupt tag mask: " + mask);
+        }
+        return mask;
+    }
+
+    /**
+     * Closes the file.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,269 @@
+package me.folf.podns4j.export;
+
+import me.folf.podns4j.cache.CacheEntry;
+import me.folf.podns4j.crawl.CrawlResult;
+import me.folf.podns4j.model.PronounResult;
+import me.folf.podns4j.model.PronounSet;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Streams lookup outcomes to a compact columnar file, read back with
+ * {@link ResultExportReader}.
+ *
+ * <p>
+ * Rows are buffered into row groups of {@code rowGroupSize} rows, with each
+ * column encoded separately: pronoun sets are stored as ids into a dictionary
+ * of distinct sets plus a tag bitmask, flags and error codes as one byte each,
+ * and TTLs and timestamps as varints. Memory use is bounded by the row group
+ * size and the dictionary, so files of any length can be written.
+ * </p>
+ *
+ * <p>
+ * The file is only readable once the writer is closed. Writers are not
+ * thread-safe.
+ * </p>
+ *
+ * <p>
+ * Example usage:
+ * </p>
+ *
+ * <pre>
+ * try (ResultExportWriter writer = new ResultExportWriter(Path.of("crawl.pdne"))) {
+ *     scheduler.crawl(domains, result -&gt; {
+ *         try {
+ *             writer.write(result);
+ *         } catch (IOException e) {
+ *             throw new UncheckedIOException(e);
+ *         }
+ *     });
+ * }
+ * </pre>
+ */
+public final class ResultExportWriter implements AutoCloseable {
+    /**
+     * Default number of rows per row group.
+     */
+    public static final int DEFAULT_ROW_GROUP_SIZE = 65_536;
+
+    private final DataOutputStream out;
+    private final int rowGroupSize;
+    private final ByteArrayOutputStream[] columns = new ByteArrayOutputStream[ExportColumn.values().length];
+    private final Map<PronounSet, Integer> dictionary = new HashMap<>();
+    private final List<PronounSet> dictionaryOrder = new ArrayList<>();
+    private final List<long[]> groups = new ArrayList<>();
+    private long offset;
+    private int rows;
+    private long previousFetchedAt;
+    private boolean closed;
+
+    /**
+     * Creates a writer with the default row group size, replacing any existing
+     * file.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be created
+     */
+    public ResultExportWriter(Path file) throws IOException {
+        this(file, DEFAULT_ROW_GROUP_SIZE);
+    }
+
+    /**
+     * Creates a writer, replacing any existing file.
+     *
+     * @param file         the file to write
+     * @param rowGroupSize the number of rows per row group
+     * @throws IOException if the file cannot be created
+     */
+    public ResultExportWriter(Path file, int rowGroupSize) throws IOException {
+        if (rowGroupSize <= 0) {
+            throw new IllegalArgumentException("Row group size must be positive");
+        }
+        this.rowGroupSize = rowGroupSize;
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new ByteArrayOutputStream();
+        }
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+        out.writeInt(ExportFormat.MAGIC);
+        out.writeByte(ExportFormat.VERSION);
+        offset = ExportFormat.HEADER_SIZE;
+    }
+
+    /**
+     * Writes the outcome of a crawl lookup, timestamped now with an unknown
+     * TTL.
+     *
+     * @param result the crawl result
+     * @throws IOException if a row group cannot be written
+     */
+    public void write(CrawlResult result) throws IOException {
+        write(result.domain(), result.result(), System.currentTimeMillis(), -1, ErrorCode.of(result.error()));
+    }
+
+    /**
+     * Writes a successful lookup.
+     *
+     * @param domain the domain
+     * @param entry  the lookup entry; its TTL is the time from fetch to expiry
+     * @throws IOException if a row group cannot be written
+     */
+    public void write(String domain, CacheEntry entry) throws IOException {
+        write(domain, entry.result(), entry.fetchedAt(), (entry.expiresAt() - entry.fetchedAt()) / 1000,
+                ErrorCode.NONE);
+    }
+
+    /**
+     * Writes a lookup outcome.
+     *
+     * @param domain    the domain
+     * @param result    the pronoun result, or null if there were no records or
+     *                  the lookup failed
+     * @param fetchedAt when the answer was fetched, in epoch milliseconds
+     * @param ttl       the TTL of the answer in seconds, or -1 if unknown
+     * @param error     why the lookup failed, or {@link ErrorCode#NONE}
+     * @throws IOException if a row group cannot be written
+     */
+    public void write(String domain, PronounResult result, long fetchedAt, long ttl, ErrorCode error)
+            throws IOException {
+        Objects.requireNonNull(domain, "domain cannot be null");
+        Objects.requireNonNull(error, "error cannot be null");
+        if (closed) {
+            throw new IOException("Writer is closed");
+        }
+
+        byte[] name = domain.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream domains = columns[ExportColumn.DOMAIN.ordinal()];
+        ExportFormat.writeVarint(domains, name.length);
+        domains.write(name, 0, name.length);
+
+        columns[ExportColumn.FLAGS.ordinal()].write(result == null ? 0
+                : ExportFormat.FLAG_HAS_RESULT
+                        | (result.acceptsAny() ? ExportFormat.FLAG_ACCEPTS_ANY : 0)
+                        | (result.prefersName() ? ExportFormat.FLAG_PREFERS_NAME : 0));
+
+        ByteArrayOutputStream sets = columns[ExportColumn.SETS.ordinal()];
+        if (result == null) {
+            ExportFormat.writeVarint(sets, 0);
+            ExportFormat.writeVarint(sets, 0);
+        } else {
+            List<PronounSet> all = result.allSets();
+            ExportFormat.writeVarint(sets, all.size());
+            for (PronounSet set : all) {
+                writeSet(sets, set);
+            }
+            // 0 for none, 1 + index for a listed set, or size + 1 followed by the set
+            PronounSet preferred = result.preferred();
+            int index = preferred == null ? -1 : all.indexOf(preferred);
+            if (preferred == null) {
+                ExportFormat.writeVarint(sets, 0);
+            } else if (index >= 0) {
+                ExportFormat.writeVarint(sets, index + 1);
+            } else {
+                ExportFormat.writeVarint(sets, all.size() + 1);
+                writeSet(sets, preferred);
+            }
+        }
+
+        ExportFormat.writeSignedVarint(columns[ExportColumn.TTL.ordinal()], ttl);
+        ExportFormat.writeSignedVarint(columns[ExportColumn.FETCHED_AT.ordinal()], fetchedAt - previousFetchedAt);
+        previousFetchedAt = fetchedAt;
+        columns[ExportColumn.ERROR.ordinal()].write(error.ordinal());
+
+        if (++rows == rowGroupSize) {
+            flushGroup();
+        }
+    }
+
+    private void writeSet(ByteArrayOutputStream sets, PronounSet set) {
+        PronounSet forms = ExportFormat.withoutTags(set);
+        Integer id = dictionary.get(forms);
+        if (id == null) {
+            id = dictionaryOrder.size();
+            dictionary.put(forms, id);
+            dictionaryOrder.add(forms);
+        }
+        ExportFormat.writeVarint(sets, id);
+        sets.write(ExportFormat.tagMask(set.tags()));
+    }
+
+    private void flushGroup() throws IOException {
+        if (rows == 0) {
+            return;
+        }
+        groups.add(new long[] { offset, rows });
+        out.writeInt(rows);
+        long length = ExportFormat.GROUP_HEADER_SIZE;
+        for (ByteArrayOutputStream column : columns) {
+            out.writeInt(column.size());
+            length += column.size();
+        }
+        for (ByteArrayOutputStream column : columns) {
+            column.writeTo(out);
+            column.reset();
+        }
+        offset += length;
+        rows = 0;
+        previousFetchedAt = 0;
+    }
+
+    /**
+     * Returns the number of distinct pronoun sets written so far.
+     *
+     * @return the dictionary size
+     */
+    public int dictionarySize() {
+        return dictionaryOrder.size();
+    }
+
+    /**
+     * Writes the last row group and the footer, and closes the file.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flushGroup();
+            long footer = offset;
+            out.writeInt(dictionaryOrder.size());
+            for (PronounSet set : dictionaryOrder) {
+                out.writeUTF(set.subject());
+                out.writeUTF(set.object());
+                writeNullable(set.possessiveDeterminer());
+                writeNullable(set.possessivePronoun());
+                writeNullable(set.reflexive());
+            }
+            out.writeInt(groups.size());
+            for (long[] group : groups) {
+                out.writeLong(group[0]);
+                out.writeInt((int) group[1]);
+            }
+            out.writeLong(footer);
+            out.writeInt(ExportFormat.MAGIC);
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeNullable(String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package me.folf.podns4j.http;
+
+import me.folf.podns4j.model.PronounResult;
+import me.folf.podns4j.model.PronounSet;
+import me.folf.podns4j.model.Tag;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Minimal JSON encoding of lookup results and decoding of batch requests.
+ */
+final class Json {
+    private Json() {
+    }
+
+    /**
+     * Appends a JSON string literal.
+     */
+    static StringBuilder string(StringBuilder sb, String value) {
+        if (value == null) {
+            return sb.append("null");
+        }
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"');
+    }
+
+    /**
+     * Appends a pronoun result as a JSON object, or null.
+     */
+    static StringBuilder result(StringBuilder sb, PronounResult result) {
+        if (result == null) {
+            return sb.append("null");
+        }
+        sb.append("{\"preferred\":");
+        set(sb, result.preferred());
+        sb.append(",\"sets\":[");
+        for (int i = 0; i < result.allSets().size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            set(sb, result.allSets().get(i));
+        }
+        return sb.append("],\"acceptsAny\":").append(result.acceptsAny())
+                .append(",\"prefersName\":").append(result.prefersName())
+                .append('}');
+    }
+
+    private static void set(StringBuilder sb, PronounSet set) {
+        if (set == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append("{\"subject\":");
+        string(sb, set.subject()).append(",\"object\":");
+        string(sb, set.object()).append(",\"possessiveDeterminer\":");
+        string(sb, set.possessiveDeterminer()).append(",\"possessivePronoun\":");
+        string(sb, set.possessivePronoun()).append(",\"reflexive\":");
+        string(sb, set.reflexive()).append(",\"plural\":").append(set.isPlural()).append(",\"tags\":[");
+        boolean first = true;
+        for (Tag tag : Tag.values()) {
+            if (set.hasTag(tag)) {
+                if (!first) {
+                    sb.append(',');
+                }
+                string(sb, tag.name().toLowerCase(Locale.ROOT));
+                first = false;
+            }
+        }
+        sb.append("]}");
+    }
+
+    /**
+     * Parses a JSON array of strings.
+     *
+     * @throws IllegalArgumentException if the input is not an array of strings
+     */
+    static List<String> parseStringArray(String json) {
+        List<String> values = new ArrayList<>();
+        int[] pos = { skipWhitespace(json, 0) };
+        expect(json, pos, '[');
+        pos[0] = skipWhitespace(json, pos[0]);
+        if (pos[0] < json.length() && json.charAt(pos[0]) == ']') {
+            pos[0]++;
+        } else {
+            while (true) {
+                pos[0] = skipWhitespace(json, pos[0]);
+                values.add(parseString(json, pos));
+                pos[0] = skipWhitespace(json, pos[0]);
+                if (pos[0] < json.length() && json.charAt(pos[0]) == ',') {
+                    pos[0]++;
+                    continue;
+                }
+                expect(json, pos, ']');
+                break;
+            }
+        }
+        if (skipWhitespace(json, pos[0]) != json.length()) {
+            throw new IllegalArgumentException("Unexpected content after JSON array");
+        }
+        return values;
+    }
+
+    private static String parseString(String json, int[] pos) {
+        expect(json, pos, '"');
+        StringBuilder sb = new StringBuilder();
+        int i = pos[0];
+        while (i < json.length()) {
+            char c = json.charAt(i++);
+            if (c == '"') {
+                pos[0] = i;
+                return sb.toString();
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (i >= json.length()) {
+                break;
+            }
+            char escape = json.charAt(i++);
+            switch (escape) {
+                case '"', '\\', '/' -> sb.append(escape);
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                case 't' -> sb.append('\t');
+                case 'u' -> {
+                    if (i + 4 > json.length()) {
+                        throw new IllegalArgumentException("Truncated unicode escape");
+                    }
+                    sb.append((char) Integer.parseInt(json.substring(i, i + 4), 16));
+                    i += 4;
+                }
+                default -> throw new IllegalArgumentException("Invalid escape: \\" + escape);
+            }
+        }
+        throw new IllegalArgumentException("Unterminated JSON string");
+    }
+
+    private static void expect(String json, int[] pos, char c) {
+        if (pos[0] >= json.length() || json.charAt(pos[0]) != c) {
+            throw new IllegalArgumentException("Expected '" + c + "' at index " + pos[0]);
+        }
+        pos[0]++;
+    }
+
+    private static int skipWhitespace(String json, int pos) {
+        while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+}
@@ -0,0 +1,423 @@
+package me.folf.podns4j.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import me.folf.podns4j.DomainNormalizer;
+import me.folf.podns4j.PoDNS4J;
+import me.folf.podns4j.PronounDnsResolver;
+import me.folf.podns4j.PronounParseException;
+import me.folf.podns4j.StableHash;
+import me.folf.podns4j.cache.CacheEntry;
+import me.folf.podns4j.cache.PronounCache;
+
+import javax.naming.NamingException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HTTP sidecar exposing {@link PoDNS4J} lookups as JSON.
+ *
+ * <p>
+ * Endpoints:
+ * </p>
+ * <ul>
+ * <li>{@code GET /lookup?domain=example.com}: a single lookup. Responses carry
+ * {@code Cache-Control} derived from the remaining record TTL and an
+ * {@code ETag}, and honour {@code If-None-Match}.</li>
+ * <li>{@code POST /batch} with a JSON array of domains: up to
+ * {@value #MAX_BATCH_SIZE} lookups, resolved concurrently.</li>
+ * <li>{@code GET /metrics}: counters in the Prometheus text format.</li>
+ * </ul>
+ *
+ * <p>
+ * Concurrent lookups of the same domain share a single resolution, and all
+ * requests share the instance's cache, so one sidecar per node collapses
+ * duplicate DNS traffic from every service on it. Requests run on virtual
+ * threads when the runtime supports them, and otherwise on a fixed pool of
+ * {@value #REQUEST_THREADS} threads. Batch lookups always run on a separate
+ * pool of {@value #BATCH_THREADS} threads, so large or concurrent batches
+ * queue instead of starting a thread per domain.
+ * </p>
+ */
+public final class PronounHttpServer implements AutoCloseable {
+    /**
+     * Maximum number of domains in a batch request.
+     */
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    /**
+     * Number of request threads when virtual threads are unavailable.
+     */
+    public static final int REQUEST_THREADS = 64;
+
+    /**
+     * Number of threads resolving the domains of batch requests.
+     */
+    public static final int BATCH_THREADS = 32;
+
+    private static final int MAX_BODY_BYTES = 256 * 1024;
+
+    private final PoDNS4J podns;
+    private final InetSocketAddress bindAddress;
+    private final ConcurrentMap<String, CompletableFuture<CacheEntry>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder lookupRequests = new LongAdder();
+    private final LongAdder batchRequests = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder lookupErrors = new LongAdder();
+    private final LongAdder lookupNanos = new LongAdder();
+    private HttpServer server;
+    private ExecutorService executor;
+    private ExecutorService batchExecutor;
+
+    /**
+     * Creates a sidecar. Call {@link #start()} to begin serving.
+     *
+     * @param podns       the instance to serve lookups from; it should have a
+     *                    cache so that responses can be cached downstream
+     * @param bindAddress the address to listen on (port 0 picks a free port)
+     */
+    public PronounHttpServer(PoDNS4J podns, InetSocketAddress bindAddress) {
+        this.podns = Objects.requireNonNull(podns, "podns cannot be null");
+        this.bindAddress = Objects.requireNonNull(bindAddress, "bindAddress cannot be null");
+    }
+
+    /**
+     * Binds the server and starts serving.
+     *
+     * @throws IOException if the address cannot be bound
+     */
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Server already started");
+        }
+        executor = newExecutor();
+        batchExecutor = Executors.newFixedThreadPool(BATCH_THREADS, daemonThreads("podns4j-http-batch"));
+        server = HttpServer.create(bindAddress, 0);
+        server.setExecutor(executor);
+        server.createContext("/lookup", exchange -> handle(exchange, "GET", this::lookup));
+        server.createContext("/batch", exchange -> handle(exchange, "POST", this::batch));
+        server.createContext("/metrics", exchange -> handle(exchange, "GET", this::metrics));
+        server.start();
+    }
+
+    /**
+     * Returns the address the server is listening on.
+     *
+     * @return the bound address
+     */
+    public InetSocketAddress address() {
+        if (server == null) {
+            throw new IllegalStateException("Server not started");
+        }
+        return server.getAddress();
+    }
+
+    private static ExecutorService newExecutor() {
+        try {
+            // Java 21+: one virtual thread per request
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // Java 17: a bounded pool, since platform threads are expensive
+            return Executors.newFixedThreadPool(REQUEST_THREADS, daemonThreads("podns4j-http"));
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    private static void handle(HttpExchange exchange, String method, Handler handler) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals(method)) {
+                exchange.getResponseHeaders().set("Allow", method);
+                sendJson(exchange, 405, error("Method not allowed"));
+                return;
+            }
+            handler.handle(exchange);
+        }
+    }
+
+    private void lookup(HttpExchange exchange) throws IOException {
+        lookupRequests.increment();
+        String domain = queryParameter(exchange.getRequestURI(), "domain");
+        if (domain == null) {
+            sendJson(exchange, 400, error("Missing domain parameter"));
+            return;
+        }
+
+        CacheEntry entry;
+        try {
+            entry = resolve(domain);
+        } catch (IllegalArgumentException e) {
+            sendJson(exchange, 400, error(e.getMessage()));
+            return;
+        } catch (PronounParseException e) {
+            sendJson(exchange, 422, error(e.getMessage()));
+            return;
+        } catch (NamingException e) {
+            sendJson(exchange, 502, error("DNS lookup failed: " + e.getMessage()));
+            return;
+        }
+
+        StringBuilder body = new StringBuilder(256).append("{\"domain\":");
+        Json.string(body, domain).append(",\"result\":");
+        Json.result(body, entry.result()).append('}');
+        String json = body.toString();
+
+        String etag = etag(json);
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.getResponseHeaders().set("Cache-Control", cacheControl(entry));
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            notModified.increment();
+            // Drain the request first, or the server closes the connection without telling the client
+            exchange.getRequestBody().close();
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        sendJson(exchange, 200, json);
+    }
+
+    private void batch(HttpExchange exchange) throws IOException {
+        batchRequests.increment();
+        List<String> domains;
+        try {
+            domains = Json.parseStringArray(readBody(exchange));
+        } catch (IllegalArgumentException e) {
+            sendJson(exchange, 400, error("Expected a JSON array of domains: " + e.getMessage()));
+            return;
+        }
+        if (domains.size() > MAX_BATCH_SIZE) {
+            sendJson(exchange, 413, error("At most " + MAX_BATCH_SIZE + " domains per batch"));
+            return;
+        }
+
+        List<CompletableFuture<CacheEntry>> futures = new ArrayList<>(domains.size());
+        for (String domain : domains) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return resolve(domain);
+                } catch (PronounParseException | NamingException e) {
+                    throw new LookupFailure(e);
+                }
+            }, batchExecutor));
+        }
+
+        long now = podns.cache() != null ? podns.cache().clock().millis() : System.currentTimeMillis();
+        long maxAge = Long.MAX_VALUE;
+        StringBuilder body = new StringBuilder(128 * domains.size() + 2).append('[');
+        for (int i = 0; i < domains.size(); i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append("{\"domain\":");
+            Json.string(body, domains.get(i));
+            try {
+                CacheEntry entry = futures.get(i).join();
+                body.append(",\"result\":");
+                Json.result(body, entry.result());
+                maxAge = Math.min(maxAge, podns.cache() != null ? entry.remainingSeconds(now) : 0);
+            } catch (RuntimeException e) {
+                Throwable cause = e.getCause() instanceof LookupFailure ? e.getCause().getCause() : e.getCause();
+                body.append(",\"error\":");
+                Json.string(body, cause != null ? cause.getMessage() : e.getMessage());
+                maxAge = 0;
+            }
+            body.append('}');
+        }
+        body.append(']');
+
+        exchange.getResponseHeaders().set("Cache-Control",
+                maxAge > 0 && maxAge != Long.MAX_VALUE ? "max-age=" + maxAge : "no-cache");
+        sendJson(exchange, 200, body.toString());
+    }
+
+    private static final class LookupFailure extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private LookupFailure(Exception cause) {
+            super(cause);
+        }
+    }
+
+    private void metrics(HttpExchange exchange) throws IOException {
+        StringBuilder sb = new StringBuilder(1024);
+        counter(sb, "podns4j_http_requests_total{endpoint=\"lookup\"}", lookupRequests.sum());
+        counter(sb, "podns4j_http_requests_total{endpoint=\"batch\"}", batchRequests.sum());
+        counter(sb, "podns4j_http_not_modified_total", notModified.sum());
+        counter(sb, "podns4j_lookups_total", lookups.sum());
+        counter(sb, "podns4j_lookups_coalesced_total", coalesced.sum());
+        counter(sb, "podns4j_lookup_errors_total", lookupErrors.sum());
+        sb.append("podns4j_lookup_duration_seconds_sum ").append(lookupNanos.sum() / 1e9).append('\n');
+        counter(sb, "podns4j_lookup_duration_seconds_count", lookups.sum());
+
+        PronounCache cache = podns.cache();
+        if (cache != null) {
+            counter(sb, "podns4j_cache_hits_total", cache.hits());
+            counter(sb, "podns4j_cache_misses_total", cache.misses());
+            counter(sb, "podns4j_cache_evictions_total", cache.evictions());
+            counter(sb, "podns4j_cache_entries", cache.size());
+        }
+
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void counter(StringBuilder sb, String name, long value) {
+        sb.append(name).append(' ').append(value).append('\n');
+    }
+
+    /**
+     * Looks up a domain, sharing the resolution with concurrent requests for
+     * the same name.
+     */
+    private CacheEntry resolve(String domain) throws PronounParseException, NamingException {
+        String name = DomainNormalizer.normalize(domain);
+        CompletableFuture<CacheEntry> future = new CompletableFuture<>();
+        CompletableFuture<CacheEntry> existing = inFlight.putIfAbsent(name, future);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+
+        long start = System.nanoTime();
+        try {
+            future.complete(podns.lookupEntry(domain));
+        } catch (PronounParseException | NamingException | RuntimeException e) {
+            lookupErrors.increment();
+            future.completeExceptionally(e);
+        } finally {
+            inFlight.remove(name, future);
+            lookups.increment();
+            lookupNanos.add(System.nanoTime() - start);
+        }
+        return await(future);
+    }
+
+    private static CacheEntry await(CompletableFuture<CacheEntry> future)
+            throws PronounParseException, NamingException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for lookup", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof PronounParseException) {
+                throw (PronounParseException) cause;
+            }
+            if (cause instanceof NamingException) {
+                throw (NamingException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private String cacheControl(CacheEntry entry) {
+        PronounCache cache = podns.cache();
+        long maxAge = cache != null ? entry.remainingSeconds(cache.clock().millis()) : 0;
+        return maxAge > 0 ? "max-age=" + maxAge : "no-cache";
+    }
+
+    private static String etag(String body) {
+        // Collisions only cost a spurious 200
+        return "\"" + Long.toHexString(StableHash.fnv1a(body)) + "\"";
+    }
+
+    private static String error(String message) {
+        StringBuilder sb = new StringBuilder("{\"error\":");
+        return Json.string(sb, message).append('}').toString();
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES) {
+                throw new IllegalArgumentException("Request body too large");
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String queryParameter(URI uri, String name) {
+        String query = uri.getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq == -1 ? pair : pair.substring(0, eq);
+            if (URLDecoder.decode(key, StandardCharsets.UTF_8).equals(name)) {
+                return eq == -1 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stops the server, waiting briefly for in-flight requests.
+     */
+    @Override
+    public synchronized void close() {
+        if (server != null) {
+            server.stop(1);
+            executor.shutdownNow();
+            batchExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs a sidecar with a default cache, querying the system's nameservers.
+     *
+     * @param args optionally the port to listen on (default 8053)
+     * @throws IOException if the port cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8053;
+        PoDNS4J podns = new PoDNS4J(new PronounDnsResolver(), new PronounCache(), null);
+        PronounHttpServer server = new PronounHttpServer(podns, new InetSocketAddress(port));
+        server.start();
+        System.out.println("Serving pronoun lookups on " + server.address());
+    }
+}
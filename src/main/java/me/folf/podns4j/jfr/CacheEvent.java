@@ -0,0 +1,63 @@
+package me.folf.podns4j.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for a lookup cache read or write.
+ */
+@Name("me.folf.podns4j.Cache")
+@Label("Pronoun Cache")
+@Category({ "PoDNS4J", "Cache" })
+@Description("A read or write of the lookup cache")
+@StackTrace(false)
+public final class CacheEvent extends Event {
+    /**
+     * A read answered from the local cache.
+     */
+    public static final String HIT = "hit";
+
+    /**
+     * A read answered from the shared store.
+     */
+    public static final String SHARED_HIT = "shared hit";
+
+    /**
+     * A read that found no unexpired entry.
+     */
+    public static final String MISS = "miss";
+
+    /**
+     * A write for a name with no previous entry.
+     */
+    public static final String STORE = "store";
+
+    /**
+     * A write replacing a previous entry.
+     */
+    public static final String REFRESH = "refresh";
+
+    @Label("Name")
+    private String name;
+
+    @Label("Operation")
+    private String operation;
+
+    /**
+     * Fills in the event and commits it if enabled.
+     *
+     * @param name      the normalized domain
+     * @param operation the operation, one of the constants of this class
+     */
+    public void complete(String name, String operation) {
+        if (shouldCommit()) {
+            this.name = name;
+            this.operation = operation;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package me.folf.podns4j.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event for one DNS TXT query, covering every server and
+ * attempt tried.
+ *
+ * <p>
+ * Emitted as:
+ * </p>
+ *
+ * <pre>
+ * DnsQueryEvent event = new DnsQueryEvent();
+ * event.begin();
+ * ...
+ * event.complete(name, server, rcode, records, ttl);
+ * </pre>
+ *
+ * <p>
+ * When the event is not enabled, {@link #complete} returns immediately and
+ * the JIT removes the allocation.
+ * </p>
+ */
+@Name("me.folf.podns4j.DnsQuery")
+@Label("DNS Query")
+@Category({ "PoDNS4J", "DNS" })
+@Description("A DNS TXT query for pronoun records")
+@StackTrace(false)
+public final class DnsQueryEvent extends Event {
+    @Label("Name")
+    private String name;
+
+    @Label("Server")
+    @Description("The server that answered last, or the resolver used")
+    private String server;
+
+    @Label("Response Code")
+    @Description("The DNS response code, or -1 if no server answered")
+    private int rcode;
+
+    @Label("Records")
+    private int records;
+
+    @Label("TTL")
+    @Timespan(Timespan.SECONDS)
+    @Description("The TTL of the answer, or -1 if unknown")
+    private long ttl;
+
+    /**
+     * Fills in the event and commits it if enabled.
+     *
+     * @param name    the queried name
+     * @param server  the server that answered last, or null
+     * @param rcode   the DNS response code, or -1 if no server answered
+     * @param records the number of TXT records returned
+     * @param ttl     the TTL of the answer in seconds, or -1 if unknown
+     */
+    public void complete(String name, Object server, int rcode, int records, long ttl) {
+        if (shouldCommit()) {
+            this.name = name;
+            this.server = server != null ? server.toString() : null;
+            this.rcode = rcode;
+            this.records = records;
+            this.ttl = ttl;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package me.folf.podns4j.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for parsing and validating the records of one domain.
+ */
+@Name("me.folf.podns4j.Parse")
+@Label("Pronoun Parse")
+@Category({ "PoDNS4J", "Parsing" })
+@Description("Parsing and validating the pronoun records of a domain")
+@StackTrace(false)
+public final class PronounParseEvent extends Event {
+    @Label("Records")
+    private int records;
+
+    @Label("Succeeded")
+    private boolean succeeded;
+
+    @Label("Error")
+    @Description("Why parsing failed, or null if it succeeded")
+    private String error;
+
+    /**
+     * Fills in the event and commits it if enabled.
+     *
+     * @param records the number of records parsed
+     * @param error   why parsing failed, or null if it succeeded
+     */
+    public void complete(int records, String error) {
+        if (shouldCommit()) {
+            this.records = records;
+            this.succeeded = error == null;
+            this.error = error;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package me.folf.podns4j.override;
+
+import me.folf.podns4j.DomainNormalizer;
+import me.folf.podns4j.PronounAliases;
+import me.folf.podns4j.PronounParseException;
+import me.folf.podns4j.PronounRecordParser;
+import me.folf.podns4j.cache.CacheEntry;
+import me.folf.podns4j.model.PronounResult;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pinned pronoun answers read from a file, consulted before the cache and DNS.
+ *
+ * <p>
+ * Each line of the file gives a domain and one TXT record for it; a domain may
+ * appear on several lines to give several records, and a domain on its own
+ * overrides it to have no records. Blank lines and lines starting with
+ * {@code #} are ignored:
+ * </p>
+ *
+ * <pre>
+ * # Pinned while the zone is being migrated
+ * example.com she/her;preferred
+ * example.com they/them
+ * staging.example.com
+ * </pre>
+ *
+ * <p>
+ * The file is parsed once into {@link PronounResult}s, so serving an override
+ * is a single map read. After {@link #watch()}, the file is reloaded when it
+ * changes and the new table replaces the old one atomically; if the new
+ * contents cannot be read or parsed, the previous table stays in use and the
+ * failure is available from {@link #lastError()}.
+ * </p>
+ *
+ * <p>
+ * Example usage:
+ * </p>
+ *
+ * <pre>
+ * PronounOverrides overrides = new PronounOverrides(Path.of("overrides.txt"));
+ * overrides.watch();
+ * PoDNS4J podns = new PoDNS4J(new PronounDnsResolver(), cache, null, PronounAliases.defaults(), overrides);
+ * </pre>
+ */
+public final class PronounOverrides implements AutoCloseable {
+    /**
+     * Default lifetime reported for overridden answers.
+     */
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(1);
+
+    private static final long SETTLE_MILLIS = 20;
+
+    private final Path file;
+    private final PronounAliases aliases;
+    private final long ttlMillis;
+    private volatile Table table;
+    private volatile Exception lastError;
+    private WatchService watchService;
+    private Thread thread;
+    private boolean closed;
+
+    private static final class Table {
+        private final Map<String, Pinned> results;
+        private final long loadedAt;
+
+        private Table(Map<String, Pinned> results, long loadedAt) {
+            this.results = results;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * An overridden domain. Domains overridden to have no records have a null
+     * result, so a single map read tells them from domains not overridden.
+     */
+    private static final class Pinned {
+        private final PronounResult result;
+        // The last answer handed out, reused while its reported TTL is current
+        private volatile CacheEntry entry;
+
+        private Pinned(PronounResult result) {
+            this.result = result;
+        }
+    }
+
+    /**
+     * Loads overrides from a file, reporting the default TTL.
+     *
+     * @param file the overrides file
+     * @throws IOException           if the file cannot be read
+     * @throws PronounParseException if a line is invalid
+     */
+    public PronounOverrides(Path file) throws IOException, PronounParseException {
+        this(file, PronounAliases.defaults(), DEFAULT_TTL);
+    }
+
+    /**
+     * Loads overrides from a file.
+     *
+     * @param file    the overrides file
+     * @param aliases the aliases expanded when parsing records
+     * @param ttl     the lifetime reported for overridden answers
+     * @throws IOException           if the file cannot be read
+     * @throws PronounParseException if a line is invalid
+     */
+    public PronounOverrides(Path file, PronounAliases aliases, Duration ttl)
+            throws IOException, PronounParseException {
+        this.file = Objects.requireNonNull(file, "file cannot be null").toAbsolutePath();
+        this.aliases = Objects.requireNonNull(aliases, "aliases cannot be null");
+        if (ttl.isNegative()) {
+            throw new IllegalArgumentException("TTL cannot be negative");
+        }
+        this.ttlMillis = ttl.toMillis();
+        this.table = load(this.file, aliases);
+    }
+
+    private static Table load(Path file, PronounAliases aliases) throws IOException, PronounParseException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        Map<String, List<String>> records = new LinkedHashMap<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.charAt(0) == '#') {
+                continue;
+            }
+            int space = 0;
+            while (space < line.length() && !Character.isWhitespace(line.charAt(space))) {
+                space++;
+            }
+            String name;
+            try {
+                name = DomainNormalizer.normalize(line.substring(0, space));
+            } catch (IllegalArgumentException e) {
+                throw new PronounParseException("Invalid domain on line " + (i + 1) + ": " + e.getMessage(), e);
+            }
+            List<String> domainRecords = records.computeIfAbsent(name, key -> new ArrayList<>());
+            String record = line.substring(space).trim();
+            if (!record.isEmpty()) {
+                domainRecords.add(record);
+            }
+        }
+
+        Map<String, Pinned> results = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : records.entrySet()) {
+            PronounResult result = null;
+            if (!entry.getValue().isEmpty()) {
+                try {
+                    result = PronounResult.fromRecords(PronounRecordParser.parseAll(entry.getValue(), aliases));
+                } catch (PronounParseException e) {
+                    throw new PronounParseException("Invalid records for "
+                            + entry.getKey().substring(DomainNormalizer.PREFIX.length()) + ": " + e.getMessage(), e);
+                }
+            }
+            results.put(entry.getKey(), new Pinned(result));
+        }
+        return new Table(results, System.currentTimeMillis());
+    }
+
+    /**
+     * Starts reloading the file whenever it changes, on a daemon thread.
+     *
+     * @throws IOException if the file's directory cannot be watched
+     */
+    public synchronized void watch() throws IOException {
+        if (thread != null || closed) {
+            throw new IllegalStateException("Already watching");
+        }
+        watchService = file.getFileSystem().newWatchService();
+        // Editors often replace the file rather than write it in place, so watch the directory
+        file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        thread = new Thread(this::run, "podns4j-overrides");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                boolean changed = changed(watchService.take());
+                // Let a burst of events from one save settle before reading
+                WatchKey key;
+                while ((key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= changed(key);
+                }
+                if (changed) {
+                    reloadQuietly();
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // Closed
+        }
+    }
+
+    private boolean changed(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || file.getFileName().equals(event.context())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    private void reloadQuietly() {
+        try {
+            reload();
+        } catch (IOException | PronounParseException e) {
+            lastError = e;
+        }
+    }
+
+    /**
+     * Reloads the file now, replacing the overrides if it parses.
+     *
+     * @throws IOException           if the file cannot be read
+     * @throws PronounParseException if a line is invalid
+     */
+    public void reload() throws IOException, PronounParseException {
+        table = load(file, aliases);
+        lastError = null;
+    }
+
+    /**
+     * Returns the overridden answer for a normalized name.
+     *
+     * @param name the name, as returned by {@link DomainNormalizer#normalize}
+     * @return the answer, or null if the name is not overridden
+     */
+    public CacheEntry entry(String name) {
+        Table current = table;
+        Pinned pinned = current.results.get(name);
+        if (pinned == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        CacheEntry entry = pinned.entry;
+        // TTLs are reported in whole seconds, so an answer less than a second old is still exact
+        if (entry == null || entry.expiresAt() - now < ttlMillis - 1000) {
+            entry = new CacheEntry(pinned.result, current.loadedAt, now + ttlMillis);
+            pinned.entry = entry;
+        }
+        return entry;
+    }
+
+    /**
+     * Returns true if a domain is overridden.
+     *
+     * @param domain the domain
+     * @return true if the domain is overridden
+     * @throws IllegalArgumentException if the domain is invalid
+     */
+    public boolean contains(String domain) {
+        return table.results.containsKey(DomainNormalizer.normalize(domain));
+    }
+
+    /**
+     * Returns the overridden result for a domain.
+     *
+     * @param domain the domain
+     * @return the result, or null if the domain is not overridden or is
+     *         overridden to have no records
+     * @throws IllegalArgumentException if the domain is invalid
+     */
+    public PronounResult get(String domain) {
+        Pinned pinned = table.results.get(DomainNormalizer.normalize(domain));
+        return pinned != null ? pinned.result : null;
+    }
+
+    /**
+     * Returns the number of overridden domains.
+     *
+     * @return the number of domains
+     */
+    public int size() {
+        return table.results.size();
+    }
+
+    /**
+     * Returns why the last reload after a change failed.
+     *
+     * @return the failure, or null if the last reload succeeded
+     */
+    public Exception lastError() {
+        return lastError;
+    }
+
+    /**
+     * Stops watching the file. The loaded overrides remain usable.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package me.folf.podns4j.schedule;
+
+/**
+ * The class of a lookup submitted to a {@link LookupScheduler}.
+ */
+public enum LookupPriority {
+    /**
+     * A lookup someone is waiting on, such as rendering a profile. Served
+     * before bulk lookups.
+     */
+    INTERACTIVE,
+
+    /**
+     * A background lookup, such as a batch job. Served with the capacity
+     * interactive lookups leave free, but never less than the bulk floor.
+     */
+    BULK
+}
@@ -0,0 +1,250 @@
+package me.folf.podns4j.schedule;
+
+import me.folf.podns4j.PoDNS4J;
+import me.folf.podns4j.PronounParseException;
+import me.folf.podns4j.model.PronounResult;
+
+import javax.naming.NamingException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs lookups on a shared {@link PoDNS4J} instance with separate queues and
+ * concurrency budgets for interactive and bulk work.
+ *
+ * <p>
+ * At most {@code concurrency} lookups are in flight. Whenever capacity frees
+ * up, queued interactive lookups are started first. Bulk lookups use the
+ * capacity left over, up to {@code bulkLimit} at a time, so that
+ * {@code concurrency - bulkLimit} slots are always free for interactive
+ * lookups arriving while a batch is running. So that bulk work is never
+ * starved, queued bulk lookups take precedence while fewer than
+ * {@code bulkFloor} of them are in flight.
+ * </p>
+ *
+ * <p>
+ * Within a class, lookups start in the order they were submitted. Queues are
+ * unbounded, so bulk callers should limit how many lookups they have
+ * outstanding.
+ * </p>
+ *
+ * <p>
+ * Example usage:
+ * </p>
+ *
+ * <pre>
+ * LookupScheduler scheduler = new LookupScheduler(podns, 32, 24, 4);
+ * PronounResult result = scheduler.lookup("example.com", LookupPriority.INTERACTIVE);
+ * scheduler.submit("example.org", LookupPriority.BULK).thenAccept(this::store);
+ * </pre>
+ */
+public final class LookupScheduler implements AutoCloseable {
+    private final PoDNS4J podns4j;
+    private final int concurrency;
+    private final int bulkLimit;
+    private final int bulkFloor;
+    private final ExecutorService executor;
+
+    private final Object lock = new Object();
+    private final Queue<Task> interactive = new ArrayDeque<>();
+    private final Queue<Task> bulk = new ArrayDeque<>();
+    private int interactiveInFlight;
+    private int bulkInFlight;
+    private boolean closed;
+
+    private static final class Task {
+        private final String domain;
+        private final LookupPriority priority;
+        private final CompletableFuture<PronounResult> future = new CompletableFuture<>();
+
+        private Task(String domain, LookupPriority priority) {
+            this.domain = domain;
+            this.priority = priority;
+        }
+    }
+
+    /**
+     * Creates a scheduler.
+     *
+     * @param podns4j     the instance used for lookups
+     * @param concurrency the maximum number of lookups in flight
+     * @param bulkLimit   the maximum number of bulk lookups in flight
+     * @param bulkFloor   the number of bulk lookups kept in flight while bulk
+     *                    lookups are queued, even if interactive lookups are
+     *                    waiting
+     * @throws IllegalArgumentException if the budgets are inconsistent
+     */
+    public LookupScheduler(PoDNS4J podns4j, int concurrency, int bulkLimit, int bulkFloor) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("Concurrency must be positive");
+        }
+        if (bulkLimit <= 0 || bulkLimit > concurrency) {
+            throw new IllegalArgumentException("Bulk limit must be between 1 and the concurrency");
+        }
+        if (bulkFloor < 0 || bulkFloor > bulkLimit) {
+            throw new IllegalArgumentException("Bulk floor must be between 0 and the bulk limit");
+        }
+        this.podns4j = Objects.requireNonNull(podns4j, "podns4j cannot be null");
+        this.concurrency = concurrency;
+        this.bulkLimit = bulkLimit;
+        this.bulkFloor = bulkFloor;
+        this.executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "podns4j-lookup");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues a lookup.
+     *
+     * @param domain   the domain to look up
+     * @param priority the class of the lookup
+     * @return a future completed with the result (null if no records were
+     *         found), or failed with the lookup's exception
+     * @throws RejectedExecutionException if the scheduler is closed
+     */
+    public CompletableFuture<PronounResult> submit(String domain, LookupPriority priority) {
+        Objects.requireNonNull(domain, "domain cannot be null");
+        Task task = new Task(domain, Objects.requireNonNull(priority, "priority cannot be null"));
+        synchronized (lock) {
+            if (closed) {
+                throw new RejectedExecutionException("Scheduler is closed");
+            }
+            (priority == LookupPriority.INTERACTIVE ? interactive : bulk).add(task);
+            dispatch();
+        }
+        return task.future;
+    }
+
+    /**
+     * Looks up a domain, waiting for its turn and for the result.
+     *
+     * @param domain   the domain to look up
+     * @param priority the class of the lookup
+     * @return the pronoun result, or null if no records were found
+     * @throws PronounParseException if the records cannot be parsed
+     * @throws NamingException       if the DNS query fails
+     * @throws InterruptedException  if the calling thread is interrupted
+     */
+    public PronounResult lookup(String domain, LookupPriority priority)
+            throws PronounParseException, NamingException, InterruptedException {
+        CompletableFuture<PronounResult> future = submit(domain, priority);
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof PronounParseException) {
+                throw (PronounParseException) cause;
+            }
+            if (cause instanceof NamingException) {
+                throw (NamingException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            throw e;
+        }
+    }
+
+    // Called with the lock held
+    private void dispatch() {
+        while (interactiveInFlight + bulkInFlight < concurrency) {
+            Task task;
+            boolean bulkStarved = !bulk.isEmpty() && bulkInFlight < bulkFloor;
+            if (!interactive.isEmpty() && !bulkStarved) {
+                task = interactive.poll();
+                interactiveInFlight++;
+            } else if (!bulk.isEmpty() && bulkInFlight < bulkLimit) {
+                task = bulk.poll();
+                bulkInFlight++;
+            } else {
+                return;
+            }
+            if (task.future.isDone()) {
+                // Cancelled while queued
+                release(task.priority);
+                continue;
+            }
+            executor.execute(() -> run(task));
+        }
+    }
+
+    private void run(Task task) {
+        try {
+            task.future.complete(podns4j.lookup(task.domain));
+        } catch (PronounParseException | NamingException | RuntimeException e) {
+            task.future.completeExceptionally(e);
+        } finally {
+            synchronized (lock) {
+                release(task.priority);
+                if (!closed) {
+                    dispatch();
+                }
+            }
+        }
+    }
+
+    private void release(LookupPriority priority) {
+        if (priority == LookupPriority.INTERACTIVE) {
+            interactiveInFlight--;
+        } else {
+            bulkInFlight--;
+        }
+    }
+
+    /**
+     * Returns the number of queued lookups of a class that have not started.
+     *
+     * @param priority the class
+     * @return the number of queued lookups
+     */
+    public int queued(LookupPriority priority) {
+        synchronized (lock) {
+            return (priority == LookupPriority.INTERACTIVE ? interactive : bulk).size();
+        }
+    }
+
+    /**
+     * Returns the number of lookups of a class in flight.
+     *
+     * @param priority the class
+     * @return the number of lookups in flight
+     */
+    public int inFlight(LookupPriority priority) {
+        synchronized (lock) {
+            return priority == LookupPriority.INTERACTIVE ? interactiveInFlight : bulkInFlight;
+        }
+    }
+
+    /**
+     * Stops the lookup threads. Queued lookups are cancelled and lookups still
+     * in flight are abandoned.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (Queue<Task> queue : List.of(interactive, bulk)) {
+                for (Task task : queue) {
+                    task.future.cancel(false);
+                }
+                queue.clear();
+            }
+        }
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,183 @@
+package me.folf.podns4j.server;
+
+import me.folf.podns4j.dns.DnsWire;
+
+import java.util.Objects;
+
+/**
+ * Builds authoritative responses to DNS queries from a
+ * {@link PronounRecordStore}, independently of the transport.
+ *
+ * <p>
+ * Names in the store are answered from their pre-encoded response; other names
+ * get NXDOMAIN. UDP answers that exceed the client's buffer (512 bytes, or the
+ * EDNS0 size it advertises) are truncated so the client retries over TCP.
+ * </p>
+ */
+public final class PronounDnsResponder {
+    /**
+     * The EDNS0 UDP payload size advertised in responses.
+     */
+    public static final int UDP_PAYLOAD = 1232;
+
+    private static final int FLAG_QR = 0x8000;
+    private static final int FLAG_AA = 0x0400;
+    private static final int FLAG_TC = 0x0200;
+    private static final int FLAG_RD = 0x0100;
+    private static final int RCODE_NOTIMP = 4;
+    private static final int TYPE_ANY = 255;
+    private static final int OPT_SIZE = 11;
+
+    private final PronounRecordStore store;
+
+    /**
+     * Creates a responder.
+     *
+     * @param store the records to answer from
+     */
+    public PronounDnsResponder(PronounRecordStore store) {
+        this.store = Objects.requireNonNull(store, "store cannot be null");
+    }
+
+    /**
+     * Builds the response to a query.
+     *
+     * @param query   the query message
+     * @param overUdp true if the response will be sent over UDP and must fit
+     *                the client's buffer
+     * @return the response, or null if the message should be dropped
+     */
+    public byte[] respond(byte[] query, boolean overUdp) {
+        if (query.length < DnsWire.HEADER_SIZE || DnsWire.isResponse(query)) {
+            return null;
+        }
+        int id = DnsWire.readShort(query, 0);
+        int flags = DnsWire.readShort(query, 2);
+        int responseFlags = FLAG_QR | FLAG_AA | (flags & FLAG_RD);
+
+        int opcode = (flags >>> 11) & 0x0f;
+        if (opcode != 0) {
+            return header(id, responseFlags | RCODE_NOTIMP, query, 0, false);
+        }
+
+        String name;
+        int questionEnd;
+        int qtype;
+        int ednsPayload = -1;
+        try {
+            if (DnsWire.readShort(query, 4) != 1) {
+                return header(id, responseFlags | DnsWire.RCODE_FORMERR, query, 0, false);
+            }
+            name = DnsWire.readName(query, DnsWire.HEADER_SIZE);
+            questionEnd = DnsWire.skipName(query, DnsWire.HEADER_SIZE) + 4;
+            qtype = DnsWire.readShort(query, questionEnd - 4);
+            ednsPayload = findEdnsPayload(query, questionEnd);
+        } catch (RuntimeException e) {
+            return header(id, responseFlags | DnsWire.RCODE_FORMERR, query, 0, false);
+        }
+        boolean edns = ednsPayload >= 0;
+
+        PronounRecordStore.Entry entry = store.entry(name);
+        if (entry == null) {
+            return header(id, responseFlags | DnsWire.RCODE_NXDOMAIN, query, questionEnd, edns);
+        }
+        if (qtype != DnsWire.TYPE_TXT && qtype != TYPE_ANY) {
+            return header(id, responseFlags, query, questionEnd, edns);
+        }
+
+        byte[] encoded = entry.response();
+        int limit = overUdp ? Math.max(512, ednsPayload) : 65535;
+        int length = encoded.length + (edns ? OPT_SIZE : 0);
+        if (length > limit) {
+            return header(id, responseFlags | FLAG_TC, query, questionEnd, edns);
+        }
+
+        byte[] response = new byte[length];
+        System.arraycopy(encoded, 0, response, 0, encoded.length);
+        writeShort(response, 0, id);
+        writeShort(response, 2, responseFlags);
+        if (questionEnd == entry.questionEnd()) {
+            // Echo the question exactly as asked, preserving 0x20 case randomization
+            System.arraycopy(query, DnsWire.HEADER_SIZE, response, DnsWire.HEADER_SIZE,
+                    questionEnd - DnsWire.HEADER_SIZE);
+        }
+        if (edns) {
+            writeOpt(response, encoded.length);
+            writeShort(response, 10, 1);
+        }
+        return response;
+    }
+
+    /**
+     * Returns the UDP payload size of the query's OPT record, 0 if it
+     * advertises less than 512 bytes, or -1 if it has none.
+     */
+    private static int findEdnsPayload(byte[] query, int pos) {
+        int records = DnsWire.readShort(query, 6) + DnsWire.readShort(query, 8) + DnsWire.readShort(query, 10);
+        int answersAndAuthorities = records - DnsWire.readShort(query, 10);
+        for (int i = 0; i < records; i++) {
+            pos = DnsWire.skipName(query, pos);
+            int type = DnsWire.readShort(query, pos);
+            int payload = DnsWire.readShort(query, pos + 2);
+            if (i >= answersAndAuthorities && type == DnsWire.TYPE_OPT) {
+                return payload < 512 ? 0 : payload;
+            }
+            pos += 10 + DnsWire.readShort(query, pos + 8);
+        }
+        return -1;
+    }
+
+    /**
+     * Builds a failure response to a query, such as SERVFAIL or REFUSED.
+     *
+     * @param query the query message
+     * @param rcode the response code
+     * @return the response, or null if the message should be dropped
+     */
+    public static byte[] failure(byte[] query, int rcode) {
+        if (query.length < DnsWire.HEADER_SIZE || DnsWire.isResponse(query)) {
+            return null;
+        }
+        int flags = FLAG_QR | (DnsWire.readShort(query, 2) & FLAG_RD) | rcode;
+        try {
+            int questionEnd = DnsWire.skipName(query, DnsWire.HEADER_SIZE) + 4;
+            if (DnsWire.readShort(query, 4) == 1 && questionEnd <= query.length) {
+                return header(DnsWire.readShort(query, 0), flags, query, questionEnd, false);
+            }
+        } catch (RuntimeException e) {
+            // Fall through to a response without a question
+        }
+        return header(DnsWire.readShort(query, 0), flags, query, 0, false);
+    }
+
+    /**
+     * Builds a response without answers, echoing the query's question (if
+     * questionEnd is non-zero).
+     */
+    private static byte[] header(int id, int flags, byte[] query, int questionEnd, boolean edns) {
+        int questionLength = questionEnd > 0 ? questionEnd - DnsWire.HEADER_SIZE : 0;
+        int length = DnsWire.HEADER_SIZE + questionLength;
+        byte[] response = new byte[length + (edns ? OPT_SIZE : 0)];
+        writeShort(response, 0, id);
+        writeShort(response, 2, flags);
+        writeShort(response, 4, questionLength > 0 ? 1 : 0);
+        System.arraycopy(query, DnsWire.HEADER_SIZE, response, DnsWire.HEADER_SIZE, questionLength);
+        if (edns) {
+            writeOpt(response, length);
+            writeShort(response, 10, 1);
+        }
+        return response;
+    }
+
+    private static void writeOpt(byte[] msg, int pos) {
+        msg[pos] = 0; // root owner name
+        writeShort(msg, pos + 1, DnsWire.TYPE_OPT);
+        writeShort(msg, pos + 3, UDP_PAYLOAD);
+        // Extended rcode, version, flags and RDLENGTH are all zero
+    }
+
+    private static void writeShort(byte[] msg, int pos, int value) {
+        msg[pos] = (byte) (value >>> 8);
+        msg[pos + 1] = (byte) value;
+    }
+}
@@ -0,0 +1,322 @@
+package me.folf.podns4j.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Queue;
+
+/**
+ * Authoritative DNS server answering TXT queries for {@code pronouns.} names
+ * from a {@link PronounRecordStore}.
+ *
+ * <p>
+ * A single thread serves UDP and TCP on the same port using non-blocking
+ * channels, answering with a {@link PronounDnsResponder}.
+ * </p>
+ *
+ * <p>
+ * Example usage:
+ * </p>
+ *
+ * <pre>
+ * PronounRecordStore store = new PronounRecordStore();
+ * store.put("example.com", List.of(PoDNS4J.parse("she/her")));
+ * try (PronounDnsServer server = new PronounDnsServer(store, new InetSocketAddress(5353))) {
+ *     server.start();
+ *     ...
+ * }
+ * </pre>
+ */
+public final class PronounDnsServer implements AutoCloseable {
+    private static final long TCP_IDLE_MILLIS = 10_000;
+    // Answers queued for one TCP client before the server stops reading its queries
+    private static final int MAX_QUEUED_BYTES = 64 * 1024;
+
+    private final PronounDnsResponder responder;
+    private final InetSocketAddress bindAddress;
+    private Selector selector;
+    private DatagramChannel udp;
+    private ServerSocketChannel tcp;
+    private Thread thread;
+    private volatile boolean closed;
+
+    /**
+     * Creates a server. Call {@link #start()} to begin serving.
+     *
+     * @param store       the records to serve
+     * @param bindAddress the address to listen on (port 0 picks a free port)
+     */
+    public PronounDnsServer(PronounRecordStore store, InetSocketAddress bindAddress) {
+        this.responder = new PronounDnsResponder(store);
+        this.bindAddress = Objects.requireNonNull(bindAddress, "bindAddress cannot be null");
+    }
+
+    /**
+     * Binds the UDP and TCP sockets and starts serving on a daemon thread.
+     *
+     * @throws IOException if the sockets cannot be bound
+     */
+    public synchronized void start() throws IOException {
+        if (thread != null || closed) {
+            throw new IllegalStateException("Server already started");
+        }
+        selector = Selector.open();
+        try {
+            tcp = ServerSocketChannel.open();
+            tcp.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+            tcp.bind(bindAddress);
+            tcp.configureBlocking(false);
+            tcp.register(selector, SelectionKey.OP_ACCEPT);
+
+            // Serve UDP on the port TCP was given, which matters when binding port 0
+            udp = DatagramChannel.open();
+            udp.bind(tcp.getLocalAddress());
+            udp.configureBlocking(false);
+            udp.register(selector, SelectionKey.OP_READ);
+        } catch (IOException e) {
+            closed = true;
+            closeChannels();
+            throw e;
+        }
+
+        thread = new Thread(this::run, "podns4j-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Returns the address the server is listening on.
+     *
+     * @return the bound address
+     * @throws IOException if the server is not started
+     */
+    public InetSocketAddress address() throws IOException {
+        if (tcp == null) {
+            throw new IOException("Server not started");
+        }
+        return (InetSocketAddress) tcp.getLocalAddress();
+    }
+
+    private void run() {
+        ByteBuffer datagram = ByteBuffer.allocateDirect(65535);
+        try {
+            while (!closed) {
+                selector.select(1000);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.channel() == udp) {
+                            serveUdp(datagram);
+                        } else if (key.isAcceptable()) {
+                            accept();
+                        } else {
+                            serveTcp(key);
+                        }
+                    } catch (IOException e) {
+                        if (key.channel() instanceof SocketChannel) {
+                            closeQuietly(key);
+                        }
+                    }
+                }
+                closeIdleConnections();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            // Closed
+        } finally {
+            closeChannels();
+        }
+    }
+
+    private void serveUdp(ByteBuffer datagram) throws IOException {
+        SocketAddress client;
+        while ((client = receive(datagram)) != null) {
+            datagram.flip();
+            byte[] query = new byte[datagram.remaining()];
+            datagram.get(query);
+            byte[] response = responder.respond(query, true);
+            if (response != null) {
+                udp.send(ByteBuffer.wrap(response), client);
+            }
+        }
+    }
+
+    private SocketAddress receive(ByteBuffer datagram) throws IOException {
+        datagram.clear();
+        return udp.receive(datagram);
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = tcp.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.register(selector, SelectionKey.OP_READ, new Connection());
+        }
+    }
+
+    private void serveTcp(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+
+        if (key.isReadable()) {
+            int read = channel.read(connection.in);
+            if (read < 0) {
+                closeQuietly(key);
+                return;
+            }
+            if (read > 0) {
+                connection.lastActive = System.currentTimeMillis();
+            }
+        }
+
+        while (true) {
+            respond(connection);
+            if (connection.out.isEmpty()) {
+                break;
+            }
+            if (!flush(channel, connection)) {
+                break;
+            }
+        }
+        // Stop reading while answers are queued, so a client that never reads
+        // them cannot make the server buffer without limit or stay active
+        key.interestOps(connection.out.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_WRITE);
+    }
+
+    /**
+     * Answers the complete queries in the input buffer until the queued
+     * answers reach {@link #MAX_QUEUED_BYTES}.
+     */
+    private void respond(Connection connection) {
+        ByteBuffer in = connection.in;
+        in.flip();
+        while (connection.queuedBytes < MAX_QUEUED_BYTES && in.remaining() >= 2) {
+            int length = in.getShort(in.position()) & 0xffff;
+            if (in.remaining() < 2 + length) {
+                break;
+            }
+            in.position(in.position() + 2);
+            byte[] query = new byte[length];
+            in.get(query);
+
+            byte[] response = responder.respond(query, false);
+            if (response != null) {
+                ByteBuffer framed = ByteBuffer.allocate(2 + response.length);
+                framed.putShort((short) response.length).put(response).flip();
+                connection.out.add(framed);
+                connection.queuedBytes += framed.capacity();
+            }
+        }
+        in.compact();
+    }
+
+    /**
+     * Writes queued answers until the socket is full.
+     *
+     * @return true if every queued answer was written
+     */
+    private static boolean flush(SocketChannel channel, Connection connection) throws IOException {
+        while (!connection.out.isEmpty()) {
+            ByteBuffer buffer = connection.out.peek();
+            if (channel.write(buffer) > 0) {
+                connection.lastActive = System.currentTimeMillis();
+            }
+            if (buffer.hasRemaining()) {
+                return false;
+            }
+            connection.out.poll();
+            connection.queuedBytes -= buffer.capacity();
+        }
+        return true;
+    }
+
+    private void closeIdleConnections() {
+        long now = System.currentTimeMillis();
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Connection
+                    && now - ((Connection) key.attachment()).lastActive > TCP_IDLE_MILLIS) {
+                closeQuietly(key);
+            }
+        }
+    }
+
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // Ignore
+        }
+    }
+
+    private static final class Connection {
+        private final ByteBuffer in = ByteBuffer.allocate(2 + 65535);
+        private final Queue<ByteBuffer> out = new ArrayDeque<>();
+        private int queuedBytes;
+        private long lastActive = System.currentTimeMillis();
+    }
+
+    /**
+     * Stops serving and closes the sockets.
+     */
+    @Override
+    public void close() {
+        Thread serving;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            serving = thread;
+        }
+        if (serving == null) {
+            closeChannels();
+            return;
+        }
+
+        // The serving thread closes the channels on its way out
+        selector.wakeup();
+        if (serving != Thread.currentThread()) {
+            try {
+                serving.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void closeChannels() {
+        try {
+            if (selector != null) {
+                for (SelectionKey key : selector.keys()) {
+                    closeQuietly(key);
+                }
+                selector.close();
+            }
+            if (udp != null) {
+                udp.close();
+            }
+            if (tcp != null) {
+                tcp.close();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            // Ignore
+        }
+    }
+}
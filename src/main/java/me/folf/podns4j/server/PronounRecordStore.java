@@ -0,0 +1,164 @@
+package me.folf.podns4j.server;
+
+import me.folf.podns4j.DomainNormalizer;
+import me.folf.podns4j.dns.DnsWire;
+import me.folf.podns4j.model.PronounRecord;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-memory store of the pronoun records served by {@link PronounDnsServer}.
+ *
+ * <p>
+ * Each name's response packet is encoded once when its records are stored, so
+ * answering a query only copies the packet and patches the id, flags and
+ * question. Entries are immutable and replaced atomically, so reads never
+ * block and updates are visible to the next query.
+ * </p>
+ */
+public final class PronounRecordStore {
+    /**
+     * Default TTL of served records, in seconds.
+     */
+    public static final int DEFAULT_TTL = 300;
+
+    private static final int FLAGS_AUTHORITATIVE_ANSWER = 0x8400;
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int ttl;
+
+    /**
+     * A stored name with its records and pre-encoded TXT response.
+     */
+    static final class Entry {
+        private final List<PronounRecord> records;
+        private final byte[] response;
+        private final int questionEnd;
+
+        private Entry(List<PronounRecord> records, byte[] response, int questionEnd) {
+            this.records = records;
+            this.response = response;
+            this.questionEnd = questionEnd;
+        }
+
+        /**
+         * Returns the encoded response without an id, with the question
+         * matching the stored (lowercase) name.
+         */
+        byte[] response() {
+            return response;
+        }
+
+        /**
+         * Returns the offset just past the question section.
+         */
+        int questionEnd() {
+            return questionEnd;
+        }
+    }
+
+    /**
+     * Creates a store serving records with the default TTL.
+     */
+    public PronounRecordStore() {
+        this(DEFAULT_TTL);
+    }
+
+    /**
+     * Creates a store.
+     *
+     * @param ttl the TTL of served records, in seconds
+     */
+    public PronounRecordStore(int ttl) {
+        if (ttl < 0) {
+            throw new IllegalArgumentException("TTL cannot be negative");
+        }
+        this.ttl = ttl;
+    }
+
+    /**
+     * Sets the records served for a domain, replacing any previous records.
+     *
+     * @param domain  the domain (e.g., "example.com"), normalized with
+     *                {@link DomainNormalizer}
+     * @param records the records to serve; each is served as one TXT record in
+     *                its canonical form
+     * @throws IllegalArgumentException if the domain is invalid
+     */
+    public void put(String domain, List<PronounRecord> records) {
+        Objects.requireNonNull(records, "records cannot be null");
+        String name = DomainNormalizer.normalize(domain);
+        entries.put(name, encode(name, List.copyOf(records)));
+    }
+
+    /**
+     * Stops serving a domain.
+     *
+     * @param domain the domain
+     * @return true if the domain was served
+     */
+    public boolean remove(String domain) {
+        return entries.remove(DomainNormalizer.normalize(domain)) != null;
+    }
+
+    /**
+     * Returns the records served for a domain.
+     *
+     * @param domain the domain
+     * @return the records, or null if the domain is not served
+     */
+    public List<PronounRecord> get(String domain) {
+        Entry entry = entries.get(DomainNormalizer.normalize(domain));
+        return entry != null ? entry.records : null;
+    }
+
+    /**
+     * Returns the number of served domains.
+     *
+     * @return the number of domains
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the entry for a normalized query name.
+     */
+    Entry entry(String name) {
+        return entries.get(name);
+    }
+
+    private Entry encode(String name, List<PronounRecord> records) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + records.size() * 32);
+        DnsWire.writeShort(out, 0); // id, patched per query
+        DnsWire.writeShort(out, FLAGS_AUTHORITATIVE_ANSWER);
+        DnsWire.writeShort(out, 1);
+        DnsWire.writeShort(out, records.size());
+        DnsWire.writeShort(out, 0);
+        DnsWire.writeShort(out, 0);
+        DnsWire.writeName(out, name);
+        DnsWire.writeShort(out, DnsWire.TYPE_TXT);
+        DnsWire.writeShort(out, DnsWire.CLASS_IN);
+        int questionEnd = out.size();
+
+        for (PronounRecord record : records) {
+            byte[] rdata = DnsWire.encodeTxtRdata(record.toString());
+            DnsWire.writeShort(out, 0xc000 | DnsWire.HEADER_SIZE); // pointer to the question name
+            DnsWire.writeShort(out, DnsWire.TYPE_TXT);
+            DnsWire.writeShort(out, DnsWire.CLASS_IN);
+            DnsWire.writeInt(out, ttl);
+            DnsWire.writeShort(out, rdata.length);
+            out.write(rdata, 0, rdata.length);
+        }
+
+        byte[] response = out.toByteArray();
+        if (response.length > 65535) {
+            throw new IllegalArgumentException("Records for " + name + " exceed the maximum DNS message size");
+        }
+        return new Entry(records, response, questionEnd);
+    }
+}
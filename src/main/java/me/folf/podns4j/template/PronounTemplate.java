@@ -0,0 +1,287 @@
+package me.folf.podns4j.template;
+
+import me.folf.podns4j.PronounAliases;
+import me.folf.podns4j.model.PronounSet;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A precompiled text template with pronoun placeholders.
+ *
+ * <p>
+ * Templates are compiled once into a list of segments, so rendering only
+ * appends strings. The supported placeholders are:
+ * </p>
+ * <ul>
+ * <li>{@code {subject}}, {@code {object}}, {@code {possessiveDeterminer}},
+ * {@code {possessivePronoun}} and {@code {reflexive}}: the pronoun forms. Write
+ * the first letter in uppercase (e.g. {@code {Subject}}) to capitalize the
+ * form.</li>
+ * <li>{@code {singular|plural}}: verb agreement, e.g. {@code {is|are}}, chosen
+ * with {@link PronounSet#isPlural()}.</li>
+ * <li><code>{{</code> and <code>}}</code>: literal braces.</li>
+ * </ul>
+ *
+ * <p>
+ * Forms missing from a set are filled in from the known full forms of a
+ * {@link PronounAliases} registry, or derived from the object form otherwise.
+ * When rendering without a set (for a person who prefers to be referred to by
+ * name), the name is used in place of every form.
+ * </p>
+ *
+ * <p>
+ * Example usage:
+ * </p>
+ *
+ * <pre>
+ * PronounTemplate template = PronounTemplate.compile("{Subject} {has|have} updated {possessiveDeterminer} profile");
+ * String text = template.render(result.preferred()); // "She has updated her profile"
+ * </pre>
+ */
+public final class PronounTemplate {
+    private static final int LITERAL = 0;
+    private static final int SUBJECT = 1;
+    private static final int OBJECT = 2;
+    private static final int POSSESSIVE_DETERMINER = 3;
+    private static final int POSSESSIVE_PRONOUN = 4;
+    private static final int REFLEXIVE = 5;
+    private static final int VERB = 6;
+
+    private static final Map<String, Integer> FORMS = Map.of(
+            "subject", SUBJECT,
+            "object", OBJECT,
+            "possessivedeterminer", POSSESSIVE_DETERMINER,
+            "possessivepronoun", POSSESSIVE_PRONOUN,
+            "reflexive", REFLEXIVE);
+
+    private final String source;
+    private final PronounAliases aliases;
+    private final int[] kinds;
+    private final boolean[] capitalize;
+    private final String[] texts;
+    private final String[] pluralTexts;
+    private final int sizeHint;
+
+    private PronounTemplate(String source, PronounAliases aliases, List<Segment> segments) {
+        this.source = source;
+        this.aliases = aliases;
+        int n = segments.size();
+        this.kinds = new int[n];
+        this.capitalize = new boolean[n];
+        this.texts = new String[n];
+        this.pluralTexts = new String[n];
+        int sizeHint = 0;
+        for (int i = 0; i < n; i++) {
+            Segment segment = segments.get(i);
+            kinds[i] = segment.kind;
+            capitalize[i] = segment.capitalize;
+            texts[i] = segment.text;
+            pluralTexts[i] = segment.pluralText;
+            sizeHint += segment.text != null ? segment.text.length() : 8;
+        }
+        this.sizeHint = sizeHint;
+    }
+
+    private static final class Segment {
+        private final int kind;
+        private final boolean capitalize;
+        private final String text;
+        private final String pluralText;
+
+        private Segment(int kind, boolean capitalize, String text, String pluralText) {
+            this.kind = kind;
+            this.capitalize = capitalize;
+            this.text = text;
+            this.pluralText = pluralText;
+        }
+    }
+
+    /**
+     * Compiles a template that fills in missing forms from the default full
+     * forms.
+     *
+     * @param template the template source
+     * @return the compiled template
+     * @throws IllegalArgumentException if the template is malformed
+     */
+    public static PronounTemplate compile(String template) {
+        return compile(template, PronounAliases.defaults());
+    }
+
+    /**
+     * Compiles a template.
+     *
+     * @param template the template source
+     * @param aliases  the registry whose full forms fill in missing forms
+     * @return the compiled template
+     * @throws IllegalArgumentException if the template is malformed
+     */
+    public static PronounTemplate compile(String template, PronounAliases aliases) {
+        Objects.requireNonNull(aliases, "aliases cannot be null");
+        if (template == null) {
+            throw new IllegalArgumentException("Template cannot be null");
+        }
+
+        List<Segment> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < template.length()) {
+            char c = template.charAt(i);
+            if (c == '}') {
+                if (i + 1 < template.length() && template.charAt(i + 1) == '}') {
+                    literal.append('}');
+                    i += 2;
+                    continue;
+                }
+                throw new IllegalArgumentException("Unmatched '}' at index " + i + " in template: " + template);
+            }
+            if (c != '{') {
+                literal.append(c);
+                i++;
+                continue;
+            }
+            if (i + 1 < template.length() && template.charAt(i + 1) == '{') {
+                literal.append('{');
+                i += 2;
+                continue;
+            }
+
+            int end = template.indexOf('}', i);
+            if (end == -1) {
+                throw new IllegalArgumentException("Unclosed '{' at index " + i + " in template: " + template);
+            }
+            if (literal.length() > 0) {
+                segments.add(new Segment(LITERAL, false, literal.toString(), null));
+                literal.setLength(0);
+            }
+            segments.add(placeholder(template.substring(i + 1, end), template));
+            i = end + 1;
+        }
+        if (literal.length() > 0) {
+            segments.add(new Segment(LITERAL, false, literal.toString(), null));
+        }
+        return new PronounTemplate(template, aliases, segments);
+    }
+
+    private static Segment placeholder(String content, String template) {
+        int bar = content.indexOf('|');
+        if (bar != -1) {
+            if (content.indexOf('|', bar + 1) != -1) {
+                throw new IllegalArgumentException("Verb placeholder must have two variants: {" + content + "}");
+            }
+            return new Segment(VERB, false, content.substring(0, bar), content.substring(bar + 1));
+        }
+
+        Integer kind = content.isEmpty() ? null : FORMS.get(content.toLowerCase(Locale.ROOT));
+        if (kind == null) {
+            throw new IllegalArgumentException("Unknown placeholder {" + content + "} in template: " + template);
+        }
+        return new Segment(kind, Character.isUpperCase(content.charAt(0)), null, null);
+    }
+
+    /**
+     * Renders the template for a pronoun set.
+     *
+     * @param set the pronoun set
+     * @return the rendered text
+     */
+    public String render(PronounSet set) {
+        StringBuilder sb = new StringBuilder(sizeHint);
+        render(set, null, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Renders the template into a string builder.
+     *
+     * @param set  the pronoun set, or null to refer to the person by name
+     * @param name the name used when set is null
+     * @param out  the builder to append to
+     */
+    public void render(PronounSet set, String name, StringBuilder out) {
+        try {
+            render(set, name, (Appendable) out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringBuilder never throws
+        }
+    }
+
+    /**
+     * Renders the template into an appendable.
+     *
+     * @param set  the pronoun set, or null to refer to the person by name
+     * @param name the name used when set is null
+     * @param out  the appendable to write to
+     * @throws IOException              if the appendable fails
+     * @throws IllegalArgumentException if both set and name are null
+     */
+    public void render(PronounSet set, String name, Appendable out) throws IOException {
+        if (set == null && name == null) {
+            throw new IllegalArgumentException("A pronoun set or name is required");
+        }
+        boolean plural = set != null && set.isPlural();
+        // Mixed sets such as she/him have no full form
+        PronounSet known = set != null ? aliases.fullForm(set.subject(), set.object()) : null;
+
+        for (int i = 0; i < kinds.length; i++) {
+            int kind = kinds[i];
+            if (kind == LITERAL) {
+                out.append(texts[i]);
+            } else if (kind == VERB) {
+                out.append(plural ? pluralTexts[i] : texts[i]);
+            } else {
+                String form = set != null ? form(set, known, kind) : possessiveName(name, kind);
+                if (capitalize[i] && !form.isEmpty()) {
+                    out.append(Character.toUpperCase(form.charAt(0))).append(form, 1, form.length());
+                } else {
+                    out.append(form);
+                }
+            }
+        }
+    }
+
+    private static String form(PronounSet set, PronounSet known, int kind) {
+        switch (kind) {
+            case SUBJECT:
+                return set.subject();
+            case OBJECT:
+                return set.object();
+            case POSSESSIVE_DETERMINER:
+                if (set.possessiveDeterminer() != null) {
+                    return set.possessiveDeterminer();
+                }
+                return known != null ? known.possessiveDeterminer() : set.object();
+            case POSSESSIVE_PRONOUN:
+                if (set.possessivePronoun() != null) {
+                    return set.possessivePronoun();
+                }
+                if (known != null && set.possessiveDeterminer() == null) {
+                    return known.possessivePronoun();
+                }
+                String determiner = form(set, known, POSSESSIVE_DETERMINER);
+                return determiner.endsWith("s") ? determiner : determiner + "s";
+            case REFLEXIVE:
+                if (set.reflexive() != null) {
+                    return set.reflexive();
+                }
+                return known != null ? known.reflexive() : set.object() + "self";
+            default:
+                throw new IllegalStateException("Unknown form: " + kind);
+        }
+    }
+
+    private static String possessiveName(String name, int kind) {
+        return kind == POSSESSIVE_DETERMINER || kind == POSSESSIVE_PRONOUN ? name + "'s" : name;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
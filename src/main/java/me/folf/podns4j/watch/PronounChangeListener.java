@@ -0,0 +1,31 @@
+package me.folf.podns4j.watch;
+
+import me.folf.podns4j.model.PronounResult;
+
+/**
+ * Listener notified when the pronoun records of a watched domain change.
+ */
+@FunctionalInterface
+public interface PronounChangeListener {
+    /**
+     * Called when a re-resolution produces a result different from the
+     * previous one.
+     *
+     * @param domain   the watched domain, as passed to
+     *                 {@link PronounWatcher#watch(String, PronounChangeListener)}
+     * @param previous the previous result, or null if the domain had no records
+     * @param current  the new result, or null if the domain no longer has
+     *                 records
+     */
+    void onChange(String domain, PronounResult previous, PronounResult current);
+
+    /**
+     * Called when re-resolving a watched domain fails. The previous result is
+     * kept and the domain is retried later.
+     *
+     * @param domain the watched domain
+     * @param error  the failure
+     */
+    default void onError(String domain, Exception error) {
+    }
+}
@@ -0,0 +1,320 @@
+package me.folf.podns4j.watch;
+
+import me.folf.podns4j.DomainNormalizer;
+import me.folf.podns4j.PronounAliases;
+import me.folf.podns4j.PronounDnsResolver;
+import me.folf.podns4j.PronounParseException;
+import me.folf.podns4j.PronounRecordParser;
+import me.folf.podns4j.dns.TxtAnswer;
+import me.folf.podns4j.model.PronounRecord;
+import me.folf.podns4j.model.PronounResult;
+
+import javax.naming.NameNotFoundException;
+import javax.naming.NamingException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Watches domains for pronoun record changes.
+ *
+ * <p>
+ * Each watched domain is re-resolved when its records' TTL expires (clamped to
+ * a minimum and maximum refresh interval), and listeners are notified only when
+ * the resulting {@link PronounResult} differs from the previous one. The first
+ * resolution after a domain is watched establishes the baseline and does not
+ * notify listeners; it is available from {@link #current(String)}.
+ * </p>
+ *
+ * <p>
+ * Example usage:
+ * </p>
+ *
+ * <pre>
+ * PronounWatcher watcher = new PronounWatcher(new PronounDnsResolver());
+ * watcher.watch("example.com", (domain, previous, current) -&gt; updateProfile(domain, current));
+ * </pre>
+ */
+public final class PronounWatcher implements AutoCloseable {
+    /**
+     * Default lower bound on the refresh interval.
+     */
+    public static final Duration DEFAULT_MIN_REFRESH = Duration.ofSeconds(30);
+
+    /**
+     * Default upper bound on the refresh interval.
+     */
+    public static final Duration DEFAULT_MAX_REFRESH = Duration.ofHours(1);
+
+    /**
+     * Default refresh interval when the TTL is unknown.
+     */
+    public static final Duration DEFAULT_REFRESH = Duration.ofMinutes(5);
+
+    private static final long TICK_MILLIS = 100;
+    private static final int WHEEL_SIZE = 1024;
+
+    private final PronounDnsResolver resolver;
+    private final boolean legacyResolver;
+    private final PronounAliases aliases;
+    private final long minRefreshMillis;
+    private final long maxRefreshMillis;
+    private final long defaultRefreshMillis;
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+    private final TimerWheel wheel;
+    private final ConcurrentMap<String, Watch> watches = new ConcurrentHashMap<>();
+
+    private static final class Watch {
+        private final String domain;
+        private final List<PronounChangeListener> listeners = new CopyOnWriteArrayList<>();
+        private volatile PronounResult last;
+        // Fingerprint of the records behind last, or 0 if unknown
+        private volatile long fingerprint;
+        private volatile boolean resolved;
+        private volatile TimerWheel.Timeout timeout;
+
+        private Watch(String domain) {
+            this.domain = domain;
+        }
+    }
+
+    /**
+     * Creates a watcher with default refresh bounds, re-resolving on a small
+     * internal thread pool.
+     *
+     * @param resolver the resolver to use
+     */
+    public PronounWatcher(PronounDnsResolver resolver) {
+        this(resolver, DEFAULT_MIN_REFRESH, DEFAULT_MAX_REFRESH, DEFAULT_REFRESH, null);
+    }
+
+    /**
+     * Creates a watcher that expands the default aliases.
+     *
+     * @param resolver       the resolver to use
+     * @param minRefresh     the minimum time between re-resolutions of a domain
+     * @param maxRefresh     the maximum time between re-resolutions of a domain
+     * @param defaultRefresh the time between re-resolutions when the TTL is
+     *                       unknown
+     * @param executor       the executor that runs re-resolutions, or null to
+     *                       use an internal thread pool
+     */
+    public PronounWatcher(PronounDnsResolver resolver, Duration minRefresh, Duration maxRefresh,
+            Duration defaultRefresh, Executor executor) {
+        this(resolver, PronounAliases.defaults(), minRefresh, maxRefresh, defaultRefresh, executor);
+    }
+
+    /**
+     * Creates a watcher.
+     *
+     * @param resolver       the resolver to use
+     * @param aliases        the aliases expanded when parsing records
+     * @param minRefresh     the minimum time between re-resolutions of a domain
+     * @param maxRefresh     the maximum time between re-resolutions of a domain
+     * @param defaultRefresh the time between re-resolutions when the TTL is
+     *                       unknown
+     * @param executor       the executor that runs re-resolutions, or null to
+     *                       use an internal thread pool
+     */
+    public PronounWatcher(PronounDnsResolver resolver, PronounAliases aliases, Duration minRefresh,
+            Duration maxRefresh, Duration defaultRefresh, Executor executor) {
+        this.resolver = Objects.requireNonNull(resolver, "resolver cannot be null");
+        this.legacyResolver = resolver.overridesResolve();
+        this.aliases = Objects.requireNonNull(aliases, "aliases cannot be null");
+        this.minRefreshMillis = minRefresh.toMillis();
+        this.maxRefreshMillis = maxRefresh.toMillis();
+        this.defaultRefreshMillis = defaultRefresh.toMillis();
+        if (minRefreshMillis <= 0 || maxRefreshMillis < minRefreshMillis) {
+            throw new IllegalArgumentException("Refresh bounds must be positive and ordered");
+        }
+
+        if (executor == null) {
+            this.ownedExecutor = Executors.newFixedThreadPool(4, runnable -> {
+                Thread thread = new Thread(runnable, "podns4j-watcher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.executor = ownedExecutor;
+        } else {
+            this.ownedExecutor = null;
+            this.executor = executor;
+        }
+        this.wheel = new TimerWheel(TICK_MILLIS, WHEEL_SIZE, "podns4j-watcher-timer");
+    }
+
+    /**
+     * Starts watching a domain. The domain is resolved in the background to
+     * establish a baseline.
+     *
+     * @param domain   the domain to watch
+     * @param listener the listener to notify on change
+     * @throws IllegalArgumentException if the domain is invalid
+     */
+    public void watch(String domain, PronounChangeListener listener) {
+        Objects.requireNonNull(listener, "listener cannot be null");
+        String name = DomainNormalizer.normalize(domain);
+        watches.compute(name, (key, watch) -> {
+            if (watch == null) {
+                watch = new Watch(domain);
+                schedule(key, watch, 0);
+            }
+            watch.listeners.add(listener);
+            return watch;
+        });
+    }
+
+    /**
+     * Stops notifying a listener about a domain. The domain is no longer
+     * re-resolved once it has no listeners.
+     *
+     * @param domain   the watched domain
+     * @param listener the listener to remove
+     */
+    public void unwatch(String domain, PronounChangeListener listener) {
+        watches.computeIfPresent(DomainNormalizer.normalize(domain), (key, watch) -> {
+            watch.listeners.remove(listener);
+            if (!watch.listeners.isEmpty()) {
+                return watch;
+            }
+            TimerWheel.Timeout timeout = watch.timeout;
+            if (timeout != null) {
+                timeout.cancel();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Returns the most recently resolved result for a watched domain.
+     *
+     * @param domain the watched domain
+     * @return the result, or null if the domain is not watched, has not been
+     *         resolved yet, or has no records
+     */
+    public PronounResult current(String domain) {
+        Watch watch = watches.get(DomainNormalizer.normalize(domain));
+        return watch != null ? watch.last : null;
+    }
+
+    /**
+     * Returns the number of watched domains.
+     *
+     * @return the number of domains
+     */
+    public int size() {
+        return watches.size();
+    }
+
+    private void schedule(String name, Watch watch, long delayMillis) {
+        watch.timeout = wheel.schedule(() -> {
+            try {
+                executor.execute(() -> refresh(name, watch));
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+            }
+        }, delayMillis);
+    }
+
+    private void refresh(String name, Watch watch) {
+        if (watches.get(name) != watch) {
+            return;
+        }
+
+        PronounResult current;
+        long fingerprint;
+        long delayMillis;
+        try {
+            if (legacyResolver) {
+                // Resolvers written against resolve() give no TTL or fingerprint
+                List<PronounRecord> records = resolver.resolve(watch.domain);
+                current = records.isEmpty() ? null : PronounResult.fromRecords(records);
+                fingerprint = 0;
+                delayMillis = refreshDelay(-1);
+            } else {
+                TxtAnswer answer = resolver.lookupTxt(watch.domain);
+                fingerprint = answer.fingerprint();
+                if (watch.resolved && fingerprint == watch.fingerprint) {
+                    // Unchanged records; keep the previous result instead of parsing again
+                    current = watch.last;
+                } else {
+                    current = answer.records().isEmpty() ? null
+                            : PronounResult.fromRecords(PronounRecordParser.parseAll(answer.records(), aliases));
+                }
+                delayMillis = refreshDelay(answer.ttl());
+            }
+        } catch (NameNotFoundException e) {
+            current = null;
+            fingerprint = 0;
+            delayMillis = refreshDelay(-1);
+        } catch (NamingException | PronounParseException | RuntimeException e) {
+            for (PronounChangeListener listener : watch.listeners) {
+                try {
+                    listener.onError(watch.domain, e);
+                } catch (RuntimeException ignored) {
+                    // One failing listener must not affect the others
+                }
+            }
+            reschedule(name, watch, minRefreshMillis);
+            return;
+        }
+
+        PronounResult previous = watch.last;
+        boolean notify = watch.resolved && !Objects.equals(previous, current);
+        watch.last = current;
+        watch.fingerprint = fingerprint;
+        watch.resolved = true;
+
+        if (notify) {
+            for (PronounChangeListener listener : watch.listeners) {
+                try {
+                    listener.onChange(watch.domain, previous, current);
+                } catch (RuntimeException ignored) {
+                    // One failing listener must not affect the others
+                }
+            }
+        }
+        reschedule(name, watch, delayMillis);
+    }
+
+    private void reschedule(String name, Watch watch, long delayMillis) {
+        // Only reschedule while the watch is still registered
+        watches.computeIfPresent(name, (key, registered) -> {
+            if (registered == watch) {
+                try {
+                    schedule(key, watch, delayMillis);
+                } catch (IllegalStateException e) {
+                    // Closed
+                }
+            }
+            return registered;
+        });
+    }
+
+    private long refreshDelay(long ttlSeconds) {
+        if (ttlSeconds < 0) {
+            return Math.max(minRefreshMillis, Math.min(maxRefreshMillis, defaultRefreshMillis));
+        }
+        return Math.max(minRefreshMillis, Math.min(maxRefreshMillis, ttlSeconds * 1000));
+    }
+
+    /**
+     * Stops all re-resolution. Listeners are not notified after this returns,
+     * except for re-resolutions already in progress.
+     */
+    @Override
+    public void close() {
+        wheel.close();
+        watches.clear();
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package me.folf.podns4j.watch;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashed timer wheel for scheduling large numbers of coarse-grained timeouts.
+ *
+ * <p>
+ * Scheduling and cancelling are O(1). A single daemon thread advances the
+ * wheel once per tick and runs expired tasks, so tasks must be short and
+ * should hand real work off to an executor.
+ * </p>
+ */
+final class TimerWheel implements AutoCloseable {
+    private final long tickNanos;
+    private final List<Queue<Timeout>> buckets;
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final Thread worker;
+    private final long startNanos;
+    private volatile boolean closed;
+
+    /**
+     * A scheduled task.
+     */
+    static final class Timeout {
+        private final Runnable task;
+        private final long deadlineTick;
+        private volatile boolean cancelled;
+
+        private Timeout(Runnable task, long deadlineTick) {
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+
+        /**
+         * Prevents the task from running if it has not run yet.
+         */
+        void cancel() {
+            cancelled = true;
+        }
+    }
+
+    TimerWheel(long tickMillis, int wheelSize, String threadName) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick duration and wheel size must be positive");
+        }
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        List<Queue<Timeout>> queues = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            queues.add(new ArrayDeque<>());
+        }
+        this.buckets = List.copyOf(queues);
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, threadName);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Schedules a task to run after a delay, rounded up to the next tick.
+     *
+     * @param task        the task
+     * @param delayMillis the delay in milliseconds
+     * @return a handle that can cancel the task
+     */
+    Timeout schedule(Runnable task, long delayMillis) {
+        if (closed) {
+            throw new IllegalStateException("Timer wheel is closed");
+        }
+        long elapsed = System.nanoTime() - startNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+        Timeout timeout = new Timeout(task, (elapsed + tickNanos - 1) / tickNanos);
+        pending.add(timeout);
+        return timeout;
+    }
+
+    private void run() {
+        long tick = 0;
+        while (!closed) {
+            long sleepNanos = startNanos + (tick + 1) * tickNanos - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (closed) {
+                        return;
+                    }
+                }
+                continue;
+            }
+            tick++;
+
+            Timeout timeout;
+            while ((timeout = pending.poll()) != null) {
+                if (!timeout.cancelled) {
+                    // Overdue timeouts land in the current bucket
+                    long deadline = Math.max(timeout.deadlineTick, tick);
+                    buckets.get((int) (deadline % buckets.size())).add(timeout);
+                }
+            }
+
+            Iterator<Timeout> it = buckets.get((int) (tick % buckets.size())).iterator();
+            while (it.hasNext()) {
+                timeout = it.next();
+                if (timeout.cancelled) {
+                    it.remove();
+                } else if (timeout.deadlineTick <= tick) {
+                    it.remove();
+                    try {
+                        timeout.task.run();
+                    } catch (RuntimeException e) {
+                        // Keep the wheel running
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        worker.interrupt();
+    }
+}
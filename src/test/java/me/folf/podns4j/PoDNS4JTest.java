@@ -1,11 +1,38 @@
 package me.folf.podns4j;
 
+import me.folf.podns4j.cache.NegativeDomainFilter;
+import me.folf.podns4j.cache.PronounCache;
+import me.folf.podns4j.cache.SharedCacheStore;
+import me.folf.podns4j.dns.DnsTxtClient;
+import me.folf.podns4j.dns.DnsWire;
+import me.folf.podns4j.dns.TxtAnswer;
+import me.folf.podns4j.export.ErrorCode;
 import me.folf.podns4j.model.*;
+import me.folf.podns4j.template.PronounTemplate;
+import me.folf.podns4j.watch.PronounWatcher;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import static org.junit.jupiter.api.Assertions.*;
 
+import javax.naming.NamingException;
+import javax.naming.TimeLimitExceededException;
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @DisplayName("PoDNS4J Library Tests")
 class PoDNS4JTest {
@@ -302,4 +329,416 @@ class PoDNS4JTest {
         assertTrue(result.preferred().isPreferred());
         assertEquals(2, result.allSets().size());
     }
+
+    @Test
+    @DisplayName("Decode multi-string and escaped TXT values")
+    void testTxtDecoding() {
+        // JNDI presentation form: quoted, escaped, space-separated character-strings
+        assertEquals("she/her # a \"quoted\" comment",
+                DnsWire.decodePresentationTxt("\"she/her # a \\\"quoted\\\" \" comment"));
+        assertEquals("they/them", DnsWire.decodePresentationTxt("they/them"));
+
+        // Wire form: long values are split into 255-byte character-strings
+        String longRecord = "they/them # " + "x".repeat(400);
+        byte[] rdata = DnsWire.encodeTxtRdata(longRecord);
+        assertEquals(longRecord, DnsWire.decodeTxtRdata(rdata, 0, rdata.length));
+    }
+
+    @Test
+    @DisplayName("Normalize equivalent domains to one name")
+    void testDomainNormalization() {
+        assertEquals("pronouns.example.com", DomainNormalizer.normalize("example.com"));
+        assertEquals("pronouns.example.com", DomainNormalizer.normalize("Example.COM."));
+        assertEquals("pronouns.example.com", DomainNormalizer.normalize("pronouns.example.com"));
+        assertEquals("pronouns.xn--bcher-kva.example", DomainNormalizer.normalize("B\u00fccher.example"));
+
+        assertThrows(IllegalArgumentException.class, () -> DomainNormalizer.normalize(""));
+        assertThrows(IllegalArgumentException.class, () -> DomainNormalizer.normalize("a..b"));
+        assertThrows(IllegalArgumentException.class, () -> DomainNormalizer.normalize("x".repeat(64) + ".com"));
+    }
+
+    @Test
+    @DisplayName("Stable hashes follow FNV-1a")
+    void testStableHash() {
+        // Saved filters and indexes depend on these values never changing
+        assertEquals(0xcbf29ce484222325L, StableHash.fnv1a(""));
+        assertEquals(0xaf63dc4c8601ec8cL, StableHash.fnv1a("a"));
+        assertEquals(StableHash.mix(StableHash.fnv1a("pronouns.example.com")),
+                StableHash.hash("pronouns.example.com"));
+        assertEquals(0L, StableHash.mix(0));
+    }
+
+    @Test
+    @DisplayName("Negative filter skips domains without records")
+    void testNegativeFilter() throws Exception {
+        NegativeDomainFilter filter = new NegativeDomainFilter(1000, 0.01, Duration.ofHours(1), 24);
+        TestPronounDnsResolver testResolver = new TestPronounDnsResolver();
+        testResolver.addRecord("example.com", "she/her");
+
+        PoDNS4J podns4j = new PoDNS4J(testResolver, filter);
+        assertNull(podns4j.lookup("empty.example"));
+        assertNotNull(podns4j.lookup("example.com"));
+        assertTrue(filter.mightContain(DomainNormalizer.normalize("empty.example")));
+        assertFalse(filter.mightContain(DomainNormalizer.normalize("example.com")));
+
+        Path file = Files.createTempFile("podns4j", ".filter");
+        try {
+            filter.save(file);
+            NegativeDomainFilter loaded = NegativeDomainFilter.load(file);
+            assertTrue(loaded.mightContain(DomainNormalizer.normalize("empty.example")));
+            assertFalse(loaded.mightContain(DomainNormalizer.normalize("example.com")));
+
+            // Truncated files and oversized headers are rejected before allocating
+            byte[] saved = Files.readAllBytes(file);
+            Files.write(file, Arrays.copyOf(saved, saved.length - 8));
+            assertThrows(IOException.class, () -> NegativeDomainFilter.load(file));
+            byte[] oversized = saved.clone();
+            ByteBuffer.wrap(oversized).putInt(8, Integer.MAX_VALUE - 63);
+            Files.write(file, oversized);
+            assertThrows(IOException.class, () -> NegativeDomainFilter.load(file));
+            byte[] manyHashes = saved.clone();
+            ByteBuffer.wrap(manyHashes).putInt(12, Integer.MAX_VALUE);
+            Files.write(file, manyHashes);
+            assertThrows(IOException.class, () -> NegativeDomainFilter.load(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    @DisplayName("Watcher notifies only when records change")
+    void testWatcher() throws Exception {
+        TestPronounDnsResolver testResolver = new TestPronounDnsResolver();
+        testResolver.addRecord("example.com", "she/her");
+
+        BlockingQueue<PronounResult> changes = new LinkedBlockingQueue<>();
+        Duration refresh = Duration.ofMillis(100);
+        try (PronounWatcher watcher = new PronounWatcher(testResolver, refresh, refresh, refresh, null)) {
+            watcher.watch("example.com", (domain, previous, current) -> changes.add(current));
+
+            // Baseline and unchanged refreshes do not notify
+            assertNull(changes.poll(500, TimeUnit.MILLISECONDS));
+            PronounResult baseline = watcher.current("example.com");
+            assertEquals("she", baseline.preferred().subject());
+
+            // Unchanged records keep the same result instead of being parsed again
+            assertNull(changes.poll(300, TimeUnit.MILLISECONDS));
+            assertSame(baseline, watcher.current("example.com"));
+
+            testResolver.clearRecords("example.com");
+            testResolver.addRecord("example.com", "they/them");
+            PronounResult changed = changes.poll(5, TimeUnit.SECONDS);
+            assertNotNull(changed);
+            assertEquals("they", changed.preferred().subject());
+        }
+
+        // Records are parsed with the watcher's aliases
+        testResolver.addRecord("xe.example", "xe/xyr");
+        PronounAliases aliases = PronounAliases.defaults().extend(Map.of("xe/xyr", "xe/xem/xyr"), List.of());
+        try (PronounWatcher watcher = new PronounWatcher(testResolver, aliases, refresh, refresh, refresh, null)) {
+            watcher.watch("xe.example", (domain, previous, current) -> changes.add(current));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (watcher.current("xe.example") == null) {
+                assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for condition");
+                Thread.sleep(10);
+            }
+            assertEquals("xem", watcher.current("xe.example").preferred().object());
+        }
+    }
+
+    @Test
+    @DisplayName("Render pronoun templates")
+    void testTemplates() throws PronounParseException {
+        PronounTemplate template = PronounTemplate.compile(
+                "{Subject} {has|have} updated {possessiveDeterminer} profile {{{reflexive}}}");
+
+        assertEquals("She has updated her profile {herself}",
+                template.render(PoDNS4J.parse("she/her").pronounSet()));
+        assertEquals("They have updated their profile {themself}",
+                template.render(PoDNS4J.parse("they/them").pronounSet()));
+        assertEquals("Xe has updated xyr profile {xemself}",
+                template.render(PoDNS4J.parse("xe/xem/xyr").pronounSet()));
+
+        StringBuilder sb = new StringBuilder();
+        template.render(null, "Alex", sb);
+        assertEquals("Alex has updated Alex's profile {Alex}", sb.toString());
+
+        assertThrows(IllegalArgumentException.class, () -> PronounTemplate.compile("{unknown}"));
+        assertThrows(IllegalArgumentException.class, () -> PronounTemplate.compile("{subject"));
+    }
+
+    @Test
+    @DisplayName("Read nameservers from resolv.conf")
+    void testResolvConf() throws Exception {
+        Path file = Files.createTempFile("resolv", ".conf");
+        try {
+            Files.writeString(file, "# comment\nsearch example.com\nnameserver 192.0.2.1\n"
+                    + "nameserver ::1\nnameserver dns.example.com\noptions timeout:3 attempts:4\n");
+            DnsTxtClient client = DnsTxtClient.fromResolvConf(file);
+            assertEquals(2, client.nameservers().size());
+            assertEquals(53, client.nameservers().get(0).getPort());
+            assertEquals("192.0.2.1", client.nameservers().get(0).getAddress().getHostAddress());
+
+            Files.writeString(file, "search example.com\n");
+            assertThrows(IllegalArgumentException.class, () -> DnsTxtClient.fromResolvConf(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    @DisplayName("Custom aliases and full forms")
+    void testAliases() throws Exception {
+        PronounAliases aliases = PronounAliases.defaults().extend(
+                Map.of("xe/xyr", "xe/xem/xyr", "xe/xyrs", "xe/xem/xyr/xyrs"), List.of());
+
+        assertEquals("xe/xem/xyr/xyrs", PronounRecordParser.parse("xe/xyrs;preferred", aliases)
+                .pronounSet().toCanonicalString().split(";")[0]);
+        assertTrue(PronounRecordParser.parse("xe/xyr;preferred", aliases).pronounSet().isPreferred());
+        assertEquals("xem", PronounRecordParser.parse("xe/xyr", aliases).pronounSet().object());
+        assertEquals("xyr", PoDNS4J.parse("xe/xyr").pronounSet().object());
+        assertEquals("it/itself", PoDNS4J.parse("it/itself").pronounSet().toCanonicalString());
+
+        PronounSet completed = aliases.complete(PoDNS4J.parse("she/her;preferred").pronounSet());
+        assertEquals("herself", completed.reflexive());
+        assertTrue(completed.isPreferred());
+        assertNull(aliases.fullForm("she", "him"));
+
+        TestPronounDnsResolver testResolver = new TestPronounDnsResolver();
+        testResolver.addRecord("example.com", "xe/xyr");
+        PoDNS4J podns4j = new PoDNS4J(testResolver, null, null, aliases);
+        assertEquals("xyr", podns4j.lookup("example.com").preferred().possessiveDeterminer());
+
+        assertThrows(IllegalArgumentException.class, () -> PronounAliases.compile(Map.of("Xe", "xe/xem"), List.of()));
+    }
+
+    @Test
+    @DisplayName("Lazy results parse on first access")
+    void testLazyResult() throws Exception {
+        LazyPronounResult lazy = LazyPronounResult.of(List.of("# just a comment", "she/her;preferred", "they/them"));
+        assertTrue(lazy.hasRecords());
+        assertFalse(lazy.prefersName());
+        assertFalse(lazy.isParsed());
+        assertEquals("she", lazy.result().preferred().subject());
+        assertTrue(lazy.isParsed());
+        assertSame(lazy.result(), lazy.result());
+
+        assertFalse(LazyPronounResult.of(List.of("  # comment")).hasRecords());
+        assertFalse(LazyPronounResult.of(List.of()).hasRecords());
+        assertTrue(LazyPronounResult.of(List.of(" ! # by name")).prefersName());
+        assertTrue(LazyPronounResult.of(List.of(" ! # by name")).result().prefersName());
+
+        LazyPronounResult invalid = LazyPronounResult.of(List.of("she"));
+        assertTrue(invalid.hasRecords());
+        assertThrows(PronounParseException.class, invalid::result);
+        assertThrows(PronounParseException.class, invalid::result);
+
+        TestPronounDnsResolver testResolver = new TestPronounDnsResolver();
+        testResolver.addRecord("example.com", "!");
+        PoDNS4J podns4j = new PoDNS4J(testResolver);
+        assertTrue(podns4j.lookupLazy("example.com").prefersName());
+        assertFalse(podns4j.lookupLazy("missing.example.com").hasRecords());
+    }
+
+    @Test
+    @DisplayName("Lazy lookups cache answers once parsed")
+    void testLazyLookupCaching() throws Exception {
+        AtomicInteger queries = new AtomicInteger();
+        TestPronounDnsResolver testResolver = new TestPronounDnsResolver() {
+            @Override
+            public TxtAnswer lookupTxt(String domain) throws NamingException {
+                queries.incrementAndGet();
+                return super.lookupTxt(domain);
+            }
+        };
+        testResolver.addRecord("example.com", "she/her");
+        testResolver.addRecord("bad.example", "she");
+        PoDNS4J podns4j = new PoDNS4J(testResolver, new PronounCache(), null);
+
+        // Unparsed answers are not cached yet
+        assertFalse(podns4j.lookupLazy("example.com").isParsed());
+        LazyPronounResult lazy = podns4j.lookupLazy("example.com");
+        assertEquals(2, queries.get());
+        assertEquals("she", lazy.result().preferred().subject());
+
+        LazyPronounResult cached = podns4j.lookupLazy("example.com");
+        assertTrue(cached.isParsed());
+        assertSame(lazy.result(), cached.result());
+        assertSame(lazy.result(), podns4j.lookup("example.com"));
+        assertEquals(2, queries.get());
+
+        // Empty answers are cached right away, and failed parses never
+        assertFalse(podns4j.lookupLazy("missing.example").hasRecords());
+        assertFalse(podns4j.lookupLazy("missing.example").hasRecords());
+        assertEquals(3, queries.get());
+        assertThrows(PronounParseException.class, () -> podns4j.lookupLazy("bad.example").result());
+        assertThrows(PronounParseException.class, () -> podns4j.lookupLazy("bad.example").result());
+        assertEquals(5, queries.get());
+    }
+
+    @Test
+    @DisplayName("Unchanged records are not parsed again on refresh")
+    void testRefreshReuse() throws Exception {
+        assertEquals(new TxtAnswer(List.of("she/her", "they/them"), 60).fingerprint(),
+                new TxtAnswer(List.of("they/them", "she/her"), 300).fingerprint());
+        assertNotEquals(new TxtAnswer(List.of("she/her", "she/her"), 60).fingerprint(),
+                new TxtAnswer(List.of("she/her"), 60).fingerprint());
+        assertNotEquals(new TxtAnswer(List.of(), -1).fingerprint(),
+                new TxtAnswer(List.of("she/her"), -1).fingerprint());
+
+        // Entries without a TTL expire immediately, so every lookup re-resolves
+        PronounCache cache = new PronounCache(100, Duration.ZERO, Duration.ofDays(1), Duration.ZERO,
+                Duration.ZERO, Clock.systemUTC());
+        TestPronounDnsResolver testResolver = new TestPronounDnsResolver();
+        testResolver.addRecords("example.com", List.of("she/her", "they/them"));
+        PoDNS4J podns4j = new PoDNS4J(testResolver, cache, null);
+
+        PronounResult first = podns4j.lookup("example.com");
+        testResolver.clearRecords("example.com");
+        testResolver.addRecords("example.com", List.of("they/them", "she/her"));
+        assertSame(first, podns4j.lookup("example.com"));
+        assertEquals(1L, cache.reused());
+
+        testResolver.addRecord("example.com", "it/its");
+        PronounResult changed = podns4j.lookup("example.com");
+        assertNotSame(first, changed);
+        assertEquals(3, changed.allSets().size());
+        assertEquals(1L, cache.reused());
+    }
+
+    @Test
+    @DisplayName("Lookup options choose between cache and network")
+    void testLookupOptions() throws Exception {
+        AtomicInteger queries = new AtomicInteger();
+        TestPronounDnsResolver testResolver = new TestPronounDnsResolver() {
+            @Override
+            public TxtAnswer lookupTxt(String domain) throws NamingException {
+                queries.incrementAndGet();
+                return super.lookupTxt(domain);
+            }
+        };
+        testResolver.addRecord("example.com", "she/her");
+
+        // Entries without a TTL expire immediately, so only stale reads can hit
+        PronounCache expiring = new PronounCache(100, Duration.ZERO, Duration.ofDays(1), Duration.ZERO,
+                Duration.ZERO, Clock.systemUTC());
+        PoDNS4J podns4j = new PoDNS4J(testResolver, expiring, null);
+        LookupOutcome miss = podns4j.lookup("example.com", LookupOptions.cacheOnly());
+        assertFalse(miss.hasAnswer());
+        assertEquals(AnswerSource.NONE, miss.source());
+        assertEquals(0, queries.get());
+
+        LookupOutcome fetched = podns4j.lookup("example.com", LookupOptions.defaults());
+        assertEquals(AnswerSource.NETWORK, fetched.source());
+        assertEquals("she", fetched.result().preferred().subject());
+        assertEquals(1, queries.get());
+        assertFalse(podns4j.lookup("example.com", LookupOptions.cacheOnly()).hasAnswer());
+        LookupOutcome stale = podns4j.lookup("example.com",
+                LookupOptions.cacheOnly().withMaxStale(Duration.ofHours(1)));
+        assertTrue(stale.isStale());
+        assertSame(fetched.result(), stale.result());
+        assertTrue(stale.ageMillis() >= 0);
+
+        PoDNS4J cached = new PoDNS4J(testResolver, new PronounCache(), null);
+        cached.lookup("example.com");
+        assertEquals(AnswerSource.CACHE, cached.lookup("example.com", LookupOptions.cacheOnly()).source());
+        assertEquals(AnswerSource.NETWORK, cached.lookup("example.com", LookupOptions.networkOnly()).source());
+        assertEquals(3, queries.get());
+
+        assertThrows(IllegalArgumentException.class, () -> LookupOptions.defaults().withTimeout(Duration.ZERO));
+        assertThrows(IllegalArgumentException.class,
+                () -> LookupOptions.defaults().withMaxStale(Duration.ofSeconds(-1)));
+    }
+
+    @Test
+    @DisplayName("Lookup deadline caps DNS retries")
+    void testLookupDeadline() throws Exception {
+        // A server that never answers; without a deadline the client would wait 3 seconds
+        try (DatagramSocket silent = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            DnsTxtClient client = new DnsTxtClient(List.of((InetSocketAddress) silent.getLocalSocketAddress()),
+                    1000, 3, DnsTxtClient.DEFAULT_UDP_PAYLOAD);
+            PoDNS4J podns4j = new PoDNS4J(new PronounDnsResolver(client));
+
+            long start = System.nanoTime();
+            assertThrows(TimeLimitExceededException.class, () -> podns4j.lookup("example.com",
+                    LookupOptions.networkOnly().withTimeout(Duration.ofMillis(200))));
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000L;
+            assertTrue(elapsedMillis < 1000, "Took " + elapsedMillis + " ms");
+
+            // The deadline also passes during the only attempt
+            DnsTxtClient single = new DnsTxtClient(List.of((InetSocketAddress) silent.getLocalSocketAddress()),
+                    1000, 1, DnsTxtClient.DEFAULT_UDP_PAYLOAD);
+            NamingException error = assertThrows(NamingException.class,
+                    () -> single.query("example.com", Duration.ofMillis(200)));
+            assertTrue(error instanceof TimeLimitExceededException, error.toString());
+            assertEquals(ErrorCode.COMMUNICATION, ErrorCode.of(error));
+        }
+    }
+
+    @Test
+    @DisplayName("Lookup deadline caps the shared cache wait")
+    void testSharedCacheDeadline() throws Exception {
+        SharedCacheStore stalled = new SharedCacheStore() {
+            @Override
+            public CompletableFuture<byte[]> get(String key) {
+                return new CompletableFuture<>();
+            }
+
+            @Override
+            public CompletableFuture<Void> put(String key, byte[] value, Duration ttl) {
+                return CompletableFuture.completedFuture(null);
+            }
+        };
+        PronounCache cache = new PronounCache(100, Duration.ofSeconds(30), Duration.ofDays(1),
+                Duration.ofMinutes(5), Duration.ofMinutes(5), Clock.systemUTC(), stalled);
+        try (DatagramSocket silent = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            DnsTxtClient client = new DnsTxtClient(List.of((InetSocketAddress) silent.getLocalSocketAddress()),
+                    1000, 1, DnsTxtClient.DEFAULT_UDP_PAYLOAD);
+            PoDNS4J podns4j = new PoDNS4J(new PronounDnsResolver(client), cache, null);
+
+            long start = System.nanoTime();
+            assertThrows(TimeLimitExceededException.class, () -> podns4j.lookup("example.com",
+                    LookupOptions.defaults().withTimeout(Duration.ofMillis(20))));
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000L;
+            assertTrue(elapsedMillis < PronounCache.SHARED_TIMEOUT.toMillis(), "Took " + elapsedMillis + " ms");
+        }
+    }
+
+    @Test
+    @DisplayName("Resolvers overriding resolve are still used")
+    void testLegacyResolver() throws Exception {
+        PronounDnsResolver legacy = new PronounDnsResolver() {
+            @Override
+            public List<PronounRecord> resolve(String domain) throws PronounParseException, NamingException {
+                if (domain.equals("bad.example")) {
+                    return List.of(PoDNS4J.parse("she"));
+                }
+                return domain.equals("example.com") ? List.of(PoDNS4J.parse("xe/xem")) : List.of();
+            }
+
+            @Override
+            public TxtAnswer lookupTxt(String domain) {
+                throw new AssertionError("lookupTxt should not be called");
+            }
+        };
+        PoDNS4J podns4j = new PoDNS4J(legacy, new PronounCache(), null);
+        assertEquals("xe", podns4j.lookup("example.com").preferred().subject());
+        assertNull(podns4j.lookup("missing.example"));
+        assertEquals(AnswerSource.NETWORK,
+                podns4j.lookup("other.example", LookupOptions.networkOnly()).source());
+        assertEquals("xe", podns4j.lookupLazy("example.com").result().preferred().subject());
+        assertTrue(podns4j.lookupLazy("bad.example").hasRecords());
+        assertThrows(PronounParseException.class, () -> podns4j.lookupLazy("bad.example").result());
+
+        Duration refresh = Duration.ofMillis(100);
+        try (PronounWatcher watcher = new PronounWatcher(legacy, refresh, refresh, refresh, null)) {
+            watcher.watch("example.com", (domain, previous, current) -> { });
+            long deadline = System.currentTimeMillis() + 5000;
+            while (watcher.current("example.com") == null) {
+                assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for condition");
+                Thread.sleep(10);
+            }
+            assertEquals("xe", watcher.current("example.com").preferred().subject());
+        }
+    }
 }
@@ -1,31 +1,34 @@
 package me.folf.podns4j;
 
-import me.folf.podns4j.model.PronounRecord;
+import me.folf.podns4j.dns.TxtAnswer;
 import javax.naming.NamingException;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class TestPronounDnsResolver extends PronounDnsResolver {
-    private final Map<String, List<String>> records = new HashMap<>();
+    private final Map<String, List<String>> records = new ConcurrentHashMap<>();
 
     public void addRecord(String domain, String record) {
-        records.computeIfAbsent(domain, k -> new ArrayList<>()).add(record);
+        records.computeIfAbsent(domain, k -> new CopyOnWriteArrayList<>()).add(record);
     }
 
     public void addRecords(String domain, List<String> recordList) {
-        records.computeIfAbsent(domain, k -> new ArrayList<>()).addAll(recordList);
+        records.computeIfAbsent(domain, k -> new CopyOnWriteArrayList<>()).addAll(recordList);
     }
 
-    @Override
-    public List<PronounRecord> resolve(String domain) throws PronounParseException, NamingException {
-        List<String> txtRecords = records.getOrDefault(domain, List.of());
+    public void clearRecords(String domain) {
+        records.remove(domain);
+    }
 
-        List<PronounRecord> parsed = new ArrayList<>();
-        for (String txtRecord : txtRecords) {
-            PronounRecord record = PronounRecordParser.parse(txtRecord);
-            parsed.add(record);
-        }
+    @Override
+    public TxtAnswer lookupTxt(String domain) throws NamingException {
+        return new TxtAnswer(records.getOrDefault(domain, List.of()), -1);
+    }
 
-        PronounRecordParser.validateRecords(parsed);
-        return parsed;
+    @Override
+    public TxtAnswer lookupTxt(String domain, Duration timeout) throws NamingException {
+        return lookupTxt(domain);
     }
 }
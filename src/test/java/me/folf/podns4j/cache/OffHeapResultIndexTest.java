@@ -0,0 +1,120 @@
+package me.folf.podns4j.cache;
+
+import me.folf.podns4j.PoDNS4J;
+import me.folf.podns4j.model.PronounResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+@DisplayName("Off-Heap Result Index Tests")
+class OffHeapResultIndexTest {
+
+    @Test
+    @DisplayName("Stores, replaces and removes results")
+    void testPutGetRemove() throws Exception {
+        PronounResult she = PoDNS4J.parseAndSelect(List.of("she/her;preferred", "they/them"));
+        PronounResult they = PoDNS4J.parseAndSelect(List.of("they/them"));
+
+        try (OffHeapResultIndex index = new OffHeapResultIndex(10_000)) {
+            for (int i = 0; i < 5000; i++) {
+                index.put("d" + i + ".example", i % 2 == 0 ? she : they);
+            }
+            index.put("empty.example", null);
+            assertEquals(5001, index.size());
+            assertEquals(2, index.dictionarySize());
+
+            assertEquals(she, index.get("d0.example"));
+            assertEquals(they, index.get("D1.Example."));
+            assertSame(index.get("d2.example"), index.get("d4.example"));
+
+            // Results sharing a list of sets but not flags decode independently
+            PronounResult any = PoDNS4J.parseAndSelect(List.of("they/them", "*"));
+            index.put("any.example", any);
+            assertEquals(any, index.get("any.example"));
+            assertEquals(they, index.get("d1.example"));
+            assertSame(index.get("any.example"), index.get("any.example"));
+            assertTrue(index.remove("any.example"));
+            assertNull(index.get("missing.example"));
+            assertNull(index.get("empty.example"));
+            assertTrue(index.contains("empty.example"));
+            assertFalse(index.contains("missing.example"));
+
+            index.put("d0.example", they);
+            assertEquals(they, index.get("d0.example"));
+            assertTrue(index.remove("d0.example"));
+            assertFalse(index.remove("d0.example"));
+            assertNull(index.get("d0.example"));
+            assertEquals(5000, index.size());
+        }
+    }
+
+    @Test
+    @DisplayName("Rejects inserts beyond capacity")
+    void testFull() {
+        OffHeapResultIndex index = new OffHeapResultIndex(10);
+        assertThrows(IllegalStateException.class, () -> {
+            for (int i = 0; i < 100; i++) {
+                index.put("d" + i + ".example", null);
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("File-backed index survives reopening")
+    void testFileBacked() throws Exception {
+        Path dir = Files.createTempDirectory("podns4j-index");
+        Path path = dir.resolve("results.idx");
+        PronounResult any = PoDNS4J.parseAndSelect(List.of("*", "she/her"));
+        try {
+            try (OffHeapResultIndex index = OffHeapResultIndex.open(path, 1000)) {
+                index.put("example.com", any);
+                index.put("empty.example", null);
+            }
+            try (OffHeapResultIndex index = OffHeapResultIndex.open(path, 1)) {
+                assertEquals(2, index.size());
+                assertEquals(any, index.get("example.com"));
+                assertTrue(index.contains("empty.example"));
+                assertEquals(1024L * 2, index.capacity());
+            }
+        } finally {
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(dir.resolve("results.idx.dict"));
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test
+    @DisplayName("Reopening an index that was not closed keeps its entries")
+    void testReopenWithoutClose() throws Exception {
+        Path dir = Files.createTempDirectory("podns4j-index");
+        Path path = dir.resolve("results.idx");
+        PronounResult they = PoDNS4J.parseAndSelect(List.of("they/them"));
+        PronounResult he = PoDNS4J.parseAndSelect(List.of("he/him"));
+        try {
+            // Left open, as if the process had died before flushing
+            OffHeapResultIndex crashed = OffHeapResultIndex.open(path, 1000);
+            crashed.put("y.example", they);
+
+            try (OffHeapResultIndex index = OffHeapResultIndex.open(path, 1000)) {
+                assertEquals(they, index.get("y.example"));
+                index.put("z.example", he);
+                assertEquals(they, index.get("y.example"));
+                assertEquals(he, index.get("z.example"));
+            }
+            crashed.close();
+
+            // Slots referring to sets without a dictionary are rejected
+            Files.delete(dir.resolve("results.idx.dict"));
+            assertThrows(IOException.class, () -> OffHeapResultIndex.open(path, 1000));
+        } finally {
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(dir.resolve("results.idx.dict"));
+            Files.deleteIfExists(dir);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package me.folf.podns4j.cache;
+
+import me.folf.podns4j.PoDNS4J;
+import me.folf.podns4j.TestPronounDnsResolver;
+import me.folf.podns4j.dns.TxtAnswer;
+import me.folf.podns4j.model.PronounResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.DataOutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+@DisplayName("Shared Cache Tests")
+class SharedCacheTest {
+
+    @Test
+    @DisplayName("Entry encoding round trip")
+    void testCodec() throws Exception {
+        PronounResult result = PoDNS4J.parseAndSelect(List.of("she/her;preferred", "they/them/their", "*"));
+        CacheEntry entry = new CacheEntry(result, 1000, 2000);
+        assertEquals(entry, CacheEntryCodec.decode(CacheEntryCodec.encode(entry)));
+
+        CacheEntry negative = new CacheEntry(null, 1000, 2000);
+        assertEquals(negative, CacheEntryCodec.decode(CacheEntryCodec.encode(negative)));
+        assertThrows(IllegalArgumentException.class, () -> CacheEntryCodec.decode(new byte[] { 1, 2 }));
+    }
+
+    @Test
+    @DisplayName("Lookups are shared between instances and refreshes invalidate near caches")
+    void testTwoTiers() throws Exception {
+        TestPronounDnsResolver testResolver = new TestPronounDnsResolver();
+        testResolver.addRecord("example.com", "she/her");
+
+        try (SharedCacheServer server = new SharedCacheServer(new InetSocketAddress("127.0.0.1", 0))) {
+            server.start();
+            try (SharedCacheStore storeA = new SocketSharedCacheStore(server.address());
+                    SharedCacheStore storeB = new SocketSharedCacheStore(server.address())) {
+                PronounCache cacheA = cache(storeA);
+                PronounCache cacheB = cache(storeB);
+                PoDNS4J podnsA = new PoDNS4J(testResolver, cacheA, null);
+                PoDNS4J podnsB = new PoDNS4J(testResolver, cacheB, null);
+
+                assertEquals("she", podnsA.lookup("example.com").preferred().subject());
+                waitFor(() -> server.size() == 1);
+
+                // B misses locally but finds A's entry in the shared tier
+                testResolver.clearRecords("example.com");
+                assertEquals("she", podnsB.lookup("example.com").preferred().subject());
+                assertEquals(1, cacheB.sharedHits());
+                assertEquals(1, cacheB.size());
+
+                // A refreshes the entry, so B drops its local copy and rereads the shared one
+                PronounResult updated = PoDNS4J.parseAndSelect(List.of("they/them"));
+                cacheA.put("pronouns.example.com", updated, 600);
+                waitFor(() -> cacheB.size() == 0);
+                assertEquals("they", podnsB.lookup("example.com").preferred().subject());
+                assertEquals(2, cacheB.sharedHits());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Unchanged refreshes do not invalidate other near caches")
+    void testUnchangedRefresh() throws Exception {
+        TestPronounDnsResolver testResolver = new TestPronounDnsResolver();
+        testResolver.addRecord("example.com", "she/her");
+
+        try (SharedCacheServer server = new SharedCacheServer(new InetSocketAddress("127.0.0.1", 0))) {
+            server.start();
+            try (SharedCacheStore storeA = new SocketSharedCacheStore(server.address());
+                    SharedCacheStore storeB = new SocketSharedCacheStore(server.address())) {
+                PronounCache cacheA = cache(storeA);
+                PronounCache cacheB = cache(storeB);
+                PoDNS4J podnsA = new PoDNS4J(testResolver, cacheA, null);
+                PoDNS4J podnsB = new PoDNS4J(testResolver, cacheB, null);
+
+                PronounResult result = podnsA.lookup("example.com");
+                waitFor(() -> server.size() == 1);
+                assertEquals(result, podnsB.lookup("example.com"));
+                assertEquals(1, cacheB.size());
+
+                // A re-resolves the same records: only its local entry is extended
+                long fingerprint = new TxtAnswer(List.of("she/her"), -1).fingerprint();
+                CacheEntry refreshed = cacheA.refresh("pronouns.example.com", fingerprint, 600);
+                assertNotNull(refreshed);
+                assertSame(result, refreshed.result());
+
+                // Once a later write from A has reached the server, B still has its copy
+                cacheA.put("pronouns.other.example", null, -1);
+                waitFor(() -> server.size() == 2);
+                Thread.sleep(100);
+                assertEquals(1, cacheB.size());
+                assertNotNull(cacheB.peek("pronouns.example.com"));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Unreachable shared tier degrades to a miss")
+    void testSharedFailure() throws Exception {
+        SharedCacheServer server = new SharedCacheServer(new InetSocketAddress("127.0.0.1", 0));
+        server.start();
+        SharedCacheStore store = new SocketSharedCacheStore(server.address());
+        server.close();
+        store.close();
+
+        PronounCache cache = cache(store);
+        assertNull(cache.get("pronouns.example.com"));
+        cache.put("pronouns.example.com", null, -1);
+        assertNotNull(cache.get("pronouns.example.com"));
+    }
+
+    @Test
+    @DisplayName("Server drops clients sending invalid value lengths")
+    void testInvalidLength() throws Exception {
+        try (SharedCacheServer server = new SharedCacheServer(new InetSocketAddress("127.0.0.1", 0))) {
+            server.start();
+            for (int length : new int[] { -1, SharedCacheServer.MAX_VALUE_BYTES + 1 }) {
+                try (Socket socket = new Socket(server.address().getAddress(), server.address().getPort())) {
+                    socket.setSoTimeout(5000);
+                    DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                    out.writeByte(SharedCacheServer.PUT);
+                    out.writeUTF("pronouns.example.com");
+                    out.writeLong(60_000);
+                    out.writeInt(length);
+                    out.flush();
+                    assertEquals(-1, socket.getInputStream().read());
+                }
+            }
+            assertEquals(0, server.size());
+        }
+    }
+
+    @Test
+    @DisplayName("Requests fail fast when the server stops reading")
+    void testStalledServer() throws Exception {
+        try (ServerSocket stalled = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            SharedCacheStore store = new SocketSharedCacheStore(
+                    (InetSocketAddress) stalled.getLocalSocketAddress());
+            try (Socket accepted = stalled.accept()) {
+                // Never read from the accepted socket, so the client's writes back up
+                accepted.setReceiveBufferSize(4096);
+                byte[] value = new byte[64 * 1024];
+                long start = System.nanoTime();
+                boolean rejected = false;
+                for (int i = 0; i < 10_000 && !rejected; i++) {
+                    rejected = store.put("pronouns.example.com", value, Duration.ofMinutes(1))
+                            .isCompletedExceptionally();
+                }
+                assertTrue(rejected);
+                assertTrue(System.nanoTime() - start < 5_000_000_000L);
+            } finally {
+                store.close();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Clients that stop reading do not stall the others")
+    void testSlowSubscriber() throws Exception {
+        try (SharedCacheServer server = new SharedCacheServer(new InetSocketAddress("127.0.0.1", 0))) {
+            server.start();
+            try (Socket slow = new Socket()) {
+                slow.setReceiveBufferSize(4096);
+                slow.connect(server.address());
+                SharedCacheStore store = new SocketSharedCacheStore(server.address());
+                try {
+                    // Invalidations for the slow client back up well past the socket buffers
+                    String key = "pronouns." + "x".repeat(10_000) + ".example";
+                    for (int i = 0; i < 2000; i++) {
+                        store.put(key, new byte[] { (byte) i }, Duration.ofMinutes(1)).get(5, TimeUnit.SECONDS);
+                    }
+                    assertArrayEquals(new byte[] { (byte) 1999 }, store.get(key).get(5, TimeUnit.SECONDS));
+                } finally {
+                    store.close();
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Expired values are purged as new ones are stored")
+    void testPurge() throws Exception {
+        try (SharedCacheServer server = new SharedCacheServer(new InetSocketAddress("127.0.0.1", 0))) {
+            server.start();
+            SharedCacheStore store = new SocketSharedCacheStore(server.address());
+            try {
+                store.put("pronouns.a.example", new byte[1], Duration.ofMillis(1)).get(5, TimeUnit.SECONDS);
+                Thread.sleep(1100);
+                store.put("pronouns.b.example", new byte[1], Duration.ofMinutes(1)).get(5, TimeUnit.SECONDS);
+                assertEquals(1, server.size());
+            } finally {
+                store.close();
+            }
+        }
+    }
+
+    private static PronounCache cache(SharedCacheStore store) {
+        return new PronounCache(1000, Duration.ofSeconds(30), Duration.ofDays(1), Duration.ofMinutes(5),
+                Duration.ofMinutes(5), Clock.systemUTC(), store);
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for condition");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package me.folf.podns4j.cluster;
+
+import me.folf.podns4j.DomainNormalizer;
+import me.folf.podns4j.PoDNS4J;
+import me.folf.podns4j.PronounAliases;
+import me.folf.podns4j.TestPronounDnsResolver;
+import me.folf.podns4j.cache.PronounCache;
+import me.folf.podns4j.dns.TxtAnswer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import javax.naming.NamingException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@DisplayName("Cluster Routing Tests")
+class ClusterRouterTest {
+
+    @Test
+    @DisplayName("Ring spreads names evenly and membership changes move few names")
+    void testRing() {
+        List<ClusterNode> nodes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            nodes.add(new ClusterNode("node" + i, new InetSocketAddress("127.0.0.1", 7000 + i)));
+        }
+        HashRing three = new HashRing(nodes.subList(0, 3), ClusterRouter.DEFAULT_VIRTUAL_NODES);
+        HashRing four = new HashRing(nodes, ClusterRouter.DEFAULT_VIRTUAL_NODES);
+
+        int names = 6000;
+        Map<String, Integer> shares = new HashMap<>();
+        int moved = 0;
+        for (int i = 0; i < names; i++) {
+            String name = DomainNormalizer.normalize("host" + i + ".example");
+            ClusterNode before = three.owner(name);
+            ClusterNode after = four.owner(name);
+            shares.merge(before.id(), 1, Integer::sum);
+            if (!before.equals(after)) {
+                // Names only move to the new node
+                assertEquals("node3", after.id());
+                moved++;
+            }
+        }
+        for (int share : shares.values()) {
+            assertTrue(share > names / 3 * 0.7 && share < names / 3 * 1.3, "Uneven share: " + shares);
+        }
+        assertTrue(moved > names / 4 * 0.7 && moved < names / 4 * 1.3, "Moved " + moved);
+
+        // Member order does not matter
+        List<ClusterNode> reversed = new ArrayList<>(nodes);
+        Collections.reverse(reversed);
+        HashRing other = new HashRing(reversed, ClusterRouter.DEFAULT_VIRTUAL_NODES);
+        assertEquals(four.owner("pronouns.example.com"), other.owner("pronouns.example.com"));
+    }
+
+    @Test
+    @DisplayName("Each domain is resolved once across the cluster")
+    void testRouting() throws Exception {
+        AtomicInteger queries = new AtomicInteger();
+        TestPronounDnsResolver resolver = new TestPronounDnsResolver() {
+            @Override
+            public TxtAnswer lookupTxt(String domain) throws NamingException {
+                queries.incrementAndGet();
+                return super.lookupTxt(domain);
+            }
+        };
+        for (int i = 0; i < 30; i++) {
+            resolver.addRecord("host" + i + ".example", i % 2 == 0 ? "she/her" : "they/them");
+        }
+
+        List<ClusterServer> servers = new ArrayList<>();
+        List<PoDNS4J> instances = new ArrayList<>();
+        List<ClusterNode> members = new ArrayList<>();
+        for (int n = 0; n < 3; n++) {
+            PoDNS4J podns = new PoDNS4J(resolver, new PronounCache(), null, PronounAliases.defaults());
+            ClusterServer server = new ClusterServer(podns, new InetSocketAddress("127.0.0.1", 0));
+            server.start();
+            servers.add(server);
+            instances.add(podns);
+            members.add(new ClusterNode("node" + n, server.address()));
+        }
+
+        List<ClusterRouter> routers = new ArrayList<>();
+        try {
+            for (int n = 0; n < 3; n++) {
+                routers.add(new ClusterRouter(instances.get(n), "node" + n, members));
+            }
+            for (ClusterRouter router : routers) {
+                for (int i = 0; i < 30; i++) {
+                    String expected = i % 2 == 0 ? "she" : "they";
+                    assertEquals(expected, router.lookup("host" + i + ".example").preferred().subject());
+                }
+            }
+            assertEquals(30, queries.get());
+            assertNull(routers.get(0).lookup("missing.example"));
+            assertTrue(routers.get(0).forwarded() > 0);
+
+            int cached = 0;
+            for (PoDNS4J podns : instances) {
+                cached += podns.cache().size();
+            }
+            assertEquals(31, cached);
+
+            // A node leaving: its domains fall back locally until members are updated
+            servers.get(2).close();
+            String orphan = null;
+            for (int i = 0; i < 30 && orphan == null; i++) {
+                if (routers.get(0).owner("host" + i + ".example").id().equals("node2")) {
+                    orphan = "host" + i + ".example";
+                }
+            }
+            assertNotNull(orphan);
+            assertNotNull(routers.get(0).lookup(orphan));
+            assertEquals(1L, routers.get(0).fallbacks());
+
+            routers.get(0).updateMembers(members.subList(0, 2));
+            assertNotEquals("node2", routers.get(0).owner(orphan).id());
+        } finally {
+            for (ClusterRouter router : routers) {
+                router.close();
+            }
+            for (ClusterServer server : servers) {
+                server.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package me.folf.podns4j.crawl;
+
+import me.folf.podns4j.PoDNS4J;
+import me.folf.podns4j.TestPronounDnsResolver;
+import me.folf.podns4j.dns.TxtAnswer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import javax.naming.NamingException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+@DisplayName("Crawl Scheduler Tests")
+class CrawlSchedulerTest {
+
+    @Test
+    @DisplayName("Registrable domain heuristic")
+    void testRegistrableDomain() {
+        assertEquals("example.com", CrawlScheduler.registrableDomain("a.b.example.com"));
+        assertEquals("example.com", CrawlScheduler.registrableDomain("Example.com."));
+        assertEquals("example.co.uk", CrawlScheduler.registrableDomain("www.example.co.uk"));
+        assertEquals("co.uk", CrawlScheduler.registrableDomain("co.uk"));
+        assertEquals("localhost", CrawlScheduler.registrableDomain("localhost"));
+    }
+
+    @Test
+    @DisplayName("Lookups within a zone are spaced by the zone rate")
+    void testZoneRateLimit() throws Exception {
+        Map<String, List<Long>> times = new ConcurrentHashMap<>();
+        TestPronounDnsResolver testResolver = new TestPronounDnsResolver() {
+            @Override
+            public TxtAnswer lookupTxt(String domain) throws NamingException {
+                times.computeIfAbsent(CrawlScheduler.registrableDomain(domain), key -> new CopyOnWriteArrayList<>())
+                        .add(System.nanoTime());
+                return super.lookupTxt(domain);
+            }
+        };
+        List<String> domains = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            for (String zone : List.of("a.example", "b.example", "c.example")) {
+                domains.add("host" + i + "." + zone);
+                testResolver.addRecord("host" + i + "." + zone, "they/them");
+            }
+        }
+
+        List<CrawlResult> results = new CopyOnWriteArrayList<>();
+        try (CrawlScheduler scheduler = new CrawlScheduler(new PoDNS4J(testResolver), 1000, 20, 8, null)) {
+            CrawlSummary summary = scheduler.crawl(domains.iterator(), results::add);
+            assertEquals(24, summary.completed());
+            assertEquals(0, summary.failed());
+        }
+        assertEquals(24, results.size());
+        assertTrue(results.stream().allMatch(result -> "they".equals(result.result().preferred().subject())));
+
+        for (List<Long> zoneTimes : times.values()) {
+            // Seven 50 ms intervals, with slack for thread scheduling
+            assertEquals(8, zoneTimes.size());
+            assertTrue(zoneTimes.get(7) - zoneTimes.get(0) >= 250_000_000L, "Zone lookups too close together");
+        }
+    }
+
+    @Test
+    @DisplayName("Sorted input does not stall other zones behind a long zone")
+    void testSortedInput() throws Exception {
+        // One worker gives a window of 256 domains, all from the first zone
+        List<String> domains = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            domains.add("host" + i + ".a.example");
+        }
+        for (int i = 0; i < 20; i++) {
+            domains.add("host.zone" + i + ".example");
+        }
+
+        List<String> others = new ArrayList<>();
+        long start = System.nanoTime();
+        try (CrawlScheduler scheduler = new CrawlScheduler(new PoDNS4J(new TestPronounDnsResolver()), 1000, 10, 1,
+                null)) {
+            // The first zone alone would take 40 seconds; stop once the others are done
+            assertThrows(IllegalStateException.class, () -> scheduler.crawl(domains.iterator(), result -> {
+                if (!result.domain().endsWith(".a.example")) {
+                    others.add(result.domain());
+                }
+                if (others.size() == 20) {
+                    throw new IllegalStateException("Stop");
+                }
+            }));
+        }
+        assertEquals(20, others.size());
+        // Behind the first zone, the others would only start after about 15 seconds
+        assertTrue(System.nanoTime() - start < 5_000_000_000L, "Other zones were stalled");
+    }
+
+    @Test
+    @DisplayName("Resumes from a checkpoint")
+    void testCheckpoint() throws Exception {
+        TestPronounDnsResolver testResolver = new TestPronounDnsResolver();
+        List<String> domains = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            domains.add("d" + i + ".example");
+        }
+        domains.add("a..b");
+
+        Path checkpoint = Files.createTempFile("podns4j-crawl", ".ckpt");
+        Files.delete(checkpoint);
+        try {
+            try (CrawlScheduler scheduler = new CrawlScheduler(new PoDNS4J(testResolver), 1000, 1000, 1, checkpoint,
+                    domain -> domain)) {
+                int[] seen = { 0 };
+                assertThrows(IllegalStateException.class, () -> scheduler.crawl(domains.iterator(), result -> {
+                    if (++seen[0] > 5) {
+                        throw new IllegalStateException("Stop");
+                    }
+                }));
+            }
+            assertTrue(Files.exists(checkpoint));
+
+            try (CrawlScheduler scheduler = new CrawlScheduler(new PoDNS4J(testResolver), 1000, 1000, 4, checkpoint,
+                    domain -> domain)) {
+                CrawlSummary summary = scheduler.crawl(domains.iterator(), result -> {
+                });
+                assertEquals(5, summary.skipped());
+                assertEquals(16, summary.completed());
+                assertEquals(1, summary.failed());
+            }
+        } finally {
+            Files.deleteIfExists(checkpoint);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package me.folf.podns4j.export;
+
+import me.folf.podns4j.PoDNS4J;
+import me.folf.podns4j.PronounParseException;
+import me.folf.podns4j.cache.CacheEntry;
+import me.folf.podns4j.crawl.CrawlResult;
+import me.folf.podns4j.model.PronounResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import javax.naming.CommunicationException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+@DisplayName("Result Export Tests")
+class ResultExportTest {
+
+    @Test
+    @DisplayName("Rows round trip across row groups")
+    void testRoundTrip() throws Exception {
+        List<PronounResult> results = List.of(
+                PoDNS4J.parseAndSelect(List.of("she/her", "they/them;preferred")),
+                PoDNS4J.parseAndSelect(List.of("she/her;preferred;plural")),
+                PoDNS4J.parseAndSelect(List.of("*")),
+                PoDNS4J.parseAndSelect(List.of("!")),
+                PoDNS4J.parseAndSelect(List.of("it/its", "*")));
+
+        Path file = Files.createTempFile("podns4j", ".pdne");
+        try {
+            try (ResultExportWriter writer = new ResultExportWriter(file, 3)) {
+                for (int i = 0; i < results.size(); i++) {
+                    writer.write("example" + i + ".com",
+                            new CacheEntry(results.get(i), 1000L * i, 1000L * i + 300_000));
+                }
+                writer.write(new CrawlResult("missing.example.com", null, null));
+                writer.write(new CrawlResult("broken.example.com", null, new PronounParseException("bad")));
+                writer.write(new CrawlResult("down.example.com", null, new CommunicationException("timeout")));
+                // she/her appears with and without tags but is one dictionary entry
+                assertEquals(3, writer.dictionarySize());
+            }
+
+            try (ResultExportReader reader = new ResultExportReader(file)) {
+                assertEquals(8, reader.rowCount());
+                assertEquals(3, reader.rowGroupCount());
+
+                List<PronounResult> read = new ArrayList<>();
+                List<String> domains = new ArrayList<>();
+                List<ErrorCode> errors = new ArrayList<>();
+                List<Long> times = new ArrayList<>();
+                reader.scan(EnumSet.allOf(ExportColumn.class), row -> {
+                    read.add(row.result());
+                    domains.add(row.domain());
+                    errors.add(row.error());
+                    if (domains.size() <= results.size()) {
+                        times.add(row.fetchedAt());
+                        assertEquals(300, row.ttl());
+                    } else {
+                        assertEquals(-1, row.ttl());
+                    }
+                });
+                assertEquals(results, read.subList(0, results.size()));
+                assertNull(read.get(5));
+                assertEquals("example4.com", domains.get(4));
+                assertEquals(List.of(0L, 1000L, 2000L, 3000L, 4000L), times);
+                assertEquals(List.of(ErrorCode.NONE, ErrorCode.PARSE, ErrorCode.COMMUNICATION),
+                        errors.subList(5, 8));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    @DisplayName("Scans decode only the selected columns")
+    void testColumnSelection() throws Exception {
+        Path file = Files.createTempFile("podns4j", ".pdne");
+        try {
+            try (ResultExportWriter writer = new ResultExportWriter(file)) {
+                writer.write("a.example", PoDNS4J.parseAndSelect(List.of("*")), 0, 60, ErrorCode.NONE);
+                writer.write("b.example", PoDNS4J.parseAndSelect(List.of("!")), 0, 60, ErrorCode.NONE);
+                writer.write("c.example", PoDNS4J.parseAndSelect(List.of("he/him")), 0, 60, ErrorCode.NONE);
+            }
+
+            try (ResultExportReader reader = new ResultExportReader(file)) {
+                int[] counts = new int[2];
+                reader.scan(EnumSet.of(ExportColumn.FLAGS), row -> {
+                    counts[0] += row.acceptsAny() ? 1 : 0;
+                    counts[1] += row.prefersName() ? 1 : 0;
+                    assertThrows(IllegalStateException.class, row::domain);
+                    assertThrows(IllegalStateException.class, row::setCount);
+                });
+                assertEquals(1, counts[0]);
+                assertEquals(1, counts[1]);
+
+                List<String> subjects = new ArrayList<>();
+                reader.scan(EnumSet.of(ExportColumn.SETS), row -> {
+                    if (row.preferred() != null) {
+                        subjects.add(reader.dictionary().get(row.setId(0)).subject());
+                    }
+                });
+                assertEquals(List.of("they", "he"), subjects);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    @DisplayName("Files that are not exports are rejected")
+    void testInvalidFile() throws Exception {
+        Path file = Files.createTempFile("podns4j", ".pdne");
+        try {
+            Files.write(file, new byte[64]);
+            assertThrows(IOException.class, () -> new ResultExportReader(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package me.folf.podns4j.http;
+
+import me.folf.podns4j.PoDNS4J;
+import me.folf.podns4j.TestPronounDnsResolver;
+import me.folf.podns4j.cache.PronounCache;
+import me.folf.podns4j.dns.TxtAnswer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import javax.naming.NamingException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@DisplayName("HTTP Sidecar Tests")
+class PronounHttpServerTest {
+
+    @Test
+    @DisplayName("Single, conditional and batch lookups")
+    void testLookups() throws Exception {
+        TestPronounDnsResolver testResolver = new TestPronounDnsResolver();
+        testResolver.addRecord("example.com", "she/her;preferred");
+        PoDNS4J podns4j = new PoDNS4J(testResolver, new PronounCache(), null);
+
+        try (PronounHttpServer server = new PronounHttpServer(podns4j, new InetSocketAddress("127.0.0.1", 0))) {
+            server.start();
+            String base = "http://127.0.0.1:" + server.address().getPort();
+            HttpClient client = HttpClient.newHttpClient();
+
+            HttpResponse<String> response = client.send(
+                    HttpRequest.newBuilder(URI.create(base + "/lookup?domain=example.com")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            assertTrue(response.body().contains("\"subject\":\"she\""));
+            assertTrue(response.headers().firstValue("Cache-Control").orElseThrow().startsWith("max-age="));
+            String etag = response.headers().firstValue("ETag").orElseThrow();
+
+            response = client.send(HttpRequest.newBuilder(URI.create(base + "/lookup?domain=example.com"))
+                    .header("If-None-Match", etag).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(304, response.statusCode());
+
+            response = client.send(HttpRequest.newBuilder(URI.create(base + "/batch"))
+                    .POST(HttpRequest.BodyPublishers.ofString("[\"example.com\", \"missing.example\", \"a..b\"]"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            assertTrue(response.body().startsWith("[{\"domain\":\"example.com\",\"result\":{"));
+            assertTrue(response.body().contains("{\"domain\":\"missing.example\",\"result\":null}"));
+            assertTrue(response.body().contains("{\"domain\":\"a..b\",\"error\":"));
+
+            response = client.send(HttpRequest.newBuilder(URI.create(base + "/metrics")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertTrue(response.body().contains("podns4j_cache_hits_total 2"));
+        }
+    }
+
+    @Test
+    @DisplayName("Concurrent requests for a domain share one lookup")
+    void testCoalescing() throws Exception {
+        AtomicInteger queries = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        TestPronounDnsResolver testResolver = new TestPronounDnsResolver() {
+            @Override
+            public TxtAnswer lookupTxt(String domain) throws NamingException {
+                queries.incrementAndGet();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.lookupTxt(domain);
+            }
+        };
+        testResolver.addRecord("example.com", "she/her");
+        PoDNS4J podns4j = new PoDNS4J(testResolver, new PronounCache(), null);
+
+        try (PronounHttpServer server = new PronounHttpServer(podns4j, new InetSocketAddress("127.0.0.1", 0))) {
+            server.start();
+            String base = "http://127.0.0.1:" + server.address().getPort();
+            HttpClient client = HttpClient.newHttpClient();
+
+            List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                responses.add(client.sendAsync(
+                        HttpRequest.newBuilder(URI.create(base + "/lookup?domain=example.com")).build(),
+                        HttpResponse.BodyHandlers.ofString()));
+            }
+
+            // Every request but the first waits on the lookup already in flight
+            try {
+                long deadline = System.currentTimeMillis() + 5000;
+                while (!client.send(HttpRequest.newBuilder(URI.create(base + "/metrics")).build(),
+                        HttpResponse.BodyHandlers.ofString()).body().contains("podns4j_lookups_coalesced_total 4")) {
+                    assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for condition");
+                    Thread.sleep(10);
+                }
+            } finally {
+                release.countDown();
+            }
+
+            for (CompletableFuture<HttpResponse<String>> response : responses) {
+                assertEquals(200, response.get(5, TimeUnit.SECONDS).statusCode());
+                assertTrue(response.get().body().contains("\"subject\":\"she\""));
+            }
+            assertEquals(1, queries.get());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package me.folf.podns4j.jfr;
+
+import me.folf.podns4j.PoDNS4J;
+import me.folf.podns4j.PronounDnsResolver;
+import me.folf.podns4j.PronounParseException;
+import me.folf.podns4j.cache.PronounCache;
+import me.folf.podns4j.dns.DnsTxtClient;
+import me.folf.podns4j.server.PronounDnsServer;
+import me.folf.podns4j.server.PronounRecordStore;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@DisplayName("Flight Recorder Event Tests")
+class JfrEventTest {
+
+    @Test
+    @DisplayName("Lookups emit query, parse and cache events")
+    void testEvents() throws Exception {
+        PronounRecordStore store = new PronounRecordStore(60);
+        store.put("example.com", List.of(PoDNS4J.parse("she/her")));
+        Path file = Files.createTempFile("podns4j", ".jfr");
+
+        try (PronounDnsServer server = new PronounDnsServer(store, new InetSocketAddress("127.0.0.1", 0));
+                Recording recording = new Recording()) {
+            server.start();
+            recording.enable(DnsQueryEvent.class).withThreshold(Duration.ZERO);
+            recording.enable(PronounParseEvent.class).withThreshold(Duration.ZERO);
+            recording.enable(CacheEvent.class).withThreshold(Duration.ZERO);
+            recording.start();
+
+            PoDNS4J podns = new PoDNS4J(new PronounDnsResolver(new DnsTxtClient(List.of(server.address()))),
+                    new PronounCache(), null);
+            podns.lookup("example.com");
+            podns.lookup("example.com");
+            assertThrows(PronounParseException.class,
+                    () -> PoDNS4J.parseAndSelect(List.of("she/her", "!")));
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        try {
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            List<RecordedEvent> queries = named(events, "me.folf.podns4j.DnsQuery");
+            assertEquals(1, queries.size());
+            assertEquals("pronouns.example.com", queries.get(0).getString("name"));
+            assertEquals(0, queries.get(0).getInt("rcode"));
+            assertEquals(1, queries.get(0).getInt("records"));
+            assertEquals(60, queries.get(0).getLong("ttl"));
+
+            List<RecordedEvent> parses = named(events, "me.folf.podns4j.Parse");
+            assertEquals(2, parses.size());
+            assertTrue(parses.get(0).getBoolean("succeeded"));
+            assertFalse(parses.get(1).getBoolean("succeeded"));
+            assertTrue(parses.get(1).getString("error").contains("none record"));
+
+            List<String> operations = named(events, "me.folf.podns4j.Cache").stream()
+                    .map(event -> event.getString("operation"))
+                    .collect(Collectors.toList());
+            assertEquals(List.of(CacheEvent.MISS, CacheEvent.STORE, CacheEvent.HIT), operations);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,105 @@
+package me.folf.podns4j.override;
+
+import me.folf.podns4j.DomainNormalizer;
+import me.folf.podns4j.PoDNS4J;
+import me.folf.podns4j.PronounAliases;
+import me.folf.podns4j.PronounParseException;
+import me.folf.podns4j.TestPronounDnsResolver;
+import me.folf.podns4j.cache.CacheEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.function.BooleanSupplier;
+
+@DisplayName("Override Tests")
+class PronounOverridesTest {
+
+    @Test
+    @DisplayName("Overridden domains are answered without DNS")
+    void testOverrides() throws Exception {
+        Path file = Files.createTempFile("podns4j", ".overrides");
+        Files.writeString(file, "# Pinned\n"
+                + "example.com they/them\n"
+                + "Example.com she/her;preferred\n"
+                + "\n"
+                + "empty.example.com\n");
+
+        TestPronounDnsResolver testResolver = new TestPronounDnsResolver();
+        testResolver.addRecord("example.com", "he/him");
+        testResolver.addRecord("empty.example.com", "he/him");
+        testResolver.addRecord("other.example.com", "he/him");
+
+        try (PronounOverrides overrides = new PronounOverrides(file)) {
+            assertEquals(2, overrides.size());
+            assertTrue(overrides.contains("empty.example.com"));
+            assertNull(overrides.get("empty.example.com"));
+
+            PoDNS4J podns = new PoDNS4J(testResolver, null, null, PronounAliases.defaults(), overrides);
+            assertEquals("she", podns.lookup("example.com").preferred().subject());
+            assertEquals(2, podns.lookup("example.com").allSets().size());
+            CacheEntry empty = podns.lookupEntry("empty.example.com");
+            assertNull(empty.result());
+            assertTrue(empty.remainingSeconds(System.currentTimeMillis()) > 0);
+            assertSame(overrides.entry(DomainNormalizer.normalize("example.com")),
+                    overrides.entry(DomainNormalizer.normalize("example.com")));
+            assertNull(overrides.entry(DomainNormalizer.normalize("other.example.com")));
+            assertEquals("he", podns.lookup("other.example.com").preferred().subject());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    @DisplayName("Invalid override files are rejected")
+    void testInvalid() throws Exception {
+        Path file = Files.createTempFile("podns4j", ".overrides");
+        try {
+            Files.writeString(file, "example.com she/her\nexample.org not-a-record\n");
+            PronounParseException e = assertThrows(PronounParseException.class, () -> new PronounOverrides(file));
+            assertTrue(e.getMessage().contains("example.org"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    @DisplayName("Changes to the file are picked up and bad edits are ignored")
+    void testWatch() throws Exception {
+        Path dir = Files.createTempDirectory("podns4j-overrides");
+        Path file = dir.resolve("overrides.txt");
+        Files.writeString(file, "example.com she/her\n");
+
+        try (PronounOverrides overrides = new PronounOverrides(file)) {
+            overrides.watch();
+
+            // Replace the file the way editors do
+            Path temp = dir.resolve("overrides.tmp");
+            Files.writeString(temp, "example.com they/them\n");
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            waitFor(() -> "they".equals(overrides.get("example.com").preferred().subject()));
+
+            Files.writeString(file, "example.com not-a-record\n");
+            waitFor(() -> overrides.lastError() != null);
+            assertEquals("they", overrides.get("example.com").preferred().subject());
+
+            Files.writeString(file, "example.com he/him\n");
+            waitFor(() -> "he".equals(overrides.get("example.com").preferred().subject()));
+            assertNull(overrides.lastError());
+        } finally {
+            Files.deleteIfExists(file);
+            Files.delete(dir);
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for condition");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package me.folf.podns4j.schedule;
+
+import me.folf.podns4j.PoDNS4J;
+import me.folf.podns4j.TestPronounDnsResolver;
+import me.folf.podns4j.dns.TxtAnswer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import javax.naming.NamingException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.function.BooleanSupplier;
+
+@DisplayName("Lookup Scheduler Tests")
+class LookupSchedulerTest {
+
+    /**
+     * Resolver that records the order lookups start in and blocks each until
+     * released.
+     */
+    private static final class GatedResolver extends TestPronounDnsResolver {
+        private final List<String> started = new CopyOnWriteArrayList<>();
+        private final Semaphore gate = new Semaphore(0);
+
+        @Override
+        public TxtAnswer lookupTxt(String domain) throws NamingException {
+            started.add(domain);
+            gate.acquireUninterruptibly();
+            return super.lookupTxt(domain);
+        }
+    }
+
+    @Test
+    @DisplayName("Interactive lookups start before queued bulk lookups")
+    void testInteractiveFirst() throws Exception {
+        GatedResolver resolver = new GatedResolver();
+        resolver.addRecord("profile.example", "she/her");
+        try (LookupScheduler scheduler = new LookupScheduler(new PoDNS4J(resolver), 2, 2, 0)) {
+            for (int i = 0; i < 4; i++) {
+                scheduler.submit("bulk" + i + ".example", LookupPriority.BULK);
+            }
+            waitFor(() -> resolver.started.size() == 2);
+            CompletableFuture<?> profile = scheduler.submit("profile.example", LookupPriority.INTERACTIVE);
+            assertEquals(1, scheduler.queued(LookupPriority.INTERACTIVE));
+
+            resolver.gate.release();
+            waitFor(() -> resolver.started.size() == 3);
+            assertEquals("profile.example", resolver.started.get(2));
+
+            resolver.gate.release(10);
+            assertNotNull(profile.get());
+        }
+    }
+
+    @Test
+    @DisplayName("Bulk lookups leave capacity free for interactive ones")
+    void testBulkLimit() throws Exception {
+        GatedResolver resolver = new GatedResolver();
+        try (LookupScheduler scheduler = new LookupScheduler(new PoDNS4J(resolver), 2, 1, 0)) {
+            scheduler.submit("bulk0.example", LookupPriority.BULK);
+            scheduler.submit("bulk1.example", LookupPriority.BULK);
+            waitFor(() -> resolver.started.size() == 1);
+            assertEquals(1, scheduler.queued(LookupPriority.BULK));
+
+            scheduler.submit("profile.example", LookupPriority.INTERACTIVE);
+            waitFor(() -> resolver.started.size() == 2);
+            assertEquals("profile.example", resolver.started.get(1));
+            resolver.gate.release(10);
+        }
+    }
+
+    @Test
+    @DisplayName("Bulk lookups keep their floor while interactive lookups wait")
+    void testBulkFloor() throws Exception {
+        GatedResolver resolver = new GatedResolver();
+        try (LookupScheduler scheduler = new LookupScheduler(new PoDNS4J(resolver), 2, 2, 1)) {
+            scheduler.submit("profile0.example", LookupPriority.INTERACTIVE);
+            scheduler.submit("profile1.example", LookupPriority.INTERACTIVE);
+            waitFor(() -> resolver.started.size() == 2);
+            scheduler.submit("profile2.example", LookupPriority.INTERACTIVE);
+            scheduler.submit("bulk0.example", LookupPriority.BULK);
+
+            resolver.gate.release();
+            waitFor(() -> resolver.started.size() == 3);
+            assertEquals("bulk0.example", resolver.started.get(2));
+
+            resolver.gate.release();
+            waitFor(() -> resolver.started.size() == 4);
+            assertEquals("profile2.example", resolver.started.get(3));
+            resolver.gate.release(10);
+        }
+    }
+
+    @Test
+    @DisplayName("Budgets are validated")
+    void testBudgets() {
+        PoDNS4J podns = new PoDNS4J(new TestPronounDnsResolver());
+        assertThrows(IllegalArgumentException.class, () -> new LookupScheduler(podns, 0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new LookupScheduler(podns, 2, 3, 0));
+        assertThrows(IllegalArgumentException.class, () -> new LookupScheduler(podns, 2, 1, 2));
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for condition");
+            Thread.sleep(10);
+        }
+    }
+}
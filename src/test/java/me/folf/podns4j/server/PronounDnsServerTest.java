@@ -0,0 +1,112 @@
+package me.folf.podns4j.server;
+
+import me.folf.podns4j.PoDNS4J;
+import me.folf.podns4j.PronounDnsResolver;
+import me.folf.podns4j.dns.DnsTxtClient;
+import me.folf.podns4j.dns.DnsWire;
+import me.folf.podns4j.dns.TxtAnswer;
+import me.folf.podns4j.model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import javax.naming.NameNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@DisplayName("PoDNS Server Tests")
+class PronounDnsServerTest {
+
+    @Test
+    @DisplayName("End-to-end lookup against the embedded server")
+    void testLookup() throws Exception {
+        PronounRecordStore store = new PronounRecordStore(60);
+        store.put("example.com", List.of(PoDNS4J.parse("she/her"), PoDNS4J.parse("they/them;preferred")));
+
+        try (PronounDnsServer server = new PronounDnsServer(store, new InetSocketAddress("127.0.0.1", 0))) {
+            server.start();
+            DnsTxtClient client = new DnsTxtClient(List.of(server.address()));
+
+            TxtAnswer answer = client.query("pronouns.EXAMPLE.com");
+            assertEquals(List.of("she/her", "they/them;preferred"), answer.records());
+            assertEquals(60, answer.ttl());
+
+            PronounResult result = new PoDNS4J(new PronounDnsResolver(client)).lookup("example.com");
+            assertEquals("they", result.preferred().subject());
+
+            assertThrows(NameNotFoundException.class, () -> client.query("pronouns.missing.example"));
+
+            // Updates are visible to the next query
+            store.put("example.com", List.of(PoDNS4J.parse("!")));
+            assertEquals(List.of("!"), client.query("pronouns.example.com").records());
+        }
+    }
+
+    @Test
+    @DisplayName("Large answers are truncated over UDP and retried over TCP")
+    void testTruncation() throws Exception {
+        List<PronounRecord> records = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            records.add(PoDNS4J.parse("they/them # " + "x".repeat(300)));
+        }
+        PronounRecordStore store = new PronounRecordStore();
+        store.put("example.com", records);
+
+        try (PronounDnsServer server = new PronounDnsServer(store, new InetSocketAddress("127.0.0.1", 0))) {
+            server.start();
+            DnsTxtClient client = new DnsTxtClient(List.of(server.address()), 1000, 1, 0);
+
+            TxtAnswer answer = client.query("pronouns.example.com");
+            assertEquals(20, answer.records().size());
+            assertEquals(records.get(0).toString(), answer.records().get(0));
+        }
+    }
+
+    @Test
+    @DisplayName("TCP clients that never read answers are not read from")
+    void testUnreadTcpAnswers() throws Exception {
+        PronounRecordStore store = new PronounRecordStore();
+        store.put("example.com", List.of(PoDNS4J.parse("she/her")));
+
+        try (PronounDnsServer server = new PronounDnsServer(store, new InetSocketAddress("127.0.0.1", 0))) {
+            server.start();
+            byte[] query = DnsWire.encodeQuery(1, "pronouns.example.com", DnsWire.TYPE_TXT, 0);
+            byte[] framed = ByteBuffer.allocate(2 + query.length).putShort((short) query.length).put(query).array();
+            byte[] batch = new byte[framed.length * 1000];
+            for (int i = 0; i < 1000; i++) {
+                System.arraycopy(framed, 0, batch, i * framed.length, framed.length);
+            }
+
+            CountDownLatch written = new CountDownLatch(1);
+            try (Socket socket = new Socket()) {
+                socket.setReceiveBufferSize(4096);
+                socket.connect(server.address());
+                Thread writer = new Thread(() -> {
+                    try {
+                        OutputStream out = socket.getOutputStream();
+                        for (int i = 0; i < 1000; i++) {
+                            out.write(batch);
+                        }
+                        written.countDown();
+                    } catch (IOException e) {
+                        // Closed by the test
+                    }
+                });
+                writer.setDaemon(true);
+                writer.start();
+
+                // The server stops reading once answers back up, so the writes stall
+                assertFalse(written.await(2, TimeUnit.SECONDS));
+                DnsTxtClient client = new DnsTxtClient(List.of(server.address()));
+                assertEquals(List.of("she/her"), client.query("pronouns.example.com").records());
+            }
+        }
+    }
+}